@@ -0,0 +1,60 @@
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Optional;
+
+/**
+ * Checkers which answer every request from in-memory {@link ReleaseFixtures}, so benchmarks measure parsing and version
+ * resolution instead of the network.
+ */
+final class BenchmarkCheckers {
+
+    private BenchmarkCheckers() {
+    }
+
+    static VersionChecker create(String platform, int releases) throws MalformedURLException {
+        switch (platform) {
+            case "github":
+                return new FixtureGitHubChecker(releases);
+            case "gitlab":
+                return new FixtureGitLabChecker(releases);
+            default:
+                throw new IllegalArgumentException("Unknown platform " + platform);
+        }
+    }
+
+    static final class FixtureGitHubChecker extends GitHubChecker {
+
+        private final String RELEASES;
+        private final String LATEST;
+
+        FixtureGitHubChecker(int releases) throws MalformedURLException {
+            super("Griefed/ServerPackCreator");
+            this.RELEASES = ReleaseFixtures.gitHubReleases(releases);
+            this.LATEST = ReleaseFixtures.gitHubLatest(releases);
+        }
+
+        @Override
+        protected Optional<String> getResponse(@NotNull URL requestUrl, boolean revalidate) {
+            return Optional.of(requestUrl.getPath().endsWith("/latest") ? LATEST : RELEASES);
+        }
+    }
+
+    static final class FixtureGitLabChecker extends GitLabChecker {
+
+        private final String RELEASES;
+
+        FixtureGitLabChecker(int releases) throws MalformedURLException {
+            super("https://git.griefed.de/api/v4/projects/63/releases");
+            this.RELEASES = ReleaseFixtures.gitLabReleases(releases);
+        }
+
+        @Override
+        protected Optional<String> getResponse(@NotNull URL requestUrl, boolean revalidate) {
+            return Optional.of(RELEASES);
+        }
+    }
+}
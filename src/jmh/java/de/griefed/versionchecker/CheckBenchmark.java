@@ -0,0 +1,59 @@
+package de.griefed.versionchecker;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link VersionChecker#check(String, boolean)} for a single client, as well as for a batch of clients running
+ * different versions against the same checker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CheckBenchmark {
+
+    private static final int BULK_SIZE = 100;
+
+    @Param({"github", "gitlab"})
+    public String platform;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int releases;
+
+    private VersionChecker checker;
+    private String outdated;
+    private String[] clients;
+
+    @Setup
+    public void setup() throws IOException {
+        checker = BenchmarkCheckers.create(platform, releases).refresh();
+        outdated = ReleaseFixtures.tag(0);
+
+        clients = new String[BULK_SIZE];
+        for (int i = 0; i < BULK_SIZE; i++) {
+            clients[i] = ReleaseFixtures.tag((int) ((long) i * (releases - 1) / (BULK_SIZE - 1)));
+        }
+    }
+
+    @Benchmark
+    public Optional<Update> single() {
+        return checker.check(outdated, false);
+    }
+
+    @Benchmark
+    public Optional<Update> singlePreRelease() {
+        return checker.check(outdated, true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public void bulk(Blackhole blackhole) {
+        for (int i = 0; i < clients.length; i++) {
+            blackhole.consume(checker.check(clients[i], i % 2 == 0));
+        }
+    }
+}
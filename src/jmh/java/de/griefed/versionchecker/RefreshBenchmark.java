@@ -0,0 +1,33 @@
+package de.griefed.versionchecker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a complete release-list during {@link VersionChecker#refresh()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RefreshBenchmark {
+
+    @Param({"github", "gitlab"})
+    public String platform;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int releases;
+
+    private VersionChecker checker;
+
+    @Setup
+    public void setup() throws IOException {
+        checker = BenchmarkCheckers.create(platform, releases);
+    }
+
+    @Benchmark
+    public VersionChecker refresh() throws IOException {
+        return checker.refresh();
+    }
+}
@@ -0,0 +1,59 @@
+package de.griefed.versionchecker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving the latest versions and comparing versions on an already refreshed checker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResolutionBenchmark {
+
+    @Param({"github", "gitlab"})
+    public String platform;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int releases;
+
+    private VersionChecker checker;
+
+    @Setup
+    public void setup() throws IOException {
+        checker = BenchmarkCheckers.create(platform, releases).refresh();
+    }
+
+    @Benchmark
+    public String latestVersion() {
+        return checker.latestVersion(false);
+    }
+
+    @Benchmark
+    public String latestPreRelease() {
+        return checker.latestVersion(true);
+    }
+
+    @Benchmark
+    public String latestAlpha() {
+        return checker.latestAlpha();
+    }
+
+    @Benchmark
+    public String latestBeta() {
+        return checker.latestBeta();
+    }
+
+    @Benchmark
+    public List<String> allVersions() {
+        return checker.allVersions();
+    }
+
+    @Benchmark
+    public boolean compareSemantics() {
+        return checker.compareSemantics("3.14.2-beta.3", "3.15.0", Comparison.NEW);
+    }
+}
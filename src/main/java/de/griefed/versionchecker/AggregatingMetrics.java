@@ -0,0 +1,294 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link VersionCheckerMetrics} which aggregates all measurements in memory, per host and repository. Read the aggregated
+ * {@link Stats} whenever you like, for example to log them or to hand them to the metrics library of your choice.
+ * One instance can be shared by any number of checkers.
+ * @author Griefed
+ */
+public class AggregatingMetrics implements VersionCheckerMetrics {
+
+    private final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    /**
+     * Get the aggregated measurements for the given host and repository.
+     * @author Griefed
+     * @param host {@link String} Host of the API.
+     * @param repository {@link String} Repository of the checker.
+     * @return {@link Stats} for the given host and repository. Empty if nothing was measured yet.
+     */
+    public Stats stats(@NotNull String host, @NotNull String repository) {
+        return STATS.computeIfAbsent(host + "/" + repository, key -> new Stats());
+    }
+
+    /**
+     * Get the aggregated measurements of all hosts and repositories measured so far.
+     * @author Griefed
+     * @return Map of <code>host/repository</code> to its {@link Stats}, sorted by key.
+     */
+    public Map<String, Stats> all() {
+        return Collections.unmodifiableMap(new TreeMap<>(STATS));
+    }
+
+    @Override
+    public void request(@NotNull String host, @NotNull String repository, int status, long latencyNanos, long bytes) {
+        Stats stats = stats(host, repository);
+        stats.REQUESTS.increment();
+        if (status < 200 || status >= 400) {
+            stats.FAILED_REQUESTS.increment();
+        }
+        stats.BYTES.add(bytes);
+        stats.LATENCY_NANOS.add(latencyNanos);
+        stats.MAX_LATENCY_NANOS.accumulateAndGet(latencyNanos, Math::max);
+        stats.STATUS.set(status);
+    }
+
+    @Override
+    public void cache(@NotNull String host, @NotNull String repository, @NotNull CacheResult result) {
+        Stats stats = stats(host, repository);
+        switch (result) {
+            case HIT:
+                stats.HITS.increment();
+                break;
+            case MISS:
+                stats.MISSES.increment();
+                break;
+            case REVALIDATED:
+                stats.REVALIDATIONS.increment();
+                break;
+        }
+    }
+
+    @Override
+    public void parse(@NotNull String host, @NotNull String repository, long parseNanos, int releases) {
+        Stats stats = stats(host, repository);
+        stats.PARSES.increment();
+        stats.PARSE_NANOS.add(parseNanos);
+        stats.RELEASES.set(releases);
+    }
+
+    @Override
+    public void check(@NotNull String host, @NotNull String repository, long durationNanos, boolean updateAvailable) {
+        Stats stats = stats(host, repository);
+        stats.CHECKS.increment();
+        stats.CHECK_NANOS.add(durationNanos);
+        if (updateAvailable) {
+            stats.UPDATES_FOUND.increment();
+        }
+    }
+
+    /**
+     * Aggregated measurements of one host and repository. Values are read individually, so while checkers are still
+     * working, two values read one after another may stem from slightly different points in time.
+     * @author Griefed
+     */
+    public static class Stats {
+
+        private final LongAdder REQUESTS = new LongAdder();
+        private final LongAdder FAILED_REQUESTS = new LongAdder();
+        private final LongAdder BYTES = new LongAdder();
+        private final LongAdder LATENCY_NANOS = new LongAdder();
+        private final AtomicLong MAX_LATENCY_NANOS = new AtomicLong();
+        private final AtomicInteger STATUS = new AtomicInteger(-1);
+        private final LongAdder HITS = new LongAdder();
+        private final LongAdder MISSES = new LongAdder();
+        private final LongAdder REVALIDATIONS = new LongAdder();
+        private final LongAdder PARSES = new LongAdder();
+        private final LongAdder PARSE_NANOS = new LongAdder();
+        private final AtomicInteger RELEASES = new AtomicInteger();
+        private final LongAdder CHECKS = new LongAdder();
+        private final LongAdder CHECK_NANOS = new LongAdder();
+        private final LongAdder UPDATES_FOUND = new LongAdder();
+
+        /**
+         * Get the amount of HTTP requests made, regardless of their status.
+         * @author Griefed
+         * @return Long. Amount of requests.
+         */
+        public long requests() {
+            return REQUESTS.sum();
+        }
+
+        /**
+         * Get the amount of requests which did not receive a 2xx or 3xx response, including those which received none
+         * at all.
+         * @author Griefed
+         * @return Long. Amount of failed requests.
+         */
+        public long failedRequests() {
+            return FAILED_REQUESTS.sum();
+        }
+
+        /**
+         * Get the amount of bytes received in response bodies.
+         * @author Griefed
+         * @return Long. Amount of bytes received.
+         */
+        public long bytes() {
+            return BYTES.sum();
+        }
+
+        /**
+         * Get the average time a request took, from sending it to reading its response.
+         * @author Griefed
+         * @return Long. Average latency in nanoseconds, or <code>0</code> if no request was made yet.
+         */
+        public long averageLatencyNanos() {
+            long requests = REQUESTS.sum();
+            return requests == 0 ? 0 : LATENCY_NANOS.sum() / requests;
+        }
+
+        /**
+         * Get the longest time a single request took.
+         * @author Griefed
+         * @return Long. Maximum latency in nanoseconds, or <code>0</code> if no request was made yet.
+         */
+        public long maxLatencyNanos() {
+            return MAX_LATENCY_NANOS.get();
+        }
+
+        /**
+         * Get the HTTP status of the most recent response.
+         * @author Griefed
+         * @return Integer. HTTP status of the most recent response, or <code>-1</code> if there was none.
+         */
+        public int lastStatus() {
+            return STATUS.get();
+        }
+
+        /**
+         * Get the amount of requests answered from the current snapshot without contacting the host.
+         * @author Griefed
+         * @return Long. Amount of cache hits.
+         */
+        public long hits() {
+            return HITS.sum();
+        }
+
+        /**
+         * Get the amount of complete responses which had to be parsed.
+         * @author Griefed
+         * @return Long. Amount of cache misses.
+         */
+        public long misses() {
+            return MISSES.sum();
+        }
+
+        /**
+         * Get the amount of responses which confirmed the current snapshot to be up-to-date.
+         * @author Griefed
+         * @return Long. Amount of revalidations.
+         */
+        public long revalidations() {
+            return REVALIDATIONS.sum();
+        }
+
+        /**
+         * Get the amount of responses parsed into a release snapshot.
+         * @author Griefed
+         * @return Long. Amount of parsed responses.
+         */
+        public long parses() {
+            return PARSES.sum();
+        }
+
+        /**
+         * Get the average time parsing a response took.
+         * @author Griefed
+         * @return Long. Average parse time in nanoseconds, or <code>0</code> if nothing was parsed yet.
+         */
+        public long averageParseNanos() {
+            long parses = PARSES.sum();
+            return parses == 0 ? 0 : PARSE_NANOS.sum() / parses;
+        }
+
+        /**
+         * Get the amount of releases in the most recently parsed response.
+         * @author Griefed
+         * @return Integer. Amount of releases in the most recently parsed response.
+         */
+        public int releases() {
+            return RELEASES.get();
+        }
+
+        /**
+         * Get the amount of checks for an update.
+         * @author Griefed
+         * @return Long. Amount of checks.
+         */
+        public long checks() {
+            return CHECKS.sum();
+        }
+
+        /**
+         * Get the average time a check for an update took.
+         * @author Griefed
+         * @return Long. Average check time in nanoseconds, or <code>0</code> if no check was made yet.
+         */
+        public long averageCheckNanos() {
+            long checks = CHECKS.sum();
+            return checks == 0 ? 0 : CHECK_NANOS.sum() / checks;
+        }
+
+        /**
+         * Get the amount of checks which found an update.
+         * @author Griefed
+         * @return Long. Amount of checks which found an update.
+         */
+        public long updatesFound() {
+            return UPDATES_FOUND.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "requests=" + requests() +
+                    ", failed=" + failedRequests() +
+                    ", bytes=" + bytes() +
+                    ", avgLatencyNanos=" + averageLatencyNanos() +
+                    ", maxLatencyNanos=" + maxLatencyNanos() +
+                    ", lastStatus=" + lastStatus() +
+                    ", hits=" + hits() +
+                    ", misses=" + misses() +
+                    ", revalidations=" + revalidations() +
+                    ", parses=" + parses() +
+                    ", avgParseNanos=" + averageParseNanos() +
+                    ", releases=" + releases() +
+                    ", checks=" + checks() +
+                    ", avgCheckNanos=" + averageCheckNanos() +
+                    ", updatesFound=" + updatesFound();
+        }
+    }
+}
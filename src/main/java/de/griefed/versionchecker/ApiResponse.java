@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A successful response of a GitHub or GitLab API, consisting of its body and headers.
+ * @author Griefed
+ */
+public class ApiResponse {
+
+    private final URL REQUEST_URL;
+    private final String BODY;
+    private final Map<String, List<String>> HEADERS;
+
+    /**
+     * Create a new response.
+     * @author Griefed
+     * @param requestUrl {@link URL} The URL which was requested.
+     * @param body {@link String} The body of the response.
+     * @param headers Map of header names to their values, as returned by {@link java.net.URLConnection#getHeaderFields()}.
+     */
+    public ApiResponse(@NotNull URL requestUrl, @NotNull String body, @NotNull Map<String, List<String>> headers) {
+        this.REQUEST_URL = requestUrl;
+        this.BODY = body;
+        this.HEADERS = headers;
+    }
+
+    /**
+     * Get the {@link URL} which was requested.
+     * @author Griefed
+     * @return {@link URL} which was requested.
+     */
+    public URL requestUrl() {
+        return REQUEST_URL;
+    }
+
+    /**
+     * Get the body of this response.
+     * @author Griefed
+     * @return {@link String} The body of this response.
+     */
+    public String body() {
+        return BODY;
+    }
+
+    /**
+     * Get the first value of the given header, ignoring the case of its name.
+     * @author Griefed
+     * @param name {@link String} Name of the header.
+     * @return {@link String} Value of the header, wrapped in an {@link Optional}.
+     */
+    public Optional<String> header(@NotNull String name) {
+        for (Map.Entry<String, List<String>> header : HEADERS.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return Optional.of(header.getValue().get(0));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get all headers of this response.
+     * @author Griefed
+     * @return Map of header names to their values.
+     */
+    public Map<String, List<String>> headers() {
+        return Collections.unmodifiableMap(HEADERS);
+    }
+
+    /**
+     * Get the {@link URL} of the next page, as announced by the <code>Link</code>-header both GitHub and GitLab use for
+     * pagination.
+     * @author Griefed
+     * @return {@link URL} of the next page, wrapped in an {@link Optional}. Empty if this is the last page.
+     */
+    public Optional<URL> nextPage() {
+        Optional<String> link = header("Link");
+        if (!link.isPresent()) {
+            return Optional.empty();
+        }
+
+        for (String relation : link.get().split(",")) {
+            int start = relation.indexOf('<');
+            int end = relation.indexOf('>');
+
+            if (start >= 0 && end > start && relation.substring(end).replace(" ", "").contains("rel=\"next\"")) {
+                try {
+                    return Optional.of(new URL(relation.substring(start + 1, end)));
+                } catch (MalformedURLException ex) {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded HTTP server sharing the assets of an {@link AssetStore} with other hosts on the same network, so a site
+ * downloads each asset from its origin about once instead of once per host. Point the stores of the other hosts at it
+ * with {@link AssetStore#setRelay(URL)}.<br>
+ * Assets are served at <code>/assets/{sha256}</code>. If an asset is missing and the request names its origin, the
+ * relay answers with <code>404</code>, so the client downloads it from the origin right away, and starts downloading it
+ * into its own store in the background, verified against the requested digest. Only <code>http</code> and
+ * <code>https</code> origins on the hosts set with {@link #setOrigins(Collection)} are fetched, by default those GitHub
+ * and GitLab serve release assets from. Pass an empty collection to disable fetching altogether. At most sixteen
+ * fetches wait at a time, further requests for missing assets are only answered with <code>404</code>.<br>
+ * The relay does not authenticate its clients. Only run it on networks whose hosts may download every stored asset.
+ * @author Griefed
+ */
+public class AssetRelay implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(AssetRelay.class);
+    private static final Pattern PATH = Pattern.compile("/assets/([0-9a-fA-F]{64})");
+    private static final int WARM_QUEUE = 16;
+
+    private final HttpServer SERVER;
+    private final AssetStore STORE;
+    private final ExecutorService EXECUTOR;
+    private final ExecutorService WARMER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(WARM_QUEUE), runnable -> {
+                Thread thread = new Thread(runnable, "VersionChecker-Relay-Fetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final Set<String> WARMING = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> origins = hosts(Arrays.asList(
+            "github.com", "objects.githubusercontent.com", "release-assets.githubusercontent.com", "gitlab.com"));
+
+    /**
+     * Create a new relay serving the given store on the given address. Call {@link #start()} to start serving.
+     * @author Griefed
+     * @param address {@link InetSocketAddress} The address to listen on. Use port <code>0</code> for any free port.
+     * @param store {@link AssetStore} The store to serve assets from and fetch missing assets into.
+     * @param threads Integer. Amount of requests served at the same time.
+     * @throws IOException Thrown if the address can not be bound.
+     */
+    public AssetRelay(@NotNull InetSocketAddress address, @NotNull AssetStore store, int threads) throws IOException {
+        this.STORE = store;
+        this.EXECUTOR = Executors.newFixedThreadPool(threads);
+        this.SERVER = HttpServer.create(address, 0);
+        this.SERVER.createContext("/assets/", this::handle);
+        this.SERVER.setExecutor(EXECUTOR);
+    }
+
+    /**
+     * Set the hosts this relay fetches missing assets from. Requests naming an origin on any other host are only
+     * answered with <code>404</code>, so clients can not make the relay request arbitrary URLs on its network.
+     * @author Griefed
+     * @param hosts Collection of host names. Empty to never fetch missing assets.
+     */
+    public void setOrigins(@NotNull Collection<String> hosts) {
+        this.origins = hosts(hosts);
+    }
+
+    /**
+     * Start serving assets.
+     * @author Griefed
+     * @return This relay.
+     */
+    public AssetRelay start() {
+        SERVER.start();
+        return this;
+    }
+
+    /**
+     * Get the address this relay is listening on.
+     * @author Griefed
+     * @return {@link InetSocketAddress} this relay is bound to.
+     */
+    public InetSocketAddress address() {
+        return SERVER.getAddress();
+    }
+
+    /**
+     * Get the base URL clients reach this relay at, for {@link AssetStore#setRelay(URL)}.
+     * @author Griefed
+     * @return {@link URL} of this relay.
+     * @throws MalformedURLException Thrown if the address of this relay can not be turned into a URL.
+     */
+    public URL url() throws MalformedURLException {
+        return new URL("http", address().getHostString(), address().getPort(), "/");
+    }
+
+    /**
+     * Stop serving assets. Fetches into the store which are running are interrupted.
+     * @author Griefed
+     */
+    @Override
+    public void close() {
+        SERVER.stop(0);
+        EXECUTOR.shutdownNow();
+        WARMER.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                send(exchange, 405, "Only GET and HEAD are supported.");
+                return;
+            }
+
+            Matcher matcher = PATH.matcher(exchange.getRequestURI().getPath());
+            if (!matcher.matches()) {
+                send(exchange, 404, "Unknown path.");
+                return;
+            }
+
+            String digest = matcher.group(1).toLowerCase(Locale.ROOT);
+            Optional<Path> stored = STORE.get(digest);
+            if (stored.isPresent()) {
+                serve(exchange, stored.get());
+                return;
+            }
+
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            if (query.containsKey("url")) {
+                warm(digest, query.getOrDefault("name", digest), query.get("url"));
+            }
+            send(exchange, 404, "Not stored.");
+
+        } catch (IOException | RuntimeException ex) {
+            LOG.error("Relay request {} could not be served.", exchange.getRequestURI(), ex);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void serve(HttpExchange exchange, Path file) throws IOException {
+        long length = Files.size(file);
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        exchange.sendResponseHeaders(200, length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            Files.copy(file, outputStream);
+        }
+    }
+
+    private void warm(String digest, String name, String origin) {
+        URL url;
+        try {
+            url = new URL(origin);
+        } catch (MalformedURLException ex) {
+            LOG.debug("Ignoring invalid origin {}.", origin);
+            return;
+        }
+        if (!url.getProtocol().equals("http") && !url.getProtocol().equals("https")) {
+            LOG.debug("Ignoring origin {} with unsupported protocol.", origin);
+            return;
+        }
+        if (!origins.contains(url.getHost().toLowerCase(Locale.ROOT))) {
+            LOG.debug("Ignoring origin {} on a host which is not allowed.", origin);
+            return;
+        }
+
+        if (WARMING.add(digest)) {
+            try {
+                WARMER.execute(() -> {
+                    try {
+                        STORE.acquire(new ReleaseAsset(name, url, digest), Checksum.sha256(digest));
+                        LOG.debug("Relay stored {} from {}.", name, url);
+                    } catch (IOException ex) {
+                        LOG.warn("Relay could not fetch {} from {}.", name, url, ex);
+                    } finally {
+                        WARMING.remove(digest);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                LOG.debug("Not fetching {}, too many fetches are waiting.", name);
+                WARMING.remove(digest);
+            }
+        }
+    }
+
+    private static Set<String> hosts(Collection<String> hosts) {
+        Set<String> normalized = new HashSet<>();
+        for (String host : hosts) {
+            normalized.add(host.toLowerCase(Locale.ROOT));
+        }
+        return normalized;
+    }
+
+    private static Map<String, String> query(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private static void send(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
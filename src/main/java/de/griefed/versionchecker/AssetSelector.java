@@ -0,0 +1,415 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Picks the asset of an update which fits a platform, described by its operating system, architecture and an optional
+ * variant, like <code>musl</code> or <code>portable</code>.<br>
+ * Rules are added in order of priority. Each rule is a glob or regular expression for asset names, and may assign a
+ * variant, operating system and architecture to the assets it matches. Unless a rule assigns them, the operating system
+ * and architecture of an asset are detected from the tokens of its name, separated by anything but letters and digits.
+ * <code>app-linux-x86_64.tar.gz</code> and <code>app_1.0.0_linux_amd64.tar.gz</code> are assets for <code>linux</code> on
+ * <code>x64</code>, while <code>app.jar</code> fits every platform.<br>
+ * The assets of a release are matched against the rules once, into an index from platform to asset. Picking the asset
+ * for a platform then takes at most three lookups in that index, no matter how many rules and assets there are. Indexes
+ * are kept for the last 1024 releases, recognized by their URL and assets.
+ * @author Griefed
+ */
+public class AssetSelector {
+
+    private static final int CACHED_RELEASES = 1024;
+    private static final String ANY = "*";
+    private static final Pattern TOKENS = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern X64 = Pattern.compile("x86[_-]64");
+    private static final Map<String, String> OPERATING_SYSTEMS = new HashMap<>();
+    private static final Map<String, String> ARCHITECTURES = new HashMap<>();
+
+    static {
+        for (String token : new String[] {"windows", "win", "win32", "win64", "msvc", "mingw"}) {
+            OPERATING_SYSTEMS.put(token, "windows");
+        }
+        for (String token : new String[] {"macos", "mac", "osx", "darwin", "apple"}) {
+            OPERATING_SYSTEMS.put(token, "macos");
+        }
+        for (String token : new String[] {"linux", "gnu", "musl"}) {
+            OPERATING_SYSTEMS.put(token, "linux");
+        }
+        OPERATING_SYSTEMS.put("freebsd", "freebsd");
+
+        for (String token : new String[] {"x64", "amd64", "x86_64", "win64"}) {
+            ARCHITECTURES.put(token, "x64");
+        }
+        for (String token : new String[] {"arm64", "aarch64"}) {
+            ARCHITECTURES.put(token, "arm64");
+        }
+        for (String token : new String[] {"x86", "i386", "i686", "386", "ia32"}) {
+            ARCHITECTURES.put(token, "x86");
+        }
+        for (String token : new String[] {"arm", "armv7", "armv7l", "armhf"}) {
+            ARCHITECTURES.put(token, "arm");
+        }
+    }
+
+    private final List<Rule> RULES = new ArrayList<>();
+    private final Map<String, Index> INDEXES = new LinkedHashMap<String, Index>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Index> eldest) {
+            return size() > CACHED_RELEASES;
+        }
+    };
+
+    /**
+     * Add a rule selecting assets whose name matches the given glob, ignoring case. <code>*</code> matches any amount of
+     * characters, <code>?</code> a single one, and <code>{a,b}</code> either alternative.
+     * @author Griefed
+     * @param glob {@link String} Glob for asset names, like <code>*-linux-*.tar.gz</code>.
+     * @return This selector.
+     */
+    public AssetSelector glob(@NotNull String glob) {
+        return rule(compile(glob), null, null, null);
+    }
+
+    /**
+     * Add a rule selecting assets whose name matches the given glob, ignoring case, for clients asking for the given
+     * variant.
+     * @author Griefed
+     * @param glob {@link String} Glob for asset names, like <code>*-musl.tar.gz</code>.
+     * @param variant {@link String} Variant the matching assets are for.
+     * @return This selector.
+     */
+    public AssetSelector glob(@NotNull String glob, @NotNull String variant) {
+        return rule(compile(glob), variant, null, null);
+    }
+
+    /**
+     * Add a rule selecting assets whose name matches the given pattern completely.
+     * @author Griefed
+     * @param pattern {@link Pattern} Pattern for asset names.
+     * @return This selector.
+     */
+    public AssetSelector regex(@NotNull Pattern pattern) {
+        return rule(pattern, null, null, null);
+    }
+
+    /**
+     * Add a rule selecting assets whose name matches the given pattern completely, and assign them to the given variant,
+     * operating system and architecture.
+     * @author Griefed
+     * @param pattern {@link Pattern} Pattern for asset names.
+     * @param variant {@link String} Variant the matching assets are for, or <code>null</code> for clients asking for none.
+     * @param os {@link String} Operating system the matching assets are for, or <code>null</code> to detect it from
+     * their names.
+     * @param arch {@link String} Architecture the matching assets are for, or <code>null</code> to detect it from their
+     * names.
+     * @return This selector.
+     */
+    public AssetSelector rule(@NotNull Pattern pattern, @Nullable String variant, @Nullable String os, @Nullable String arch) {
+        synchronized (INDEXES) {
+            RULES.add(new Rule(pattern, variant, os == null ? null : normalize(os, OPERATING_SYSTEMS),
+                    arch == null ? null : normalize(arch, ARCHITECTURES)));
+            INDEXES.clear();
+        }
+        return this;
+    }
+
+    /**
+     * Pick the asset of the given update for the given platform. Assets for the operating system and architecture of
+     * the platform are preferred over assets for its operating system alone, those over assets for its architecture
+     * alone, and those over assets for any platform. Among assets for the same platform, the one matching the rule
+     * added first wins.
+     * @author Griefed
+     * @param update {@link Update} The update to pick an asset of.
+     * @param platform {@link Platform} The platform of the client.
+     * @return {@link ReleaseAsset} for the platform, wrapped in an {@link Optional}. Empty if no rule selects an asset
+     * for it.
+     */
+    public Optional<ReleaseAsset> select(@NotNull Update update, @NotNull Platform platform) {
+        return Optional.ofNullable(index(update).select(platform));
+    }
+
+    /**
+     * Get the index of the given update, matching its assets against the rules if this is the first time the release
+     * is asked for.
+     * @author Griefed
+     * @param update {@link Update} The update to index.
+     * @return {@link Index} of the assets of the update.
+     */
+    public Index index(@NotNull Update update) {
+        List<ReleaseAsset> assets = update.assets().orElse(Collections.emptyList());
+        String key = update.url() + "\n" + update.version();
+        int fingerprint = fingerprint(assets);
+
+        List<Rule> rules;
+        synchronized (INDEXES) {
+            Index index = INDEXES.get(key);
+            if (index != null && index.FINGERPRINT == fingerprint) {
+                return index;
+            }
+            rules = new ArrayList<>(RULES);
+        }
+
+        Index index = new Index(fingerprint);
+        for (int priority = 0; priority < rules.size(); priority++) {
+            Rule rule = rules.get(priority);
+            for (ReleaseAsset asset : assets) {
+                if (rule.PATTERN.matcher(asset.name()).matches()) {
+                    index.add(rule, asset);
+                }
+            }
+        }
+
+        synchronized (INDEXES) {
+            INDEXES.put(key, index);
+        }
+        return index;
+    }
+
+    private static int fingerprint(List<ReleaseAsset> assets) {
+        int fingerprint = assets.size();
+        for (ReleaseAsset asset : assets) {
+            fingerprint = 31 * fingerprint + asset.url().toString().hashCode();
+        }
+        return fingerprint;
+    }
+
+    private static String normalize(String token, Map<String, String> aliases) {
+        String lowerCase = token.toLowerCase(Locale.ROOT);
+        return aliases.getOrDefault(lowerCase, lowerCase);
+    }
+
+    private static String key(String os, String arch, String variant) {
+        return os + "/" + arch + "/" + (variant == null ? "" : variant);
+    }
+
+    /**
+     * Translate a glob into a case-insensitive pattern.
+     * @author Griefed
+     */
+    static Pattern compile(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() * 2);
+        StringBuilder literal = new StringBuilder();
+        boolean alternatives = false;
+
+        for (char character : glob.toCharArray()) {
+            String special = null;
+            switch (character) {
+                case '*':
+                    special = ".*";
+                    break;
+                case '?':
+                    special = ".";
+                    break;
+                case '{':
+                    special = "(?:";
+                    alternatives = true;
+                    break;
+                case '}':
+                    special = alternatives ? ")" : null;
+                    alternatives = false;
+                    break;
+                case ',':
+                    special = alternatives ? "|" : null;
+                    break;
+                default:
+            }
+
+            if (special == null) {
+                literal.append(character);
+            } else {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(special);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * The platform of a client.
+     * @author Griefed
+     */
+    public static final class Platform {
+
+        private final String OS;
+        private final String ARCH;
+        private final String VARIANT;
+
+        /**
+         * Create a new platform. Common aliases are understood, so <code>darwin</code> is <code>macos</code> and
+         * <code>x86_64</code> is <code>x64</code>.
+         * @author Griefed
+         * @param os {@link String} Operating system, like <code>linux</code>, <code>windows</code> or <code>macos</code>.
+         * @param arch {@link String} Architecture, like <code>x64</code> or <code>arm64</code>.
+         * @param variant {@link String} Variant, or <code>null</code> for none.
+         */
+        public Platform(@NotNull String os, @NotNull String arch, @Nullable String variant) {
+            this.OS = normalize(os, OPERATING_SYSTEMS);
+            this.ARCH = normalize(arch, ARCHITECTURES);
+            this.VARIANT = variant;
+        }
+
+        /**
+         * Get the platform this JVM runs on, without a variant.
+         * @author Griefed
+         * @return {@link Platform} of this JVM.
+         */
+        public static Platform current() {
+            String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+            if (os.startsWith("windows")) {
+                os = "windows";
+            } else if (os.startsWith("mac")) {
+                os = "macos";
+            }
+            return new Platform(os, System.getProperty("os.arch", ""), null);
+        }
+
+        /**
+         * Get the operating system of this platform.
+         * @author Griefed
+         * @return {@link String} Normalized operating system.
+         */
+        public String os() {
+            return OS;
+        }
+
+        /**
+         * Get the architecture of this platform.
+         * @author Griefed
+         * @return {@link String} Normalized architecture.
+         */
+        public String arch() {
+            return ARCH;
+        }
+
+        /**
+         * Get the variant of this platform.
+         * @author Griefed
+         * @return {@link String} The variant, wrapped in an {@link Optional}.
+         */
+        public Optional<String> variant() {
+            return Optional.ofNullable(VARIANT);
+        }
+
+        @Override
+        public String toString() {
+            return key(OS, ARCH, VARIANT);
+        }
+    }
+
+    /**
+     * The assets of one release, indexed by the platform they are for.
+     * @author Griefed
+     */
+    public static final class Index {
+
+        private final int FINGERPRINT;
+        private final Map<String, ReleaseAsset> ASSETS = new HashMap<>();
+
+        private Index(int fingerprint) {
+            this.FINGERPRINT = fingerprint;
+        }
+
+        /**
+         * Pick the asset for the given platform.
+         * @author Griefed
+         * @param platform {@link Platform} The platform of the client.
+         * @return {@link ReleaseAsset} for the platform, or <code>null</code> if there is none.
+         */
+        public ReleaseAsset select(@NotNull Platform platform) {
+            ReleaseAsset asset = ASSETS.get(key(platform.OS, platform.ARCH, platform.VARIANT));
+            if (asset == null) {
+                asset = ASSETS.get(key(platform.OS, ANY, platform.VARIANT));
+            }
+            if (asset == null) {
+                asset = ASSETS.get(key(ANY, platform.ARCH, platform.VARIANT));
+            }
+            if (asset == null) {
+                asset = ASSETS.get(key(ANY, ANY, platform.VARIANT));
+            }
+            return asset;
+        }
+
+        /**
+         * Record the given asset for its platform, unless an asset of a rule with higher priority is recorded already.
+         */
+        private void add(Rule rule, ReleaseAsset asset) {
+            String os = rule.OS;
+            String arch = rule.ARCH;
+
+            if (os == null || arch == null) {
+                String name = X64.matcher(asset.name().toLowerCase(Locale.ROOT)).replaceAll("x64");
+                for (String token : TOKENS.split(name)) {
+                    if (os == null) {
+                        os = OPERATING_SYSTEMS.get(token);
+                    }
+                    if (arch == null) {
+                        arch = ARCHITECTURES.get(token);
+                    }
+                }
+            }
+
+            // An architecture without an operating system, like app-x64.jar, fits it on every operating system.
+            String key = key(os == null ? ANY : os, arch == null ? ANY : arch, rule.VARIANT);
+            ASSETS.putIfAbsent(key, asset);
+        }
+    }
+
+    /**
+     * A compiled rule.
+     * @author Griefed
+     */
+    private static final class Rule {
+
+        private final Pattern PATTERN;
+        private final String VARIANT;
+        private final String OS;
+        private final String ARCH;
+
+        private Rule(Pattern pattern, String variant, String os, String arch) {
+            this.PATTERN = pattern;
+            this.VARIANT = variant;
+            this.OS = os;
+            this.ARCH = arch;
+        }
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of downloaded release assets, keyed by their SHA-256 digest, so identical files are only
+ * downloaded once, no matter which version or repository they belong to.<br>
+ * Before an asset is downloaded, its digest is looked up through {@link Checksums}. If the store contains the digest,
+ * the file is hard-linked to the target, or copied if the file system does not support hard links. Downloaded files are
+ * verified against the expected digest while they are downloaded, and added to the store.<br>
+ * Files are kept in <code>{directory}/{first two hex digits}/{digest}</code>. Once the store exceeds its budget, the
+ * least recently used files are deleted, except those which are being placed at the moment. Last use is recorded as the
+ * modification time of a file, so it survives restarts and is shared by every process using the same directory.<br>
+ * Hard-linked targets share their content with the store. Replace them instead of modifying them in place.
+ * @author Griefed
+ */
+public class AssetStore implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(AssetStore.class);
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path DIRECTORY;
+    private final Path TEMPORARY;
+    private final long BUDGET;
+    private final Downloader DOWNLOADER;
+
+    private final Map<String, Long> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+    // Stored files which are being placed, and must not be evicted until then. Guarded by ENTRIES.
+    private final Map<String, Integer> PINS = new HashMap<>();
+    private final Checksums CHECKSUMS = new Checksums();
+    // One per URL which is being fetched, shared by all concurrent fetches of it. Guarded by itself.
+    private final Map<String, UrlLock> LOCKS = new HashMap<>();
+    private volatile URL relay;
+    private long size = 0;
+
+    /**
+     * Create a new store in the given directory, picking up the files already stored there.
+     * @author Griefed
+     * @param directory {@link Path} Directory of the store. Created if it does not exist.
+     * @param budgetBytes Long. Size the stored files may occupy.
+     * @throws IOException Thrown if the directory can not be created or read.
+     */
+    public AssetStore(@NotNull Path directory, long budgetBytes) throws IOException {
+        this(directory, budgetBytes, new Downloader());
+    }
+
+    /**
+     * Create a new store in the given directory, downloading with the given downloader. The downloader is closed with
+     * this store.
+     * @author Griefed
+     * @param directory {@link Path} Directory of the store. Created if it does not exist.
+     * @param budgetBytes Long. Size the stored files may occupy.
+     * @param downloader {@link Downloader} Downloader to acquire missing assets with.
+     * @throws IOException Thrown if the directory can not be created or read.
+     */
+    public AssetStore(@NotNull Path directory, long budgetBytes, @NotNull Downloader downloader) throws IOException {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("Budget must not be negative.");
+        }
+
+        this.DIRECTORY = Files.createDirectories(directory);
+        this.TEMPORARY = Files.createDirectories(directory.resolve("tmp"));
+        this.BUDGET = budgetBytes;
+        this.DOWNLOADER = downloader;
+
+        List<Path> stored = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(DIRECTORY, 2)) {
+            files.filter(file -> SHA256.matcher(file.getFileName().toString()).matches() && Files.isRegularFile(file))
+                    .forEach(stored::add);
+        }
+
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path file : stored) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        stored.sort((first, second) -> Long.compare(modified.get(first), modified.get(second)));
+
+        for (Path file : stored) {
+            long length = Files.size(file);
+            ENTRIES.put(file.getFileName().toString(), length);
+            size += length;
+        }
+    }
+
+    /**
+     * Acquire the given asset of the given update. Its digest is taken from the asset, or from a checksum file among
+     * the assets of the update.
+     * @author Griefed
+     * @param update {@link Update} The update the asset belongs to.
+     * @param asset {@link ReleaseAsset} The asset to acquire.
+     * @param target {@link Path} Where to place the asset. Replaced if it exists.
+     * @return {@link Path} The given target.
+     * @throws IOException Thrown if the asset can not be downloaded, does not match its digest, or can not be placed.
+     */
+    public Path fetch(@NotNull Update update, @NotNull ReleaseAsset asset, @NotNull Path target) throws IOException {
+        return fetch(asset, CHECKSUMS.of(update, asset).orElse(null), target);
+    }
+
+    /**
+     * Acquire the given asset. Its digest is only taken from the asset itself.
+     * @author Griefed
+     * @param asset {@link ReleaseAsset} The asset to acquire.
+     * @param target {@link Path} Where to place the asset. Replaced if it exists.
+     * @return {@link Path} The given target.
+     * @throws IOException Thrown if the asset can not be downloaded, does not match its digest, or can not be placed.
+     */
+    public Path fetch(@NotNull ReleaseAsset asset, @NotNull Path target) throws IOException {
+        return fetch(asset, Checksums.of(asset).orElse(null), target);
+    }
+
+    /**
+     * Get the stored file with the given digest, marking it as used.
+     * @author Griefed
+     * @param sha256 {@link String} Hex-encoded SHA-256 digest.
+     * @return {@link Path} of the stored file, wrapped in an {@link Optional}.
+     */
+    public Optional<Path> get(@NotNull String sha256) {
+        return get(sha256.toLowerCase(Locale.ROOT), false);
+    }
+
+    /**
+     * Get the stored file with the given digest, marking it as used.
+     * @author Griefed
+     * @param digest {@link String} Lower-case, hex-encoded SHA-256 digest.
+     * @param pin Boolean. Whether to keep the file from being evicted until {@link #unpin(Path)} is called.
+     * @return {@link Path} of the stored file, wrapped in an {@link Optional}.
+     */
+    private Optional<Path> get(String digest, boolean pin) {
+        synchronized (ENTRIES) {
+            if (ENTRIES.get(digest) == null) {
+                return Optional.empty();
+            }
+            if (pin) {
+                PINS.merge(digest, 1, Integer::sum);
+            }
+        }
+
+        Path stored = file(digest);
+        if (!Files.isRegularFile(stored)) {
+            // Deleted by another process sharing this store.
+            if (pin) {
+                unpin(stored);
+            }
+            forget(digest);
+            return Optional.empty();
+        }
+
+        try {
+            Files.setLastModifiedTime(stored, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ex) {
+            LOG.debug("Could not record use of {}.", stored, ex);
+        }
+        return Optional.of(stored);
+    }
+
+    /**
+     * Get the SHA-256 digest of the given asset, as reported by its host or by a checksum file among the assets of the
+     * given update. Checksum files are downloaded once and kept in memory.
+     * @author Griefed
+     * @param update {@link Update} The update the asset belongs to.
+     * @param asset {@link ReleaseAsset} The asset.
+     * @return {@link String} Lower-case, hex-encoded SHA-256 digest, wrapped in an {@link Optional}.
+     */
+    public Optional<String> digest(@NotNull Update update, @NotNull ReleaseAsset asset) {
+        return CHECKSUMS.of(update, asset)
+                .filter(checksum -> checksum.algorithm().equals(Checksum.SHA_256))
+                .map(Checksum::hex);
+    }
+
+    /**
+     * Request assets from the given {@link AssetRelay} before downloading them from their origin. Only assets whose
+     * SHA-256 digest is known are requested from the relay, and they are verified just the same. If the relay does not
+     * have an asset, or can not be reached, the asset is downloaded from its origin.
+     * @author Griefed
+     * @param relay {@link URL} Base URL of the relay, like <code>http://relay.lan:8642/</code>, or <code>null</code>
+     * to always download from the origin.
+     */
+    public void setRelay(@Nullable URL relay) {
+        this.relay = relay;
+    }
+
+    /**
+     * Get the size of all stored files.
+     * @author Griefed
+     * @return Long. Size of all stored files in bytes.
+     */
+    public long size() {
+        synchronized (ENTRIES) {
+            return size;
+        }
+    }
+
+    /**
+     * Close the downloader of this store.
+     * @author Griefed
+     */
+    @Override
+    public void close() {
+        DOWNLOADER.close();
+    }
+
+    private Path fetch(ReleaseAsset asset, Checksum expected, Path target) throws IOException {
+        Path stored = acquire(asset, expected, true);
+        try {
+            return place(stored, target);
+        } finally {
+            unpin(stored);
+        }
+    }
+
+    /**
+     * Get the stored file of the given asset, downloading it into the store if it is missing. Assets with a known
+     * SHA-256 digest are requested from the relay first, if one is set.
+     * @author Griefed
+     * @param asset {@link ReleaseAsset} The asset to acquire.
+     * @param expected {@link Checksum} Expected digest of the asset, or <code>null</code> if it is unknown.
+     * @return {@link Path} of the stored file.
+     * @throws IOException Thrown if the asset can not be downloaded, or does not match its digest.
+     */
+    Path acquire(ReleaseAsset asset, Checksum expected) throws IOException {
+        return acquire(asset, expected, false);
+    }
+
+    /**
+     * Get the stored file of the given asset, downloading it into the store if it is missing.
+     * @author Griefed
+     * @param asset {@link ReleaseAsset} The asset to acquire.
+     * @param expected {@link Checksum} Expected digest of the asset, or <code>null</code> if it is unknown.
+     * @param pin Boolean. Whether to keep the file from being evicted until {@link #unpin(Path)} is called.
+     * @return {@link Path} of the stored file.
+     * @throws IOException Thrown if the asset can not be downloaded, or does not match its digest.
+     */
+    private Path acquire(ReleaseAsset asset, Checksum expected, boolean pin) throws IOException {
+        boolean keyed = expected != null && expected.algorithm().equals(Checksum.SHA_256);
+        if (keyed) {
+            Optional<Path> stored = get(expected.hex(), pin);
+            if (stored.isPresent()) {
+                LOG.debug("Placing {} from the store.", asset.name());
+                return stored.get();
+            }
+        }
+
+        String key = Checksum.hex(Checksum.newDigest(Checksum.SHA_256).digest(asset.url().toString().getBytes(StandardCharsets.UTF_8)));
+        UrlLock lock;
+        synchronized (LOCKS) {
+            lock = LOCKS.computeIfAbsent(key, k -> new UrlLock());
+            lock.users++;
+        }
+
+        try {
+            synchronized (lock) {
+                if (keyed) {
+                    // Another thread may have stored it while this one waited.
+                    Optional<Path> stored = get(expected.hex(), pin);
+                    if (stored.isPresent()) {
+                        return stored.get();
+                    }
+
+                    URL current = relay;
+                    if (current != null) {
+                        try {
+                            Path relayed = DOWNLOADER.download(relayUrl(current, asset, expected), TEMPORARY.resolve(key), expected);
+                            LOG.debug("Acquired {} from relay {}.", asset.name(), current);
+                            return add(expected.hex(), relayed, pin);
+                        } catch (IOException ex) {
+                            LOG.debug("Relay {} could not provide {}. Downloading it from its origin.", current, asset.name(), ex);
+                        }
+                    }
+                }
+
+                // The SHA-256 of the asset is computed during its download, unless it is the expected digest anyway.
+                MessageDigest sha256 = Checksum.newDigest(Checksum.SHA_256);
+                Path downloaded = keyed
+                        ? DOWNLOADER.download(asset.url(), TEMPORARY.resolve(key), expected)
+                        : DOWNLOADER.download(asset.url(), TEMPORARY.resolve(key), expected, sha256);
+
+                return add(keyed ? expected.hex() : Checksum.hex(sha256.digest()), downloaded, pin);
+            }
+        } finally {
+            synchronized (LOCKS) {
+                if (--lock.users == 0) {
+                    LOCKS.remove(key);
+                }
+            }
+        }
+    }
+
+    private static URL relayUrl(URL relay, ReleaseAsset asset, Checksum expected) throws IOException {
+        return new URL(relay, "assets/" + expected.hex()
+                + "?name=" + URLEncoder.encode(asset.name(), "UTF-8")
+                + "&url=" + URLEncoder.encode(asset.url().toString(), "UTF-8"));
+    }
+
+    private Path add(String digest, Path downloaded, boolean pin) throws IOException {
+        Path stored = file(digest);
+        Files.createDirectories(stored.getParent());
+
+        if (Files.exists(stored)) {
+            // Stored by another process sharing this store. Both have the same content, so keep the existing file.
+            Files.deleteIfExists(downloaded);
+        } else {
+            try {
+                Files.move(downloaded, stored, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(downloaded, stored, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (ENTRIES) {
+            Long previous = ENTRIES.put(digest, Files.size(stored));
+            if (previous == null) {
+                size += Files.size(stored);
+            }
+            if (pin) {
+                PINS.merge(digest, 1, Integer::sum);
+            }
+
+            Iterator<Map.Entry<String, Long>> iterator = ENTRIES.entrySet().iterator();
+            while (size > BUDGET && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                if (eldest.getKey().equals(digest) || PINS.containsKey(eldest.getKey())) {
+                    continue;
+                }
+                iterator.remove();
+                size -= eldest.getValue();
+                evicted.add(eldest.getKey());
+            }
+        }
+
+        for (String eldest : evicted) {
+            LOG.debug("Evicting {} from the store.", eldest);
+            Files.deleteIfExists(file(eldest));
+        }
+
+        return stored;
+    }
+
+    /**
+     * Allow a stored file pinned by {@link #acquire(ReleaseAsset, Checksum, boolean)} to be evicted again. It is only
+     * evicted once another file is added.
+     * @author Griefed
+     * @param stored {@link Path} The stored file.
+     */
+    private void unpin(Path stored) {
+        synchronized (ENTRIES) {
+            PINS.computeIfPresent(stored.getFileName().toString(), (digest, pins) -> pins == 1 ? null : pins - 1);
+        }
+    }
+
+    private void forget(String digest) {
+        synchronized (ENTRIES) {
+            Long length = ENTRIES.remove(digest);
+            if (length != null) {
+                size -= length;
+            }
+        }
+    }
+
+    private Path place(Path stored, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(target);
+
+        try {
+            Files.createLink(target, stored);
+        } catch (IOException | UnsupportedOperationException ex) {
+            LOG.debug("Could not link {} to {}. Copying it instead.", target, stored);
+            Files.copy(stored, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    private Path file(String digest) {
+        return DIRECTORY.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    /**
+     * Lock of a URL which is being fetched, removed once nobody fetches the URL anymore.
+     * @author Griefed
+     */
+    private static class UrlLock {
+
+        private int users = 0;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limiting the rate at which data is transferred. Every transfer takes tokens for the bytes it read, and
+ * waits once the bucket is empty. The bucket holds one second worth of tokens, so short bursts are not delayed. A
+ * limiter can be shared by any number of transfers, which then share its rate.<br>
+ * Limiters can be nested, for example one per host within a global one, in which case a transfer waits until every
+ * limiter up to the outermost one covers its bytes.
+ * @author Griefed
+ */
+public class BandwidthLimiter {
+
+    private final BandwidthLimiter PARENT;
+    private volatile long bytesPerSecond;
+    private double tokens;
+    private long refilled = System.nanoTime();
+
+    /**
+     * Create a new limiter.
+     * @author Griefed
+     * @param bytesPerSecond Long. Rate to limit transfers to, in bytes per second.
+     */
+    public BandwidthLimiter(long bytesPerSecond) {
+        this(bytesPerSecond, null);
+    }
+
+    /**
+     * Create a new limiter within the given one, so transfers are limited by both.
+     * @author Griefed
+     * @param bytesPerSecond Long. Rate to limit transfers to, in bytes per second.
+     * @param parent {@link BandwidthLimiter} Limiter shared with other transfers, or <code>null</code>.
+     */
+    public BandwidthLimiter(long bytesPerSecond, @Nullable BandwidthLimiter parent) {
+        setRate(bytesPerSecond);
+        this.tokens = bytesPerSecond;
+        this.PARENT = parent;
+    }
+
+    /**
+     * Change the rate of this limiter. Takes effect for the next transfer.
+     * @author Griefed
+     * @param bytesPerSecond Long. Rate to limit transfers to, in bytes per second.
+     */
+    public void setRate(long bytesPerSecond) {
+        if (bytesPerSecond < 1) {
+            throw new IllegalArgumentException("Rate must be positive.");
+        }
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Get the rate of this limiter.
+     * @author Griefed
+     * @return Long. Rate transfers are limited to, in bytes per second.
+     */
+    public long getRate() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Take tokens for the given amount of transferred bytes, waiting until the bucket covers them. Transfers larger than
+     * the bucket are allowed and delay the following transfers accordingly.
+     * @author Griefed
+     * @param bytes Integer. Amount of bytes transferred.
+     * @throws InterruptedIOException Thrown if the current thread is interrupted while waiting.
+     */
+    public void acquire(int bytes) throws InterruptedIOException {
+        long wait = reserve(bytes);
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bandwidth.");
+            }
+        }
+    }
+
+    /**
+     * Take tokens for the given amount of bytes from this limiter and the ones it is nested in, going into debt if
+     * there are not enough.
+     * @author Griefed
+     * @param bytes Integer. Amount of bytes transferred.
+     * @return Long. Nanoseconds to wait until every debt is paid off.
+     */
+    long reserve(int bytes) {
+        long wait;
+        synchronized (this) {
+            long rate = bytesPerSecond;
+            long now = System.nanoTime();
+
+            tokens = Math.min(rate, tokens + (now - refilled) / 1e9 * rate);
+            refilled = now;
+            tokens -= bytes;
+
+            wait = tokens >= 0 ? 0 : (long) (-tokens * 1e9 / rate);
+        }
+        return PARENT == null ? wait : Math.max(wait, PARENT.reserve(bytes));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * An expected SHA-256 or SHA-512 digest of a download.
+ * @author Griefed
+ */
+public class Checksum {
+
+    /**
+     * Name of the SHA-256 algorithm, as accepted by {@link MessageDigest#getInstance(String)}.
+     */
+    public static final String SHA_256 = "SHA-256";
+
+    /**
+     * Name of the SHA-512 algorithm, as accepted by {@link MessageDigest#getInstance(String)}.
+     */
+    public static final String SHA_512 = "SHA-512";
+
+    private static final Pattern HEX = Pattern.compile("[0-9a-f]+");
+
+    private final String ALGORITHM;
+    private final String HEX_DIGEST;
+
+    private Checksum(String algorithm, String hex) {
+        this.ALGORITHM = algorithm;
+        this.HEX_DIGEST = hex;
+    }
+
+    /**
+     * Create an expected SHA-256 digest.
+     * @author Griefed
+     * @param hex {@link String} Hex-encoded digest, in either case.
+     * @return {@link Checksum} The expected digest.
+     * @throws IllegalArgumentException Thrown if the given value is not a hex-encoded SHA-256 digest.
+     */
+    public static Checksum sha256(@NotNull String hex) {
+        return of(SHA_256, hex, 64);
+    }
+
+    /**
+     * Create an expected SHA-512 digest.
+     * @author Griefed
+     * @param hex {@link String} Hex-encoded digest, in either case.
+     * @return {@link Checksum} The expected digest.
+     * @throws IllegalArgumentException Thrown if the given value is not a hex-encoded SHA-512 digest.
+     */
+    public static Checksum sha512(@NotNull String hex) {
+        return of(SHA_512, hex, 128);
+    }
+
+    /**
+     * Parse a hex-encoded digest, telling SHA-256 and SHA-512 apart by its length.
+     * @author Griefed
+     * @param hex {@link String} Hex-encoded digest, in either case.
+     * @return {@link Checksum} The expected digest, wrapped in an {@link Optional}. Empty if the value is neither.
+     */
+    public static Optional<Checksum> parse(@NotNull String hex) {
+        String lowerCase = hex.trim().toLowerCase(Locale.ROOT);
+        if (!HEX.matcher(lowerCase).matches()) {
+            return Optional.empty();
+        }
+
+        switch (lowerCase.length()) {
+            case 64:
+                return Optional.of(new Checksum(SHA_256, lowerCase));
+            case 128:
+                return Optional.of(new Checksum(SHA_512, lowerCase));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Get the name of the algorithm of this digest.
+     * @author Griefed
+     * @return {@link String} Either {@link #SHA_256} or {@link #SHA_512}.
+     */
+    public String algorithm() {
+        return ALGORITHM;
+    }
+
+    /**
+     * Get this digest.
+     * @author Griefed
+     * @return {@link String} Lower-case, hex-encoded digest.
+     */
+    public String hex() {
+        return HEX_DIGEST;
+    }
+
+    /**
+     * Check whether the given, computed digest equals this one.
+     * @author Griefed
+     * @param digest Byte-array. Digest computed with the algorithm of this checksum.
+     * @return Boolean. <code>true</code> if the digests are equal.
+     */
+    public boolean matches(byte[] digest) {
+        return HEX_DIGEST.equals(hex(digest));
+    }
+
+    /**
+     * Create a new digest with the algorithm of this checksum.
+     * @author Griefed
+     * @return {@link MessageDigest} Digest to compute a downloaded file with.
+     */
+    MessageDigest newDigest() {
+        return newDigest(ALGORITHM);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Checksum)) {
+            return false;
+        }
+        return ALGORITHM.equals(((Checksum) other).ALGORITHM) && HEX_DIGEST.equals(((Checksum) other).HEX_DIGEST);
+    }
+
+    @Override
+    public int hashCode() {
+        return HEX_DIGEST.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return ALGORITHM + ":" + HEX_DIGEST;
+    }
+
+    static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(algorithm + " is not available.", ex);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = digits[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = digits[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static Checksum of(String algorithm, String hex, int length) {
+        Optional<Checksum> checksum = parse(hex);
+        if (!checksum.isPresent() || checksum.get().HEX_DIGEST.length() != length) {
+            throw new IllegalArgumentException("Not a hex-encoded " + algorithm + " digest: " + hex);
+        }
+        return checksum.get();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the expected digests of release assets. A digest reported by the host of an asset is used if present.
+ * Otherwise the release is searched for a checksum asset, either a single digest named after the asset, like
+ * <code>app.jar.sha256</code>, or a list like <code>checksums.txt</code> or <code>SHA256SUMS</code>, as written by
+ * <code>sha256sum</code>. Checksum assets are downloaded once and kept in memory.
+ * @author Griefed
+ */
+public class Checksums {
+
+    private static final Logger LOG = LogManager.getLogger(Checksums.class);
+
+    private static final int MAX_SIZE = 1024 * 1024;
+    private static final String[] SUFFIXES = {".sha256", ".sha512"};
+    private static final String[] LISTS = {
+            "checksums.txt", "SHA256SUMS", "SHA256SUMS.txt", "sha256sums.txt", "SHA512SUMS", "SHA512SUMS.txt", "sha512sums.txt"
+    };
+
+    private final Map<URL, Map<String, Checksum>> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Find the expected digest of the given asset of the given update.
+     * @author Griefed
+     * @param update {@link Update} The update the asset belongs to.
+     * @param asset {@link ReleaseAsset} The asset.
+     * @return {@link Checksum} The expected digest, wrapped in an {@link Optional}. Empty if the release has none for
+     * the asset, or its checksum asset can not be acquired.
+     */
+    public Optional<Checksum> of(@NotNull Update update, @NotNull ReleaseAsset asset) {
+        Optional<Checksum> reported = of(asset);
+        if (reported.isPresent()) {
+            return reported;
+        }
+
+        for (String suffix : SUFFIXES) {
+            Optional<ReleaseAsset> single = update.getReleaseAsset(asset.name() + suffix);
+            if (single.isPresent()) {
+                // Written by sha256sum, the digest is followed by the name of the asset, possibly with a path.
+                Map<String, Checksum> checksums = read(single.get().url());
+                Checksum checksum = checksums.get("");
+                if (checksum == null) {
+                    checksum = checksums.get(asset.name());
+                }
+                if (checksum == null && checksums.size() == 1) {
+                    checksum = checksums.values().iterator().next();
+                }
+                if (checksum != null) {
+                    return Optional.of(checksum);
+                }
+            }
+        }
+
+        for (String name : LISTS) {
+            Optional<ReleaseAsset> list = update.getReleaseAsset(name);
+            if (list.isPresent()) {
+                Checksum checksum = read(list.get().url()).get(asset.name());
+                if (checksum != null) {
+                    return Optional.of(checksum);
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Get the digest of the given asset, as reported by its host.
+     * @author Griefed
+     * @param asset {@link ReleaseAsset} The asset.
+     * @return {@link Checksum} The reported digest, wrapped in an {@link Optional}.
+     */
+    public static Optional<Checksum> of(@NotNull ReleaseAsset asset) {
+        return asset.sha256().flatMap(Checksum::parse);
+    }
+
+    /**
+     * Parse the content of a checksum asset. Lines are either <code>{digest}  {name}</code>, as written by
+     * <code>sha256sum</code>, or just a digest, which is listed with an empty name.
+     * @author Griefed
+     * @param content {@link String} Content of a checksum asset.
+     * @return Map of asset names to their digests.
+     */
+    static Map<String, Checksum> parse(String content) {
+        Map<String, Checksum> checksums = new HashMap<>();
+        for (String line : content.split("\r?\n")) {
+            String[] parts = line.trim().split("\\s+", 2);
+            Optional<Checksum> checksum = Checksum.parse(parts[0]);
+            if (checksum.isPresent()) {
+                // sha256sum marks files hashed in binary mode with an asterisk.
+                checksums.put(parts.length > 1 ? parts[1].replaceFirst("^\\*", "") : "", checksum.get());
+            }
+        }
+        return checksums;
+    }
+
+    private Map<String, Checksum> read(URL url) {
+        Map<String, Checksum> cached = CACHE.get(url);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            Map<String, Checksum> checksums = parse(download(url));
+            CACHE.put(url, checksums);
+            return checksums;
+        } catch (IOException ex) {
+            LOG.warn("Checksums {} could not be acquired.", url, ex);
+            return Collections.emptyMap();
+        }
+    }
+
+    private static String download(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(30000);
+        try {
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Request for " + url + " responded with " + status);
+            }
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            try (InputStream inputStream = connection.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    content.write(buffer, 0, read);
+                    if (content.size() > MAX_SIZE) {
+                        throw new IOException("Checksums " + url + " are too large.");
+                    }
+                }
+            }
+            return new String(content.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+/**
+ * Stops requests to a host which keeps failing, so callers fail fast instead of waiting for it.<br>
+ * After the given amount of consecutive failures the breaker opens and rejects every request. Once the given duration
+ * has passed, a single request is let through to probe the host. Should it succeed, the breaker closes again, otherwise
+ * it stays open for another round.
+ * @author Griefed
+ */
+public class CircuitBreaker {
+
+    /**
+     * States of a breaker.
+     * @author Griefed
+     */
+    public enum State {
+
+        /**
+         * Requests pass.
+         */
+        CLOSED,
+
+        /**
+         * Requests are rejected.
+         */
+        OPEN,
+
+        /**
+         * A single request probes whether the host recovered.
+         */
+        HALF_OPEN
+    }
+
+    private final int FAILURE_THRESHOLD;
+    private final long OPEN_NANOS;
+
+    private State state = State.CLOSED;
+    private int failures = 0;
+    private long openedAt = 0;
+
+    /**
+     * Create a new breaker.
+     * @author Griefed
+     * @param failureThreshold Integer. Amount of consecutive failures after which the breaker opens.
+     * @param openDuration {@link Duration} How long the breaker stays open before probing the host.
+     */
+    public CircuitBreaker(int failureThreshold, @NotNull Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold must be at least 1.");
+        }
+        this.FAILURE_THRESHOLD = failureThreshold;
+        this.OPEN_NANOS = openDuration.toNanos();
+    }
+
+    /**
+     * Check whether a request may be made. Moves an open breaker whose duration has passed to half-open and lets this
+     * one request through.
+     * @author Griefed
+     * @return Boolean. <code>true</code> if the request may be made.
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt >= OPEN_NANOS) {
+                    state = State.HALF_OPEN;
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Record a successful request, closing the breaker.
+     * @author Griefed
+     */
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    /**
+     * Record a failed request. Opens the breaker once the threshold is reached, or if the request probed the host.
+     * @author Griefed
+     */
+    public synchronized void recordFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= FAILURE_THRESHOLD) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Record a request which was given up by its caller before the host answered, which tells nothing about the host.
+     * Should the request have been the probe of a half-open breaker, the breaker opens again without waiting another
+     * round, so the next request probes the host instead of being rejected forever.
+     * @author Griefed
+     */
+    public synchronized void recordAbandoned() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    /**
+     * Get the current state of this breaker.
+     * @author Griefed
+     * @return {@link State} of this breaker.
+     */
+    public synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= OPEN_NANOS) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+}
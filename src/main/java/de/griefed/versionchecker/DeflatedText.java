@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Text which is kept deflated until it is read for the first time. Used for release descriptions, which are often
+ * several kilobytes of Markdown, but only read for the release an {@link Update} is created for.
+ * @author Griefed
+ */
+class DeflatedText {
+
+    private static final Logger LOG = LogManager.getLogger(DeflatedText.class);
+
+    /**
+     * Texts shorter than this, in characters, are not worth deflating.
+     */
+    static final int THRESHOLD = 256;
+
+    private final byte[] DEFLATED;
+    private volatile String text;
+
+    /**
+     * Create a new text from its deflated bytes, as returned by {@link #deflate(String)}.
+     * @author Griefed
+     * @param deflated Byte-array. The deflated UTF-8 bytes of the text.
+     */
+    DeflatedText(@NotNull byte[] deflated) {
+        this.DEFLATED = deflated;
+    }
+
+    private DeflatedText(@NotNull String text) {
+        this.DEFLATED = null;
+        this.text = text;
+    }
+
+    /**
+     * Create a new text which is not deflated.
+     * @author Griefed
+     * @param text {@link String} The text.
+     * @return {@link DeflatedText} holding the given text as it is.
+     */
+    static DeflatedText plain(@NotNull String text) {
+        return new DeflatedText(text);
+    }
+
+    /**
+     * Get the text, inflating it on first access.
+     * @author Griefed
+     * @return {@link String} The text, or <code>null</code> if the deflated bytes are corrupt.
+     */
+    String text() {
+        String inflated = text;
+        if (inflated == null) {
+            synchronized (this) {
+                inflated = text;
+                if (inflated == null) {
+                    try {
+                        inflated = inflate(DEFLATED);
+                        text = inflated;
+                    } catch (DataFormatException ex) {
+                        LOG.error("Deflated text is corrupt.", ex);
+                    }
+                }
+            }
+        }
+        return inflated;
+    }
+
+    /**
+     * Deflate the UTF-8 bytes of the given text. Deflating is deterministic, so equal texts result in equal bytes.
+     * @author Griefed
+     * @param text {@link String} The text to deflate.
+     * @return Byte-array. The deflated text.
+     */
+    static byte[] deflate(@NotNull String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 3 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] deflated) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(deflated.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Deflated text is truncated.");
+                }
+                outputStream.write(buffer, 0, inflated);
+            }
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            inflater.end();
+        }
+    }
+}
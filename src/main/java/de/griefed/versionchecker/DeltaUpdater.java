@@ -0,0 +1,706 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * Updates a locally installed ZIP or JAR asset to a new release by downloading only the entries which changed.<br>
+ * The central directory of the new archive is requested with a <code>Range</code> request from the end of the file,
+ * and compared with the central directory of the installed archive. Entries with the same name, compression method,
+ * CRC, sizes and modification time are copied from the installed archive. Only the byte ranges of the remaining
+ * entries are downloaded, with neighbouring ranges merged to save requests. The new archive is rebuilt byte for byte
+ * in the same order as the original.<br>
+ * Every range is requested with <code>If-Range</code>, so a file replaced during the update is noticed. This needs a
+ * strong <code>ETag</code>. If the server does not offer one, does not support ranges, the file changes during the
+ * update, or either file is no ZIP archive, the asset is downloaded completely instead.
+ * @author Griefed
+ */
+public class DeltaUpdater implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(DeltaUpdater.class);
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+    private static final long UNSET = 0xFFFFFFFFL;
+
+    /**
+     * Largest possible end of central directory, including a maximum length comment and the ZIP64 locator.
+     */
+    private static final int TAIL_SIZE = 22 + 0xFFFF + 20;
+
+    /**
+     * Unchanged entries smaller than this, which lie between two changed ones, are downloaded as well, as a separate
+     * request would cost more than their bytes.
+     */
+    private static final long MERGE_GAP = 64 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Downloader DOWNLOADER = new Downloader();
+
+    private volatile Duration connectTimeout = Duration.ofSeconds(10);
+    private volatile Duration readTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Set the timeouts of every request.
+     * @author Griefed
+     * @param connect {@link Duration} Timeout for establishing a connection. Default is ten seconds.
+     * @param read {@link Duration} Timeout for reading from an established connection. Default is thirty seconds.
+     */
+    public void setTimeouts(@NotNull Duration connect, @NotNull Duration read) {
+        this.connectTimeout = connect;
+        this.readTimeout = read;
+        DOWNLOADER.setTimeouts(connect, read);
+    }
+
+    /**
+     * Update the given installed archive to the given asset of a new release. If its host reports a digest of the
+     * asset, the new archive is verified against it. Should a rebuilt archive not match, because local headers differ
+     * in ways the central directory does not show, the asset is downloaded completely instead.
+     * @author Griefed
+     * @param installed {@link Path} The installed archive. Not modified.
+     * @param asset {@link ReleaseAsset} The asset of the new release, usually acquired via
+     *              {@link Update#getReleaseAsset(String)}.
+     * @param target {@link Path} Where to write the new archive. Replaced if it exists. May not be the installed
+     *               archive.
+     * @return {@link Result} of the update.
+     * @throws IOException Thrown if the new archive can not be downloaded, or does not match the digest of the asset.
+     */
+    public Result update(@NotNull Path installed, @NotNull ReleaseAsset asset, @NotNull Path target) throws IOException {
+        return update(installed, asset.url(), Checksums.of(asset).orElse(null), target);
+    }
+
+    /**
+     * Update the given installed archive to the archive at the given URL.
+     * @author Griefed
+     * @param installed {@link Path} The installed archive. Not modified.
+     * @param url {@link URL} URL of the new archive.
+     * @param target {@link Path} Where to write the new archive. Replaced if it exists. May not be the installed
+     *               archive.
+     * @return {@link Result} of the update.
+     * @throws IOException Thrown if the new archive can not be downloaded.
+     */
+    public Result update(@NotNull Path installed, @NotNull URL url, @NotNull Path target) throws IOException {
+        return update(installed, url, null, target);
+    }
+
+    private Result update(Path installed, URL url, Checksum expected, Path target) throws IOException {
+        if (Files.exists(target) && Files.isSameFile(installed, target)) {
+            throw new IllegalArgumentException("The target may not be the installed archive.");
+        }
+
+        try (FileChannel local = FileChannel.open(installed, StandardOpenOption.READ)) {
+            Directory installedDirectory = Directory.read(local.size(), (from, to) -> read(local, from, to));
+
+            Remote remote = Remote.fetch(this, url);
+            if (remote == null) {
+                LOG.debug("{} does not support ranges or has no strong ETag. Downloading it completely.", url);
+                return full(url, target, expected);
+            }
+
+            Directory remoteDirectory = Directory.read(remote.LENGTH, remote::read);
+            return rebuild(local, installedDirectory, remote, remoteDirectory, target, expected);
+
+        } catch (ZipException ex) {
+            LOG.debug("Delta update of {} not possible. Downloading it completely.", url, ex);
+            return full(url, target, expected);
+        }
+    }
+
+    /**
+     * Stop the threads of this updater.
+     * @author Griefed
+     */
+    @Override
+    public void close() {
+        DOWNLOADER.close();
+    }
+
+    private Result full(URL url, Path target, Checksum expected) throws IOException {
+        Path downloaded = DOWNLOADER.download(url, target, expected);
+        return new Result(downloaded, Files.size(downloaded), 0);
+    }
+
+    private Result rebuild(FileChannel local, Directory installed, Remote remote, Directory directory, Path target, Checksum expected) throws IOException {
+        Map<String, Entry> installedEntries = new HashMap<>();
+        for (Entry entry : installed.ENTRIES) {
+            installedEntries.put(entry.NAME, entry);
+        }
+
+        // Every archive is split into contiguous segments: anything before the first entry, one per entry, and the
+        // central directory through to the end of the file.
+        List<Segment> segments = new ArrayList<>();
+        long position = 0;
+        for (Entry entry : directory.ENTRIES) {
+            if (entry.OFFSET > position) {
+                segments.add(new Segment(position, entry.OFFSET, -1));
+            }
+            Entry candidate = installedEntries.get(entry.NAME);
+            segments.add(new Segment(entry.OFFSET, entry.end, entry.isSame(candidate) ? candidate.OFFSET : -1));
+            position = entry.end;
+        }
+        if (directory.CENTRAL_DIRECTORY > position) {
+            segments.add(new Segment(position, directory.CENTRAL_DIRECTORY, -1));
+        }
+
+        for (int i = 1; i < segments.size() - 1; i++) {
+            Segment segment = segments.get(i);
+            if (segment.isLocal() && segment.length() < MERGE_GAP && !segments.get(i - 1).isLocal() && !segments.get(i + 1).isLocal()) {
+                segment.localOffset = -1;
+            }
+        }
+
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        long downloaded = remote.fetched;
+        long reused = 0;
+
+        try (FileChannel output = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int i = 0;
+            while (i < segments.size()) {
+                Segment segment = segments.get(i);
+
+                if (segment.isLocal()) {
+                    transfer(local, segment.localOffset, segment.length(), output);
+                    reused += segment.length();
+                    i++;
+                    continue;
+                }
+
+                long end = segment.END;
+                while (++i < segments.size() && !segments.get(i).isLocal()) {
+                    end = segments.get(i).END;
+                }
+
+                if (segment.START >= remote.START) {
+                    ByteBuffer cached = remote.read(segment.START, end);
+                    while (cached.hasRemaining()) {
+                        output.write(cached);
+                    }
+                } else {
+                    downloaded += remote.copy(segment.START, Math.min(end, remote.START), output);
+                    if (end > remote.START) {
+                        ByteBuffer cached = remote.read(remote.START, end);
+                        while (cached.hasRemaining()) {
+                            output.write(cached);
+                        }
+                    }
+                }
+            }
+
+            ByteBuffer tail = remote.read(directory.CENTRAL_DIRECTORY, remote.LENGTH);
+            while (tail.hasRemaining()) {
+                output.write(tail);
+            }
+
+            if (output.size() != remote.LENGTH) {
+                throw new IOException("Rebuilt " + target + " has " + output.size() + " bytes instead of " + remote.LENGTH);
+            }
+        } catch (ChangedException ex) {
+            LOG.debug("{} changed during its delta update. Downloading it completely.", remote.URL);
+            Files.deleteIfExists(part);
+            return full(remote.URL, target, expected);
+        }
+
+        if (expected != null && !expected.matches(digest(part, expected))) {
+            LOG.debug("Rebuilt {} does not match the digest of {}. Downloading it completely.", target, remote.URL);
+            Files.deleteIfExists(part);
+            return full(remote.URL, target, expected);
+        }
+
+        try {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        LOG.debug("Updated {} with {} bytes downloaded and {} bytes reused.", target, downloaded, reused);
+        return new Result(target, downloaded, reused);
+    }
+
+    private HttpURLConnection open(URL url, String range, String validator) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout((int) Math.max(1, connectTimeout.toMillis()));
+        connection.setReadTimeout((int) Math.max(1, readTimeout.toMillis()));
+        connection.setRequestProperty("Accept-Encoding", "identity");
+        connection.setRequestProperty("Range", "bytes=" + range);
+        if (validator != null) {
+            connection.setRequestProperty("If-Range", validator);
+        }
+        return connection;
+    }
+
+    private static byte[] digest(Path file, Checksum expected) throws IOException {
+        MessageDigest digest = expected.newDigest();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static void transfer(FileChannel source, long position, long length, FileChannel target) throws IOException {
+        long transferred = 0;
+        while (transferred < length) {
+            long count = source.transferTo(position + transferred, length - transferred, target);
+            if (count <= 0) {
+                throw new IOException("Installed archive ended unexpectedly.");
+            }
+            transferred += count;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) {
+                throw new ZipException("Installed archive ended unexpectedly.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Outcome of an update.
+     * @author Griefed
+     */
+    public static class Result {
+
+        private final Path TARGET;
+        private final long DOWNLOADED;
+        private final long REUSED;
+
+        private Result(Path target, long downloaded, long reused) {
+            this.TARGET = target;
+            this.DOWNLOADED = downloaded;
+            this.REUSED = reused;
+        }
+
+        /**
+         * Get the new archive.
+         * @author Griefed
+         * @return {@link Path} The new archive.
+         */
+        public Path target() {
+            return TARGET;
+        }
+
+        /**
+         * Get the amount of bytes downloaded.
+         * @author Griefed
+         * @return Long. Bytes downloaded, including the central directory.
+         */
+        public long downloaded() {
+            return DOWNLOADED;
+        }
+
+        /**
+         * Get the amount of bytes copied from the installed archive.
+         * @author Griefed
+         * @return Long. Bytes copied from the installed archive. <code>0</code> if the asset was downloaded completely.
+         */
+        public long reused() {
+            return REUSED;
+        }
+    }
+
+    /**
+     * Reads a range of bytes from an archive.
+     * @author Griefed
+     */
+    private interface Reader {
+
+        ByteBuffer read(long from, long to) throws IOException;
+    }
+
+    /**
+     * Thrown if the remote archive no longer matches its validator. A {@link ZipException}, so a change while reading
+     * the central directory falls back to a complete download as well.
+     * @author Griefed
+     */
+    private static class ChangedException extends ZipException {
+
+        private ChangedException(URL url) {
+            super(url + " changed.");
+        }
+    }
+
+    /**
+     * The remote archive, with the bytes of its end which were fetched to find its central directory.
+     * @author Griefed
+     */
+    private static class Remote {
+
+        private final DeltaUpdater UPDATER;
+        private final URL URL;
+        private final long LENGTH;
+        private final String VALIDATOR;
+        private long START;
+        private ByteBuffer tail;
+        private long fetched;
+
+        private Remote(DeltaUpdater updater, URL url, long length, String validator, long start, ByteBuffer tail) {
+            this.UPDATER = updater;
+            this.URL = url;
+            this.LENGTH = length;
+            this.VALIDATOR = validator;
+            this.START = start;
+            this.tail = tail;
+            this.fetched = tail.remaining();
+        }
+
+        /**
+         * Fetch the end of the given archive. Without a strong <code>ETag</code> a change between two ranges could go
+         * unnoticed, as dates only resolve to seconds, so such archives are not updated by range.
+         * @return {@link Remote} The archive, or <code>null</code> if its server does not support ranges or offers no
+         * strong <code>ETag</code>.
+         */
+        private static Remote fetch(DeltaUpdater updater, URL url) throws IOException {
+            HttpURLConnection connection = updater.open(url, "-" + TAIL_SIZE, null);
+            try {
+                int status = connection.getResponseCode();
+                String range = connection.getHeaderField("Content-Range");
+                if (status != HttpURLConnection.HTTP_PARTIAL || range == null || !range.matches("bytes \\d+-\\d+/\\d+")) {
+                    return null;
+                }
+
+                long start = Long.parseLong(range.substring(6, range.indexOf('-')));
+                long length = Long.parseLong(range.substring(range.indexOf('/') + 1));
+
+                String validator = connection.getHeaderField("ETag");
+                if (validator == null || validator.startsWith("W/")) {
+                    return null;
+                }
+
+                return new Remote(updater, url, length, validator, start, body(connection, (int) (length - start)));
+            } finally {
+                connection.disconnect();
+            }
+        }
+
+        /**
+         * Read the given range, fetching whatever lies before the bytes already fetched.
+         */
+        private ByteBuffer read(long from, long to) throws IOException {
+            if (from < START) {
+                HttpURLConnection connection = request(from, START);
+                try {
+                    ByteBuffer before = body(connection, (int) (START - from));
+                    fetched += before.remaining();
+
+                    ByteBuffer joined = ByteBuffer.allocate(before.remaining() + tail.remaining());
+                    joined.put(before).put(tail.duplicate()).flip();
+                    this.tail = joined;
+                    this.START = from;
+                } finally {
+                    connection.disconnect();
+                }
+            }
+
+            ByteBuffer slice = tail.duplicate();
+            slice.position((int) (from - START)).limit((int) (to - START));
+            return slice.slice();
+        }
+
+        /**
+         * Copy the given range into the given channel without keeping it in memory.
+         * @return Long. The amount of bytes copied.
+         */
+        private long copy(long from, long to, FileChannel output) throws IOException {
+            HttpURLConnection connection = request(from, to);
+            long copied = 0;
+            try (InputStream inputStream = connection.getInputStream()) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while (copied < to - from && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, to - from - copied))) != -1) {
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                    while (byteBuffer.hasRemaining()) {
+                        output.write(byteBuffer);
+                    }
+                    copied += read;
+                }
+            } finally {
+                connection.disconnect();
+            }
+
+            if (copied != to - from) {
+                throw new IOException("Range " + from + "-" + to + " of " + URL + " ended after " + copied + " bytes.");
+            }
+            return copied;
+        }
+
+        private HttpURLConnection request(long from, long to) throws IOException {
+            HttpURLConnection connection = UPDATER.open(URL, from + "-" + (to - 1), VALIDATOR);
+            int status = connection.getResponseCode();
+            String range = connection.getHeaderField("Content-Range");
+
+            if (status == HttpURLConnection.HTTP_OK) {
+                connection.disconnect();
+                throw new ChangedException(URL);
+            }
+            if (status != HttpURLConnection.HTTP_PARTIAL || range == null || !range.startsWith("bytes " + from + "-")) {
+                connection.disconnect();
+                throw new IOException("Range " + from + "-" + to + " of " + URL + " responded with " + status + " " + range);
+            }
+            return connection;
+        }
+
+        private static ByteBuffer body(HttpURLConnection connection, int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int read = 0;
+            try (InputStream inputStream = connection.getInputStream()) {
+                int count;
+                while (read < length && (count = inputStream.read(bytes, read, length - read)) != -1) {
+                    read += count;
+                }
+            }
+            if (read != length) {
+                throw new IOException("Response of " + connection.getURL() + " ended after " + read + " bytes.");
+            }
+            return ByteBuffer.wrap(bytes);
+        }
+    }
+
+    /**
+     * The central directory of an archive, with its entries sorted by their position in the archive.
+     * @author Griefed
+     */
+    private static class Directory {
+
+        private final List<Entry> ENTRIES;
+        private final long CENTRAL_DIRECTORY;
+
+        private Directory(List<Entry> entries, long centralDirectory) {
+            this.ENTRIES = entries;
+            this.CENTRAL_DIRECTORY = centralDirectory;
+        }
+
+        private static Directory read(long length, Reader reader) throws IOException {
+            long tailStart = Math.max(0, length - TAIL_SIZE);
+            ByteBuffer tail = reader.read(tailStart, length).order(ByteOrder.LITTLE_ENDIAN);
+
+            int end = -1;
+            for (int i = tail.limit() - 22; i >= 0; i--) {
+                if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY && i + 22 + (tail.getShort(i + 20) & 0xFFFF) == tail.limit()) {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                throw new ZipException("No end of central directory found.");
+            }
+
+            long size = tail.getInt(end + 12) & UNSET;
+            long offset = tail.getInt(end + 16) & UNSET;
+
+            if ((size == UNSET || offset == UNSET) && end >= 20 && tail.getInt(end - 20) == ZIP64_LOCATOR) {
+                long zip64End = tail.getLong(end - 12);
+                if (zip64End < 0 || zip64End > length - 56) {
+                    throw new ZipException("ZIP64 end of central directory out of bounds.");
+                }
+                ByteBuffer record = reader.read(zip64End, zip64End + 56).order(ByteOrder.LITTLE_ENDIAN);
+                if (record.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                    throw new ZipException("No ZIP64 end of central directory found.");
+                }
+                size = record.getLong(40);
+                offset = record.getLong(48);
+            }
+
+            if (offset < 0 || size < 0 || offset + size > length || size > Integer.MAX_VALUE) {
+                throw new ZipException("Central directory out of bounds.");
+            }
+
+            ByteBuffer directory = reader.read(offset, offset + size).order(ByteOrder.LITTLE_ENDIAN);
+            List<Entry> entries = new ArrayList<>();
+
+            while (directory.remaining() >= 46) {
+                int start = directory.position();
+                if (directory.getInt(start) != CENTRAL_DIRECTORY_ENTRY) {
+                    throw new ZipException("Invalid central directory entry.");
+                }
+
+                int nameLength = directory.getShort(start + 28) & 0xFFFF;
+                int extraLength = directory.getShort(start + 30) & 0xFFFF;
+                int commentLength = directory.getShort(start + 32) & 0xFFFF;
+                if (start + 46 + nameLength + extraLength + commentLength > directory.limit()) {
+                    throw new ZipException("Central directory entry out of bounds.");
+                }
+
+                byte[] name = new byte[nameLength];
+                directory.position(start + 46);
+                directory.get(name);
+
+                long compressed = directory.getInt(start + 20) & UNSET;
+                long uncompressed = directory.getInt(start + 24) & UNSET;
+                long localOffset = directory.getInt(start + 42) & UNSET;
+
+                // ZIP64 extended information holds the values which did not fit, in this order.
+                int extra = start + 46 + nameLength;
+                int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    int id = directory.getShort(extra) & 0xFFFF;
+                    int dataLength = directory.getShort(extra + 2) & 0xFFFF;
+                    int dataEnd = extra + 4 + dataLength;
+                    if (dataEnd > extraEnd) {
+                        throw new ZipException("Extra field out of bounds.");
+                    }
+                    if (id == 0x0001) {
+                        int field = extra + 4;
+                        if (uncompressed == UNSET) {
+                            uncompressed = zip64Value(directory, field, dataEnd);
+                            field += 8;
+                        }
+                        if (compressed == UNSET) {
+                            compressed = zip64Value(directory, field, dataEnd);
+                            field += 8;
+                        }
+                        if (localOffset == UNSET) {
+                            localOffset = zip64Value(directory, field, dataEnd);
+                        }
+                    }
+                    extra = dataEnd;
+                }
+
+                entries.add(new Entry(
+                        new String(name, StandardCharsets.UTF_8),
+                        directory.getShort(start + 10) & 0xFFFF,
+                        directory.getInt(start + 12),
+                        directory.getInt(start + 16) & UNSET,
+                        compressed,
+                        uncompressed,
+                        localOffset
+                ));
+                directory.position(start + 46 + nameLength + extraLength + commentLength);
+            }
+
+            entries.sort(Comparator.comparingLong(entry -> entry.OFFSET));
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                entry.end = i + 1 < entries.size() ? entries.get(i + 1).OFFSET : offset;
+                if (entry.OFFSET < 0 || entry.end < entry.OFFSET || entry.end > offset) {
+                    throw new ZipException("Entry " + entry.NAME + " out of bounds.");
+                }
+            }
+
+            return new Directory(entries, offset);
+        }
+
+        private static long zip64Value(ByteBuffer directory, int field, int dataEnd) throws ZipException {
+            if (field + 8 > dataEnd) {
+                throw new ZipException("ZIP64 extended information too short.");
+            }
+            return directory.getLong(field);
+        }
+    }
+
+    /**
+     * An entry of a central directory. Spans from its local header to the local header of the next entry.
+     * @author Griefed
+     */
+    private static class Entry {
+
+        private final String NAME;
+        private final int METHOD;
+        private final int MODIFIED;
+        private final long CRC;
+        private final long COMPRESSED_SIZE;
+        private final long SIZE;
+        private final long OFFSET;
+        private long end;
+
+        private Entry(String name, int method, int modified, long crc, long compressedSize, long size, long offset) {
+            this.NAME = name;
+            this.METHOD = method;
+            this.MODIFIED = modified;
+            this.CRC = crc;
+            this.COMPRESSED_SIZE = compressedSize;
+            this.SIZE = size;
+            this.OFFSET = offset;
+        }
+
+        private boolean isSame(Entry other) {
+            return other != null
+                    && METHOD == other.METHOD
+                    && MODIFIED == other.MODIFIED
+                    && CRC == other.CRC
+                    && COMPRESSED_SIZE == other.COMPRESSED_SIZE
+                    && SIZE == other.SIZE
+                    && end - OFFSET == other.end - other.OFFSET;
+        }
+    }
+
+    /**
+     * A contiguous range of the new archive, either copied from the installed archive or downloaded.
+     * @author Griefed
+     */
+    private static class Segment {
+
+        private final long START;
+        private final long END;
+        private long localOffset;
+
+        private Segment(long start, long end, long localOffset) {
+            this.START = start;
+            this.END = end;
+            this.localOffset = localOffset;
+        }
+
+        private boolean isLocal() {
+            return localOffset >= 0;
+        }
+
+        private long length() {
+            return END - START;
+        }
+    }
+}
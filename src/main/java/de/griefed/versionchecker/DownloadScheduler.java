@@ -0,0 +1,391 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs downloads of release assets and source archives in order of priority, with a limited amount of concurrent
+ * transfers, and limits their bandwidth globally as well as per host with {@link BandwidthLimiter}s. Meant for hosts
+ * which apply updates all at once and should not saturate their uplink while doing so.<br>
+ * Transfers are queued by {@link Priority}, then in order of submission. A queued transfer which is cancelled never
+ * starts, and a running one stops with the next chunk of data it receives. Downloads are verified and resumed as
+ * described for {@link Downloader}. Every running transfer requests its chunks over two connections of its own, so the
+ * chunks of a transfer never wait behind those of another, less important one.
+ * @author Griefed
+ */
+public class DownloadScheduler implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(DownloadScheduler.class);
+
+    private static final int THROUGHPUT_SECONDS = 5;
+    private static final long CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private final ThreadPoolExecutor EXECUTOR;
+    private final Checksums CHECKSUMS = new Checksums();
+    private final BandwidthLimiter GLOBAL;
+    private final long PER_HOST;
+    private final Map<String, BandwidthLimiter> HOSTS = new ConcurrentHashMap<>();
+    private final AtomicLong SEQUENCE = new AtomicLong();
+    private final AtomicInteger ACTIVE = new AtomicInteger();
+    private final AtomicLong TRANSFERRED = new AtomicLong();
+    private final long[] SECONDS = new long[THROUGHPUT_SECONDS + 1];
+    private long second = 0;
+    private volatile Duration connectTimeout = Duration.ofSeconds(10);
+    private volatile Duration readTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Create a new scheduler.
+     * @author Griefed
+     * @param maxTransfers Integer. Amount of transfers running at the same time.
+     * @param globalBytesPerSecond Long. Rate to limit all transfers to, in bytes per second, or <code>0</code> for no
+     * limit.
+     * @param perHostBytesPerSecond Long. Rate to limit the transfers from a single host to, in bytes per second, or
+     * <code>0</code> for no limit.
+     */
+    public DownloadScheduler(int maxTransfers, long globalBytesPerSecond, long perHostBytesPerSecond) {
+        if (maxTransfers < 1) {
+            throw new IllegalArgumentException("At least one transfer is required.");
+        }
+
+        this.GLOBAL = globalBytesPerSecond > 0 ? new BandwidthLimiter(globalBytesPerSecond) : null;
+        this.PER_HOST = perHostBytesPerSecond;
+        this.EXECUTOR = new ThreadPoolExecutor(maxTransfers, maxTransfers, 60, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "VersionChecker-Transfer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Set the timeouts of every request.
+     * @author Griefed
+     * @param connect {@link Duration} Timeout for establishing a connection.
+     * @param read {@link Duration} Timeout for reading from an established connection.
+     */
+    public void setTimeouts(@NotNull Duration connect, @NotNull Duration read) {
+        this.connectTimeout = connect;
+        this.readTimeout = read;
+    }
+
+    /**
+     * Queue the download of the given asset of the given update into the given directory, named like the asset. The
+     * download is verified as described for {@link Downloader#download(Update, ReleaseAsset, Path)}.
+     * @author Griefed
+     * @param update {@link Update} The update the asset belongs to.
+     * @param asset {@link ReleaseAsset} The asset to download.
+     * @param directory {@link Path} Directory to download the asset to.
+     * @param priority {@link Priority} of the transfer.
+     * @return {@link Transfer} The queued transfer.
+     */
+    public Transfer submit(@NotNull Update update, @NotNull ReleaseAsset asset, @NotNull Path directory, @NotNull Priority priority) {
+        // Resolved once the transfer starts, so checksum assets are not downloaded while it is queued.
+        return submit(asset.url(), directory.resolve(asset.name()), () -> CHECKSUMS.of(update, asset).orElse(null), priority);
+    }
+
+    /**
+     * Queue the download of the given asset into the given directory, named like the asset.
+     * @author Griefed
+     * @param asset {@link ReleaseAsset} The asset to download.
+     * @param directory {@link Path} Directory to download the asset to.
+     * @param priority {@link Priority} of the transfer.
+     * @return {@link Transfer} The queued transfer.
+     */
+    public Transfer submit(@NotNull ReleaseAsset asset, @NotNull Path directory, @NotNull Priority priority) {
+        return submit(asset.url(), directory.resolve(asset.name()), () -> Checksums.of(asset).orElse(null), priority);
+    }
+
+    /**
+     * Queue the download of the given URL to the given file.
+     * @author Griefed
+     * @param url {@link URL} The URL to download.
+     * @param target {@link Path} The file to download to.
+     * @param expected {@link Checksum} Expected digest of the file, or <code>null</code> to skip verification.
+     * @param priority {@link Priority} of the transfer.
+     * @return {@link Transfer} The queued transfer.
+     */
+    public Transfer submit(@NotNull URL url, @NotNull Path target, @Nullable Checksum expected, @NotNull Priority priority) {
+        return submit(url, target, () -> expected, priority);
+    }
+
+    /**
+     * Get the amount of transfers waiting to start.
+     * @author Griefed
+     * @return Integer. Amount of queued transfers.
+     */
+    public int queued() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * Get the amount of running transfers.
+     * @author Griefed
+     * @return Integer. Amount of running transfers.
+     */
+    public int active() {
+        return ACTIVE.get();
+    }
+
+    /**
+     * Get the amount of bytes downloaded by all transfers so far.
+     * @author Griefed
+     * @return Long. Downloaded bytes.
+     */
+    public long transferred() {
+        return TRANSFERRED.get();
+    }
+
+    /**
+     * Get the current throughput of all transfers, averaged over the last five seconds.
+     * @author Griefed
+     * @return Long. Downloaded bytes per second.
+     */
+    public long throughput() {
+        synchronized (SECONDS) {
+            advance(System.nanoTime() / 1_000_000_000L);
+            long bytes = 0;
+            for (int i = 1; i <= THROUGHPUT_SECONDS; i++) {
+                // Only complete seconds count, the current one would drag the average down.
+                bytes += SECONDS[(int) ((second - i) % SECONDS.length)];
+            }
+            return bytes / THROUGHPUT_SECONDS;
+        }
+    }
+
+    /**
+     * Cancel every transfer and stop the threads of this scheduler.
+     * @author Griefed
+     */
+    @Override
+    public void close() {
+        for (Runnable queued : EXECUTOR.getQueue().toArray(new Runnable[0])) {
+            ((Transfer) queued).cancel();
+        }
+        EXECUTOR.shutdownNow();
+    }
+
+    private Transfer submit(URL url, Path target, Supplier<Checksum> expected, Priority priority) {
+        BandwidthLimiter parent = GLOBAL;
+        if (PER_HOST > 0) {
+            parent = HOSTS.computeIfAbsent(url.getHost(), host -> new BandwidthLimiter(PER_HOST, GLOBAL));
+        }
+
+        Transfer transfer = new Transfer(url, target, expected, priority, SEQUENCE.getAndIncrement(), parent);
+        EXECUTOR.execute(transfer);
+        return transfer;
+    }
+
+    private void count(int bytes) {
+        TRANSFERRED.addAndGet(bytes);
+        synchronized (SECONDS) {
+            advance(System.nanoTime() / 1_000_000_000L);
+            SECONDS[(int) (second % SECONDS.length)] += bytes;
+        }
+    }
+
+    private void advance(long now) {
+        if (now - second >= SECONDS.length) {
+            Arrays.fill(SECONDS, 0);
+            second = now;
+        }
+        while (second < now) {
+            second++;
+            SECONDS[(int) (second % SECONDS.length)] = 0;
+        }
+    }
+
+    /**
+     * Priority of a transfer. Transfers of higher priority start first.
+     * @author Griefed
+     */
+    public enum Priority {
+
+        /**
+         * Assets an update can not be applied without.
+         */
+        CRITICAL,
+
+        /**
+         * Regular assets.
+         */
+        NORMAL,
+
+        /**
+         * Assets which are nice to have, like sources or documentation.
+         */
+        BACKGROUND
+    }
+
+    /**
+     * A queued or running download.
+     * @author Griefed
+     */
+    public final class Transfer implements Runnable, Comparable<Transfer> {
+
+        private final URL URL;
+        private final Path TARGET;
+        private final Supplier<Checksum> EXPECTED;
+        private final Priority PRIORITY;
+        private final long SEQUENCE;
+        private final BandwidthLimiter LIMITER;
+        private final CompletableFuture<Path> RESULT = new CompletableFuture<>();
+        private final AtomicLong TRANSFERRED = new AtomicLong();
+        private volatile boolean cancelled = false;
+
+        private Transfer(URL url, Path target, Supplier<Checksum> expected, Priority priority, long sequence, BandwidthLimiter parent) {
+            this.URL = url;
+            this.TARGET = target;
+            this.EXPECTED = expected;
+            this.PRIORITY = priority;
+            this.SEQUENCE = sequence;
+            // The transfer itself is not limited, but counts its bytes and stops once cancelled.
+            this.LIMITER = new BandwidthLimiter(Long.MAX_VALUE, parent) {
+                @Override
+                public void acquire(int bytes) throws InterruptedIOException {
+                    TRANSFERRED.addAndGet(bytes);
+                    count(bytes);
+                    super.acquire(bytes);
+                    // Checked after waiting, too, so a throttled transfer does not carry on once it was cancelled.
+                    if (cancelled) {
+                        throw new InterruptedIOException("Transfer of " + URL + " was cancelled.");
+                    }
+                }
+            };
+        }
+
+        /**
+         * Get the URL this transfer downloads.
+         * @author Griefed
+         * @return {@link URL} of this transfer.
+         */
+        public URL url() {
+            return URL;
+        }
+
+        /**
+         * Get the priority of this transfer.
+         * @author Griefed
+         * @return {@link Priority} of this transfer.
+         */
+        public Priority priority() {
+            return PRIORITY;
+        }
+
+        /**
+         * Get the amount of bytes this transfer downloaded so far.
+         * @author Griefed
+         * @return Long. Downloaded bytes.
+         */
+        public long transferred() {
+            return TRANSFERRED.get();
+        }
+
+        /**
+         * Get the result of this transfer.
+         * @author Griefed
+         * @return {@link CompletableFuture} completing with the downloaded file, or exceptionally if the download
+         * failed or was cancelled.
+         */
+        public CompletableFuture<Path> result() {
+            return RESULT;
+        }
+
+        /**
+         * Cancel this transfer. A queued transfer is removed from the queue, a running one stops with the next chunk of
+         * data it receives, leaving its partial download to be resumed later.
+         * @author Griefed
+         */
+        public void cancel() {
+            cancelled = true;
+            if (EXECUTOR.remove(this)) {
+                RESULT.completeExceptionally(new CancellationException("Transfer of " + URL + " was cancelled."));
+            }
+        }
+
+        /**
+         * Check whether this transfer was cancelled.
+         * @author Griefed
+         * @return Boolean. <code>true</code> if this transfer was cancelled.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                RESULT.completeExceptionally(new CancellationException("Transfer of " + URL + " was cancelled."));
+                return;
+            }
+
+            ACTIVE.incrementAndGet();
+            // One thread for the chunks besides the first, which this thread downloads itself.
+            try (Downloader downloader = new Downloader(1, CHUNK_SIZE)) {
+                downloader.setTimeouts(connectTimeout, readTimeout);
+                LOG.debug("Starting {} transfer of {}.", PRIORITY, URL);
+                RESULT.complete(downloader.download(URL, TARGET, EXPECTED.get(), LIMITER, new MessageDigest[0]));
+            } catch (IOException ex) {
+                if (cancelled) {
+                    RESULT.completeExceptionally(new CancellationException("Transfer of " + URL + " was cancelled."));
+                } else {
+                    LOG.warn("Transfer of {} failed.", URL, ex);
+                    RESULT.completeExceptionally(ex);
+                }
+            } catch (RuntimeException ex) {
+                RESULT.completeExceptionally(ex);
+            } finally {
+                ACTIVE.decrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(@NotNull Transfer other) {
+            int priority = PRIORITY.compareTo(other.PRIORITY);
+            return priority != 0 ? priority : Long.compare(SEQUENCE, other.SEQUENCE);
+        }
+    }
+}
@@ -0,0 +1,870 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads release assets and source archives. If the server supports <code>Range</code> requests, a download is
+ * split into chunks which are requested in parallel and written into a preallocated file at their positions. Finished
+ * chunks are recorded in a small state file next to the download, so an interrupted download resumes with the missing
+ * chunks, as long as the server confirms the file to be unchanged via <code>If-Range</code>. Servers without range
+ * support are downloaded in a single stream.<br>
+ * If a {@link Checksum} is expected, the digest is computed from the data as it arrives. Parallel chunks are digested
+ * in order: the chunk at the digested position is digested straight from the network, while data written ahead of it
+ * is read back from the file by the thread which started the download, as soon as it is contiguous with the digested
+ * position, usually while it is still cached in memory. Chunks therefore never wait for each other or for the disk. A
+ * mismatch fails the download and deletes its partial data, so it is not resumed.<br>
+ * While downloading, data is written to <code>{target}.part</code> and the state to <code>{target}.part.properties</code>.
+ * The target itself only appears once the download is complete.
+ * @author Griefed
+ */
+public class Downloader implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(Downloader.class);
+
+    private static final int ATTEMPTS = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long CHUNK_SIZE;
+    private final ExecutorService EXECUTOR;
+    private final Checksums CHECKSUMS = new Checksums();
+
+    private volatile Duration connectTimeout = Duration.ofSeconds(10);
+    private volatile Duration readTimeout = Duration.ofSeconds(30);
+    private volatile BandwidthLimiter limiter;
+
+    /**
+     * Create a new downloader with four connections per download and chunks of 8 MiB.
+     * @author Griefed
+     */
+    public Downloader() {
+        this(4, 8L * 1024 * 1024);
+    }
+
+    /**
+     * Create a new downloader.
+     * @author Griefed
+     * @param connections Integer. Amount of chunks requested in parallel.
+     * @param chunkSize Long. Size of a chunk in bytes.
+     */
+    public Downloader(int connections, long chunkSize) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("At least one connection is required.");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunks must not be empty.");
+        }
+
+        this.CHUNK_SIZE = chunkSize;
+        this.EXECUTOR = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "VersionChecker-Download");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the timeouts of every request. A chunk is retried up to three times before its download fails.
+     * @author Griefed
+     * @param connect {@link Duration} Timeout for establishing a connection. Default is ten seconds.
+     * @param read {@link Duration} Timeout for reading from an established connection. Default is thirty seconds.
+     */
+    public void setTimeouts(@NotNull Duration connect, @NotNull Duration read) {
+        this.connectTimeout = connect;
+        this.readTimeout = read;
+    }
+
+    /**
+     * Limit the rate of every download of this downloader.
+     * @author Griefed
+     * @param limiter {@link BandwidthLimiter} Limiter to take the downloaded bytes from, or <code>null</code> to download
+     * as fast as possible.
+     */
+    public void setLimiter(@Nullable BandwidthLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Download the given release asset into the given directory, named like the asset. If the host of the asset
+     * reported its digest, the download is verified against it.
+     * @author Griefed
+     * @param asset {@link ReleaseAsset} The asset to download.
+     * @param directory {@link Path} Directory to download the asset to.
+     * @return {@link Path} The downloaded file.
+     * @throws IOException Thrown if the asset can not be downloaded, or does not match its digest.
+     */
+    public Path download(@NotNull ReleaseAsset asset, @NotNull Path directory) throws IOException {
+        return download(asset.url(), directory.resolve(asset.name()), Checksums.of(asset).orElse(null));
+    }
+
+    /**
+     * Download the given release asset of the given update into the given directory, named like the asset. The
+     * download is verified against the digest reported by the host of the asset, or listed in a checksum asset of the
+     * update. See {@link Checksums}.
+     * @author Griefed
+     * @param update {@link Update} The update the asset belongs to.
+     * @param asset {@link ReleaseAsset} The asset to download.
+     * @param directory {@link Path} Directory to download the asset to.
+     * @return {@link Path} The downloaded file.
+     * @throws IOException Thrown if the asset can not be downloaded, or does not match its digest.
+     */
+    public Path download(@NotNull Update update, @NotNull ReleaseAsset asset, @NotNull Path directory) throws IOException {
+        return download(asset.url(), directory.resolve(asset.name()), CHECKSUMS.of(update, asset).orElse(null));
+    }
+
+    /**
+     * Download the given source archive into the given directory, named after the last segment of its URL with the
+     * extension of its archive type.
+     * @author Griefed
+     * @param source {@link Source} The source archive to download.
+     * @param directory {@link Path} Directory to download the archive to.
+     * @return {@link Path} The downloaded file.
+     * @throws IOException Thrown if the archive can not be downloaded.
+     */
+    public Path download(@NotNull Source source, @NotNull Path directory) throws IOException {
+        return download(source.url(), directory.resolve(fileName(source)));
+    }
+
+    /**
+     * Download the given URL to the given file. Replaces the file if it exists. A previously interrupted download of
+     * the same URL to the same file is resumed.
+     * @author Griefed
+     * @param url {@link URL} The URL to download.
+     * @param target {@link Path} The file to download to.
+     * @return {@link Path} The downloaded file.
+     * @throws IOException Thrown if the URL can not be downloaded, or the download is interrupted.
+     */
+    public Path download(@NotNull URL url, @NotNull Path target) throws IOException {
+        return download(url, target, null);
+    }
+
+    /**
+     * Download the given URL to the given file and verify it against the given digest. Replaces the file if it exists.
+     * A previously interrupted download of the same URL to the same file is resumed.
+     * @author Griefed
+     * @param url {@link URL} The URL to download.
+     * @param target {@link Path} The file to download to.
+     * @param expected {@link Checksum} Expected digest of the file, or <code>null</code> to skip verification.
+     * @return {@link Path} The downloaded file.
+     * @throws IOException Thrown if the URL can not be downloaded, the download is interrupted, or the file does not
+     * match the expected digest.
+     */
+    public Path download(@NotNull URL url, @NotNull Path target, @Nullable Checksum expected) throws IOException {
+        return download(url, target, expected, new MessageDigest[0]);
+    }
+
+    /**
+     * Download the given URL to the given file, verify it against the given digest and additionally feed the
+     * downloaded data to the given digests.
+     * @author Griefed
+     * @param url {@link URL} The URL to download.
+     * @param target {@link Path} The file to download to.
+     * @param expected {@link Checksum} Expected digest of the file, or <code>null</code> to skip verification.
+     * @param additional {@link MessageDigest}-array. Digests to compute alongside the expected one.
+     * @return {@link Path} The downloaded file.
+     * @throws IOException Thrown if the URL can not be downloaded, the download is interrupted, or the file does not
+     * match the expected digest.
+     */
+    Path download(URL url, Path target, Checksum expected, MessageDigest... additional) throws IOException {
+        return download(url, target, expected, limiter, additional);
+    }
+
+    /**
+     * Download the given URL to the given file with the given limiter instead of the one of this downloader.
+     * @author Griefed
+     * @param url {@link URL} The URL to download.
+     * @param target {@link Path} The file to download to.
+     * @param expected {@link Checksum} Expected digest of the file, or <code>null</code> to skip verification.
+     * @param limiter {@link BandwidthLimiter} Limiter to take the downloaded bytes from, or <code>null</code>.
+     * @param additional {@link MessageDigest}-array. Digests to compute alongside the expected one.
+     * @return {@link Path} The downloaded file.
+     * @throws IOException Thrown if the URL can not be downloaded, the download is interrupted, or the file does not
+     * match the expected digest.
+     */
+    Path download(URL url, Path target, Checksum expected, BandwidthLimiter limiter, MessageDigest[] additional) throws IOException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Path stateFile = target.resolveSibling(target.getFileName() + ".part.properties");
+
+        State state = State.read(stateFile, url, CHUNK_SIZE);
+        if (state != null && !Files.exists(part)) {
+            state = null;
+        }
+
+        int first = state == null ? 0 : state.nextMissing();
+        HttpURLConnection connection = open(url, first * CHUNK_SIZE, state == null ? null : state.VALIDATOR);
+
+        try {
+            int status = connection.getResponseCode();
+
+            if (status == HttpURLConnection.HTTP_PARTIAL && length(connection) >= 0) {
+                long length = length(connection);
+
+                if (state != null && state.LENGTH != length) {
+                    // The If-Range validator matched, yet the length differs. Start over rather than guess.
+                    connection.disconnect();
+                    Files.deleteIfExists(stateFile);
+                    return download(url, target, expected, limiter, additional);
+                }
+
+                if (state == null) {
+                    LOG.debug("Downloading {} bytes from {} in chunks of {}.", length, url, CHUNK_SIZE);
+                    state = new State(stateFile, url, length, CHUNK_SIZE, validator(connection));
+                    try (RandomAccessFile file = new RandomAccessFile(part.toFile(), "rw")) {
+                        file.setLength(length);
+                    }
+                } else {
+                    LOG.debug("Resuming download of {} at chunk {} of {}.", url, first, state.chunks());
+                }
+
+                downloadChunks(connection, url, part, state, first, new Hasher(expected, additional, length, CHUNK_SIZE), limiter);
+
+            } else if (status == HttpURLConnection.HTTP_OK || status == HttpURLConnection.HTTP_PARTIAL) {
+                LOG.debug("Downloading {} in a single stream.", url);
+                if (status == HttpURLConnection.HTTP_PARTIAL) {
+                    // Ranges are supported, but the length is unknown, so the file can not be split into chunks.
+                    connection.disconnect();
+                    connection = open(url, -1, null);
+                    if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                        throw new IOException("Download of " + url + " responded with " + connection.getResponseCode());
+                    }
+                }
+                Files.deleteIfExists(stateFile);
+                Hasher hasher = new Hasher(expected, additional, -1, CHUNK_SIZE);
+                try (InputStream inputStream = connection.getInputStream();
+                     OutputStream outputStream = Files.newOutputStream(part)) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        outputStream.write(buffer, 0, read);
+                        hasher.update(buffer, read);
+                        limit(limiter, read);
+                    }
+                }
+                hasher.verify(url);
+
+            } else {
+                throw new IOException("Download of " + url + " responded with " + status);
+            }
+        } catch (MismatchException ex) {
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(stateFile);
+            throw ex;
+        } finally {
+            connection.disconnect();
+        }
+
+        try {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.deleteIfExists(stateFile);
+
+        return target;
+    }
+
+    /**
+     * Stop the threads of this downloader. Running downloads fail, and can be resumed by another downloader.
+     * @author Griefed
+     */
+    @Override
+    public void close() {
+        EXECUTOR.shutdownNow();
+    }
+
+    private void downloadChunks(HttpURLConnection probe, URL url, Path part, State state, int first, Hasher hasher, BandwidthLimiter limiter) throws IOException {
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int chunk = 0; chunk < state.chunks(); chunk++) {
+                if (state.isDone(chunk)) {
+                    hasher.resumed(chunk);
+                }
+            }
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int chunk = first + 1; chunk < state.chunks(); chunk++) {
+                if (!state.isDone(chunk)) {
+                    int index = chunk;
+                    futures.add(EXECUTOR.submit(() -> {
+                        try {
+                            fetchChunk(url, channel, state, index, hasher, limiter);
+                        } finally {
+                            hasher.signal();
+                        }
+                        return null;
+                    }));
+                }
+            }
+
+            try {
+                writeChunk(probe, channel, state, first, hasher, limiter);
+            } catch (IOException | RuntimeException ex) {
+                state.abort();
+                futures.forEach(pending -> pending.cancel(true));
+                throw ex;
+            }
+
+            // This thread digests whatever the chunks write ahead of the digested position, until all of them are done.
+            while (!state.isAborted() && !isDone(futures)) {
+                hasher.catchUp(channel);
+                try {
+                    hasher.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            IOException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    if (failure == null) {
+                        future.get();
+                    } else {
+                        future.cancel(true);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    failure = new InterruptedIOException("Download of " + url + " was interrupted.");
+                    futures.forEach(pending -> pending.cancel(true));
+                } catch (ExecutionException ex) {
+                    failure = ex.getCause() instanceof IOException
+                            ? (IOException) ex.getCause()
+                            : new IOException("Download of " + url + " failed.", ex.getCause());
+                } catch (CancellationException ex) {
+                    failure = new InterruptedIOException("Download of " + url + " was cancelled.");
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            hasher.verify(url, channel);
+        }
+    }
+
+    private static boolean isDone(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fetchChunk(URL url, FileChannel channel, State state, int chunk, Hasher hasher, BandwidthLimiter limiter) throws IOException {
+        IOException failure = null;
+
+        for (int attempt = 1; attempt <= ATTEMPTS; attempt++) {
+            if (Thread.currentThread().isInterrupted() || state.isAborted()) {
+                throw new InterruptedIOException("Download of " + url + " was aborted.");
+            }
+
+            HttpURLConnection connection = open(url, chunk * CHUNK_SIZE, state.VALIDATOR);
+            try {
+                int status = connection.getResponseCode();
+                if (status == HttpURLConnection.HTTP_OK) {
+                    // If-Range did not match, so the server sent the whole, changed file.
+                    state.discard();
+                    throw new IOException(url + " changed during its download.");
+                }
+                if (status != HttpURLConnection.HTTP_PARTIAL) {
+                    throw new IOException("Chunk " + chunk + " of " + url + " responded with " + status);
+                }
+
+                writeChunk(connection, channel, state, chunk, hasher, limiter);
+                return;
+
+            } catch (IOException ex) {
+                // Interrupted or cancelled, as opposed to timed out, which is worth another attempt.
+                boolean interrupted = ex instanceof InterruptedIOException && !(ex instanceof SocketTimeoutException);
+                if (!state.isValid() || interrupted) {
+                    state.abort();
+                    throw ex;
+                }
+                LOG.debug("Attempt {} of chunk {} of {} failed.", attempt, chunk, url, ex);
+                failure = ex;
+            } finally {
+                connection.disconnect();
+            }
+        }
+
+        state.abort();
+        throw failure;
+    }
+
+    private void writeChunk(HttpURLConnection connection, FileChannel channel, State state, int chunk, Hasher hasher, BandwidthLimiter limiter) throws IOException {
+        long start = chunk * CHUNK_SIZE;
+        long end = Math.min(start + CHUNK_SIZE, state.LENGTH);
+
+        String range = connection.getHeaderField("Content-Range");
+        if (range == null || !range.startsWith("bytes " + start + "-")) {
+            throw new IOException("Unexpected range " + range + " for chunk " + chunk + " of " + state.URL);
+        }
+
+        long position = start;
+        try (InputStream inputStream = connection.getInputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while (position < end && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, end - position))) != -1) {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer, position + byteBuffer.position());
+                }
+                hasher.written(channel, chunk, position, buffer, read);
+                position += read;
+                limit(limiter, read);
+            }
+        }
+
+        if (position != end) {
+            throw new IOException("Chunk " + chunk + " of " + state.URL + " ended after " + (position - start) + " bytes.");
+        }
+
+        channel.force(false);
+        state.complete(chunk);
+    }
+
+    private static void limit(BandwidthLimiter limiter, int bytes) throws InterruptedIOException {
+        if (limiter != null) {
+            limiter.acquire(bytes);
+        }
+    }
+
+    /**
+     * Open a connection requesting the chunk starting at the given position.
+     * @author Griefed
+     * @param url {@link URL} The URL to request.
+     * @param from Long. Start of the chunk, or <code>-1</code> to request the whole file.
+     * @param validator {@link String} Validator for <code>If-Range</code>, or <code>null</code>.
+     * @return {@link HttpURLConnection} The connection, not connected yet.
+     * @throws IOException Thrown if the connection can not be opened.
+     */
+    private HttpURLConnection open(URL url, long from, String validator) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout((int) Math.max(1, connectTimeout.toMillis()));
+        connection.setReadTimeout((int) Math.max(1, readTimeout.toMillis()));
+        connection.setRequestProperty("Accept-Encoding", "identity");
+        if (from >= 0) {
+            connection.setRequestProperty("Range", "bytes=" + from + "-" + (from + CHUNK_SIZE - 1));
+        }
+        if (validator != null) {
+            connection.setRequestProperty("If-Range", validator);
+        }
+        return connection;
+    }
+
+    /**
+     * Get the complete length of a download from the <code>Content-Range</code>-header of a partial response.
+     * @author Griefed
+     * @param connection {@link HttpURLConnection} A partial response.
+     * @return Long. The complete length, or <code>-1</code> if it is unknown.
+     */
+    private static long length(HttpURLConnection connection) {
+        String range = connection.getHeaderField("Content-Range");
+        if (range == null || range.indexOf('/') < 0) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(range.substring(range.indexOf('/') + 1).trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Get a validator for <code>If-Range</code> from a response. Only a strong <code>ETag</code> or a
+     * <code>Last-Modified</code>-date qualify.
+     * @author Griefed
+     * @param connection {@link HttpURLConnection} A response.
+     * @return {@link String} The validator, or <code>null</code> if the response has none, in which case the download
+     * can not be resumed.
+     */
+    private static String validator(HttpURLConnection connection) {
+        String etag = connection.getHeaderField("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return connection.getHeaderField("Last-Modified");
+    }
+
+    private static String fileName(Source source) {
+        String path = source.url().getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+
+        String extension;
+        switch (source.type()) {
+            case TAR_GZ:
+                extension = ".tar.gz";
+                break;
+            case TAR_BZ2:
+                extension = ".tar.bz2";
+                break;
+            case TAR:
+                extension = ".tar";
+                break;
+            default:
+                extension = ".zip";
+        }
+
+        return name.endsWith(extension) ? name : name + extension;
+    }
+
+    /**
+     * Thrown if a download does not match its expected digest.
+     * @author Griefed
+     */
+    private static class MismatchException extends IOException {
+
+        private MismatchException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Computes the digests of a download in order, while its chunks arrive in any order. Every chunk records how far it
+     * has been written. Data at the digested position is digested by the chunk writing it, as it is written. Data which
+     * was written ahead of it is read back from the file by a single thread calling {@link #catchUp(FileChannel)}, once
+     * it is contiguous with the digested position. The lock is only held to hand the digests over, never while reading.
+     * @author Griefed
+     */
+    private static class Hasher {
+
+        private final Checksum EXPECTED;
+        private final MessageDigest[] DIGESTS;
+        private final long LENGTH;
+        private final long CHUNK_SIZE;
+        private final long[] WRITTEN;
+        private long digested = 0;
+        private boolean catchingUp = false;
+        private boolean signalled = false;
+
+        private Hasher(Checksum expected, MessageDigest[] additional, long length, long chunkSize) {
+            this.EXPECTED = expected;
+            this.DIGESTS = new MessageDigest[additional.length + (expected == null ? 0 : 1)];
+            System.arraycopy(additional, 0, DIGESTS, 0, additional.length);
+            if (expected != null) {
+                DIGESTS[additional.length] = expected.newDigest();
+            }
+            this.LENGTH = length;
+            this.CHUNK_SIZE = chunkSize;
+            this.WRITTEN = new long[length < 0 || DIGESTS.length == 0 ? 0 : (int) ((length + chunkSize - 1) / chunkSize)];
+        }
+
+        /**
+         * Digest the next bytes of a download in a single stream.
+         */
+        private void update(byte[] buffer, int length) {
+            for (MessageDigest digest : DIGESTS) {
+                digest.update(buffer, 0, length);
+            }
+        }
+
+        /**
+         * Record a chunk which was completed by a previous, interrupted download.
+         */
+        private synchronized void resumed(int chunk) {
+            if (WRITTEN.length > 0) {
+                WRITTEN[chunk] = Math.min(CHUNK_SIZE, LENGTH - chunk * CHUNK_SIZE);
+            }
+        }
+
+        /**
+         * Record bytes written to the file at the given position, which belongs to the given chunk. Digests them right
+         * away if they continue the digested data, and nobody is catching up.
+         */
+        private synchronized void written(FileChannel channel, int chunk, long position, byte[] buffer, int length) {
+            if (WRITTEN.length == 0) {
+                return;
+            }
+
+            if (position == digested && !catchingUp) {
+                update(buffer, length);
+                digested += length;
+            }
+            // A retried chunk rewrites the same bytes, so its progress never shrinks.
+            WRITTEN[chunk] = Math.max(WRITTEN[chunk], position + length - chunk * CHUNK_SIZE);
+
+            if (available() > digested) {
+                signalled = true;
+                notifyAll();
+            }
+        }
+
+        /**
+         * Get the end of the data which is written and contiguous with the chunk at the digested position.
+         */
+        private long available() {
+            if (digested >= LENGTH) {
+                return LENGTH;
+            }
+            int chunk = (int) (digested / CHUNK_SIZE);
+            return chunk * CHUNK_SIZE + WRITTEN[chunk];
+        }
+
+        /**
+         * Wake up the thread catching up, for example because a chunk finished.
+         */
+        private synchronized void signal() {
+            signalled = true;
+            notifyAll();
+        }
+
+        /**
+         * Wait until more data is written ahead of the digested position, or a chunk finished, for at most 100 ms.
+         */
+        private synchronized void await() throws InterruptedException {
+            if (!signalled) {
+                wait(100);
+            }
+            signalled = false;
+        }
+
+        /**
+         * Digest whatever was written ahead of the digested position and is contiguous with it. Must only be called by
+         * one thread at a time. Chunks keep writing meanwhile, as the file is read without holding the lock.
+         */
+        private void catchUp(FileChannel channel) throws IOException {
+            if (WRITTEN.length == 0) {
+                return;
+            }
+
+            long position;
+            long available;
+            synchronized (this) {
+                position = digested;
+                available = available();
+                if (available <= position) {
+                    return;
+                }
+                catchingUp = true;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try {
+                while (available > position) {
+                    while (position < available) {
+                        buffer.clear().limit((int) Math.min(buffer.capacity(), available - position));
+                        int read = channel.read(buffer, position);
+                        if (read < 0) {
+                            throw new IOException("File ended at " + position + " of " + LENGTH + " bytes.");
+                        }
+                        update(buffer.array(), read);
+                        position += read;
+                    }
+
+                    synchronized (this) {
+                        digested = position;
+                        available = available();
+                    }
+                }
+            } finally {
+                synchronized (this) {
+                    catchingUp = false;
+                }
+            }
+        }
+
+        /**
+         * Verify a download in a single stream.
+         */
+        private void verify(URL url) throws MismatchException {
+            if (EXPECTED != null) {
+                byte[] actual = DIGESTS[DIGESTS.length - 1].digest();
+                if (!EXPECTED.matches(actual)) {
+                    throw new MismatchException(EXPECTED.algorithm() + " of " + url + " is " + Checksum.hex(actual)
+                            + " instead of " + EXPECTED.hex());
+                }
+            }
+        }
+
+        /**
+         * Verify a completed, chunked download.
+         */
+        private void verify(URL url, FileChannel channel) throws IOException {
+            if (WRITTEN.length == 0) {
+                return;
+            }
+
+            catchUp(channel);
+            synchronized (this) {
+                if (digested != LENGTH) {
+                    throw new IOException("Only " + digested + " of " + LENGTH + " bytes of " + url + " were digested.");
+                }
+            }
+            verify(url);
+        }
+    }
+
+    /**
+     * Progress of a ranged download, saved next to it after every finished chunk.
+     * @author Griefed
+     */
+    private static class State {
+
+        private final Path FILE;
+        private final URL URL;
+        private final long LENGTH;
+        private final long CHUNK_SIZE;
+        private final String VALIDATOR;
+        private final BitSet DONE;
+        private boolean valid = true;
+        private boolean aborted = false;
+
+        private State(Path file, URL url, long length, long chunkSize, String validator) {
+            this(file, url, length, chunkSize, validator, new BitSet());
+        }
+
+        private State(Path file, URL url, long length, long chunkSize, String validator, BitSet done) {
+            this.FILE = file;
+            this.URL = url;
+            this.LENGTH = length;
+            this.CHUNK_SIZE = chunkSize;
+            this.VALIDATOR = validator;
+            this.DONE = done;
+        }
+
+        /**
+         * Read the state of a previous download of the given URL.
+         * @return {@link State} of the previous download, or <code>null</code> if there is none which can be resumed.
+         */
+        private static State read(Path file, URL url, long chunkSize) {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+
+            Properties properties = new Properties();
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                properties.load(inputStream);
+
+                String validator = properties.getProperty("validator");
+                if (!url.toString().equals(properties.getProperty("url"))
+                        || chunkSize != Long.parseLong(properties.getProperty("chunk", "-1"))
+                        || validator == null) {
+                    return null;
+                }
+
+                State state = new State(file, url, Long.parseLong(properties.getProperty("length")), chunkSize, validator,
+                        BitSet.valueOf(Base64.getDecoder().decode(properties.getProperty("done", ""))));
+                return state.nextMissing() < state.chunks() ? state : null;
+
+            } catch (IOException | RuntimeException ex) {
+                LOG.warn("Download state {} is unreadable. Starting over.", file, ex);
+                return null;
+            }
+        }
+
+        private int chunks() {
+            return (int) ((LENGTH + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        }
+
+        private synchronized int nextMissing() {
+            return DONE.nextClearBit(0);
+        }
+
+        private synchronized boolean isDone(int chunk) {
+            return DONE.get(chunk);
+        }
+
+        private synchronized boolean isValid() {
+            return valid;
+        }
+
+        private synchronized boolean isAborted() {
+            return aborted;
+        }
+
+        /**
+         * Keep other chunks from being started once one of them failed.
+         */
+        private synchronized void abort() {
+            aborted = true;
+        }
+
+        private synchronized void complete(int chunk) throws IOException {
+            DONE.set(chunk);
+            if (valid && VALIDATOR != null) {
+                save();
+            }
+        }
+
+        private synchronized void discard() throws IOException {
+            valid = false;
+            Files.deleteIfExists(FILE);
+        }
+
+        private void save() throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("url", URL.toString());
+            properties.setProperty("length", String.valueOf(LENGTH));
+            properties.setProperty("chunk", String.valueOf(CHUNK_SIZE));
+            properties.setProperty("validator", VALIDATOR);
+            properties.setProperty("done", Base64.getEncoder().encodeToString(DONE.toByteArray()));
+
+            Path temporary = FILE.resolveSibling(FILE.getFileName() + ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+                properties.store(outputStream, null);
+            }
+            try {
+                Files.move(temporary, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, FILE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts source archives into a directory. TAR, TAR_GZ and TAR_BZ2 archives are decompressed and unpacked straight
+ * from the network, without storing the archive first. Their entries are read one after another, while the files are
+ * written by a pool of threads, so writing one file overlaps with reading the next. ZIP archives are downloaded first,
+ * as their directory sits at their end, and their entries are then extracted in parallel.<br>
+ * Data between reading and writing is held in a fixed pool of buffers. Once every buffer is in use, reading waits for
+ * writing to catch up, so memory stays bounded no matter how large the archive is. As the entry being read can only be
+ * written by a thread of the pool, one fewer archive than there are threads is extracted from a stream at a time, and
+ * further extractions wait for one of them to finish. Otherwise every thread could end up writing an entry whose data
+ * waits for buffers, which are held by entries still waiting for a thread. ZIP entries are written with buffers of their
+ * own.<br>
+ * Entries which would end up outside the target directory fail the extraction. Links and other special entries are
+ * skipped.
+ * @author Griefed
+ */
+public class Extractor implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(Extractor.class);
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final ExecutorService EXECUTOR;
+    private final BlockingQueue<ByteBuffer> BUFFERS;
+    private final Semaphore EXTRACTIONS;
+    private final int BUFFER_SIZE;
+    private final Downloader DOWNLOADER = new Downloader();
+
+    private volatile Duration connectTimeout = Duration.ofSeconds(10);
+    private volatile Duration readTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Create a new extractor writing with one thread per processor, but at least two, and 32 buffers of 64 KiB.
+     * @author Griefed
+     */
+    public Extractor() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()), 32, 64 * 1024);
+    }
+
+    /**
+     * Create a new extractor.
+     * @author Griefed
+     * @param threads Integer. Amount of files written in parallel. Archives extracted from a stream at the same time are
+     * limited to one fewer, but at least one.
+     * @param buffers Integer. Amount of buffers shared by all extractions of this extractor.
+     * @param bufferSize Integer. Size of a buffer in bytes.
+     */
+    public Extractor(int threads, int buffers, int bufferSize) {
+        if (threads < 1 || buffers < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("Threads, buffers and their size must be positive.");
+        }
+
+        this.BUFFER_SIZE = bufferSize;
+        this.BUFFERS = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            BUFFERS.add(ByteBuffer.allocate(bufferSize));
+        }
+        this.EXTRACTIONS = new Semaphore(Math.max(1, threads - 1), true);
+        this.EXECUTOR = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "VersionChecker-Extract");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the timeouts for requesting source archives.
+     * @author Griefed
+     * @param connect {@link Duration} Timeout for establishing a connection. Default is ten seconds.
+     * @param read {@link Duration} Timeout for reading from an established connection. Default is thirty seconds.
+     */
+    public void setTimeouts(@NotNull Duration connect, @NotNull Duration read) {
+        this.connectTimeout = connect;
+        this.readTimeout = read;
+        DOWNLOADER.setTimeouts(connect, read);
+    }
+
+    /**
+     * Download the given source archive and extract it into the given directory.
+     * @author Griefed
+     * @param source {@link Source} The source archive to extract.
+     * @param directory {@link Path} Directory to extract the archive into. Created if it does not exist.
+     * @return {@link Path} The given directory.
+     * @throws IOException Thrown if the archive can not be downloaded or extracted.
+     */
+    public Path extract(@NotNull Source source, @NotNull Path directory) throws IOException {
+        if (source.type() == ArchiveType.ZIP) {
+            Path temporary = Files.createTempDirectory("versionchecker");
+            try {
+                return extract(DOWNLOADER.download(source, temporary), directory);
+            } finally {
+                delete(temporary);
+            }
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) source.url().openConnection();
+        connection.setConnectTimeout((int) Math.max(1, connectTimeout.toMillis()));
+        connection.setReadTimeout((int) Math.max(1, readTimeout.toMillis()));
+
+        try {
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Download of " + source.url() + " responded with " + status);
+            }
+
+            try (InputStream inputStream = connection.getInputStream()) {
+                return extract(inputStream, source.type(), directory);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Extract a TAR, TAR_GZ or TAR_BZ2 archive from the given stream into the given directory. The stream is read to
+     * the end of the archive, but not closed.
+     * @author Griefed
+     * @param inputStream {@link InputStream} Stream of the archive.
+     * @param type {@link ArchiveType} Type of the archive. ZIP archives need to be extracted from a file.
+     * @param directory {@link Path} Directory to extract the archive into. Created if it does not exist.
+     * @return {@link Path} The given directory.
+     * @throws IOException Thrown if the archive can not be read or extracted.
+     */
+    public Path extract(@NotNull InputStream inputStream, @NotNull ArchiveType type, @NotNull Path directory) throws IOException {
+        InputStream buffered = new BufferedInputStream(inputStream, BUFFER_SIZE);
+
+        switch (type) {
+            case TAR:
+                return extractTar(buffered, directory);
+            case TAR_GZ:
+                return extractTar(new GZIPInputStream(buffered, BUFFER_SIZE), directory);
+            case TAR_BZ2:
+                return extractTar(new BZip2CompressorInputStream(buffered), directory);
+            default:
+                throw new IllegalArgumentException("ZIP archives can only be extracted from a file.");
+        }
+    }
+
+    /**
+     * Extract the given ZIP archive into the given directory, writing its entries in parallel.
+     * @author Griefed
+     * @param zip {@link Path} The ZIP archive.
+     * @param directory {@link Path} Directory to extract the archive into. Created if it does not exist.
+     * @return {@link Path} The given directory.
+     * @throws IOException Thrown if the archive can not be read or extracted.
+     */
+    public Path extract(@NotNull Path zip, @NotNull Path directory) throws IOException {
+        Path root = Files.createDirectories(directory).toRealPath();
+        List<Future<?>> writes = new ArrayList<>();
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            try {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    Path path = resolve(root, entry.getName());
+
+                    if (entry.isDirectory()) {
+                        Files.createDirectories(path);
+                        continue;
+                    }
+
+                    Files.createDirectories(path.getParent());
+                    writes.add(EXECUTOR.submit(() -> {
+                        // Not taken from the pool, which may be held by streamed extractions waiting for this thread.
+                        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                        try (InputStream entryStream = zipFile.getInputStream(entry);
+                             FileChannel channel = open(path)) {
+                            int read;
+                            while ((read = entryStream.read(buffer.array(), 0, buffer.capacity())) != -1) {
+                                buffer.clear().limit(read);
+                                while (buffer.hasRemaining()) {
+                                    channel.write(buffer);
+                                }
+                            }
+                        }
+                        return null;
+                    }));
+                }
+            } finally {
+                await(writes);
+            }
+        }
+
+        return directory;
+    }
+
+    /**
+     * Stop the threads of this extractor. Running extractions fail.
+     * @author Griefed
+     */
+    @Override
+    public void close() {
+        EXECUTOR.shutdownNow();
+        DOWNLOADER.close();
+    }
+
+    private Path extractTar(InputStream inputStream, Path directory) throws IOException {
+        try {
+            EXTRACTIONS.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extraction into " + directory + " was interrupted.");
+        }
+
+        try {
+            return extractTarEntries(inputStream, directory);
+        } finally {
+            EXTRACTIONS.release();
+        }
+    }
+
+    private Path extractTarEntries(InputStream inputStream, Path directory) throws IOException {
+        Path root = Files.createDirectories(directory).toRealPath();
+        List<Future<?>> writes = new ArrayList<>();
+
+        TarArchiveInputStream tar = new TarArchiveInputStream(inputStream);
+        try {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextEntry()) != null) {
+                Path path = resolve(root, entry.getName());
+
+                if (entry.isDirectory()) {
+                    Files.createDirectories(path);
+                    continue;
+                }
+                if (!entry.isFile()) {
+                    LOG.debug("Skipping {}, which is neither a file nor a directory.", entry.getName());
+                    continue;
+                }
+
+                Files.createDirectories(path.getParent());
+                BlockingQueue<ByteBuffer> queue = new LinkedBlockingQueue<>();
+                boolean executable = (entry.getMode() & 0100) != 0;
+                writes.add(EXECUTOR.submit(() -> write(path, queue, executable)));
+
+                try {
+                    while (true) {
+                        ByteBuffer buffer = BUFFERS.take();
+                        int read;
+                        try {
+                            read = tar.read(buffer.array(), 0, buffer.capacity());
+                        } catch (IOException ex) {
+                            BUFFERS.put(buffer);
+                            throw ex;
+                        }
+                        if (read == -1) {
+                            BUFFERS.put(buffer);
+                            break;
+                        }
+                        buffer.clear().limit(read);
+                        queue.put(buffer);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Extraction into " + directory + " was interrupted.");
+                } finally {
+                    queue.add(END);
+                }
+
+                for (Future<?> write : writes) {
+                    if (write.isDone()) {
+                        // Surface failed writes early instead of reading the rest of the archive in vain.
+                        getWrite(write);
+                    }
+                }
+            }
+        } finally {
+            await(writes);
+        }
+
+        return directory;
+    }
+
+    /**
+     * Write the buffers of the given queue to the given file, until the end of the entry is reached. Buffers are
+     * returned to the pool once written. Should writing fail, the remaining buffers are still drained and returned, so
+     * reading the archive does not stall.
+     * @author Griefed
+     */
+    private Void write(Path path, BlockingQueue<ByteBuffer> queue, boolean executable) throws IOException, InterruptedException {
+        IOException failure = null;
+        FileChannel channel = null;
+
+        try {
+            channel = open(path);
+        } catch (IOException ex) {
+            failure = ex;
+        }
+
+        try {
+            ByteBuffer buffer;
+            while ((buffer = queue.take()) != END) {
+                try {
+                    while (failure == null && buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } catch (IOException ex) {
+                    failure = ex;
+                } finally {
+                    BUFFERS.put(buffer);
+                }
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        if (executable && !path.toFile().setExecutable(true)) {
+            LOG.debug("Could not mark {} as executable.", path);
+        }
+        return null;
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Resolve the name of an entry against the target directory.
+     * @author Griefed
+     * @param root {@link Path} The real path of the target directory.
+     * @param name {@link String} Name of the entry.
+     * @return {@link Path} Where to extract the entry to.
+     * @throws IOException Thrown if the entry would end up outside the target directory.
+     */
+    private static Path resolve(Path root, String name) throws IOException {
+        Path path = root.resolve(name).normalize();
+        if (!path.startsWith(root)) {
+            throw new IOException("Entry " + name + " would be extracted outside of " + root);
+        }
+        return path;
+    }
+
+    private static void await(List<Future<?>> writes) throws IOException {
+        IOException failure = null;
+        for (Future<?> write : writes) {
+            try {
+                getWrite(write);
+            } catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void getWrite(Future<?> write) throws IOException {
+        try {
+            write.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extraction was interrupted.");
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof IOException
+                    ? (IOException) ex.getCause()
+                    : new IOException("Extraction failed.", ex.getCause());
+        }
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException ex) {
+            LOG.warn("Could not delete {}.", directory, ex);
+        }
+    }
+}
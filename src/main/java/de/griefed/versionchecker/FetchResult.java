@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Optional;
+
+/**
+ * Result of a refresh or check with a deadline. Either everything was acquired in time, or the releases acquired by an
+ * earlier refresh were used, because the host did not answer in time or is unavailable.
+ * @param <T> Type of the value.
+ * @author Griefed
+ */
+public class FetchResult<T> {
+
+    /**
+     * Where the releases the value is based on came from.
+     * @author Griefed
+     */
+    public enum Status {
+
+        /**
+         * The releases were acquired in time.
+         */
+        FRESH,
+
+        /**
+         * The deadline passed, so the releases of an earlier refresh were used.
+         */
+        TIMED_OUT,
+
+        /**
+         * The host failed or its circuit breaker is open, so the releases of an earlier refresh were used.
+         */
+        UNAVAILABLE
+    }
+
+    private final T VALUE;
+    private final Status STATUS;
+    private final IOException CAUSE;
+
+    private FetchResult(T value, Status status, IOException cause) {
+        this.VALUE = value;
+        this.STATUS = status;
+        this.CAUSE = cause;
+    }
+
+    /**
+     * Create a result based on releases which were acquired in time.
+     * @author Griefed
+     * @param value The value.
+     * @param <T> Type of the value.
+     * @return {@link FetchResult} with the status {@link Status#FRESH}.
+     */
+    public static <T> FetchResult<T> fresh(@NotNull T value) {
+        return new FetchResult<>(value, Status.FRESH, null);
+    }
+
+    /**
+     * Create a result based on the releases of an earlier refresh.
+     * @author Griefed
+     * @param value The value.
+     * @param cause {@link IOException} Why the releases could not be acquired.
+     * @param <T> Type of the value.
+     * @return {@link FetchResult} with the status {@link Status#TIMED_OUT} if the cause is a timeout, otherwise
+     * {@link Status#UNAVAILABLE}.
+     */
+    public static <T> FetchResult<T> stale(@NotNull T value, @NotNull IOException cause) {
+        return new FetchResult<>(value, cause instanceof InterruptedIOException ? Status.TIMED_OUT : Status.UNAVAILABLE, cause);
+    }
+
+    /**
+     * Get the value.
+     * @author Griefed
+     * @return The value.
+     */
+    public T value() {
+        return VALUE;
+    }
+
+    /**
+     * Get where the releases the value is based on came from.
+     * @author Griefed
+     * @return {@link Status} of this result.
+     */
+    public Status status() {
+        return STATUS;
+    }
+
+    /**
+     * Check whether the value is based on the releases of an earlier refresh.
+     * @author Griefed
+     * @return Boolean. <code>true</code> unless the status is {@link Status#FRESH}.
+     */
+    public boolean isStale() {
+        return STATUS != Status.FRESH;
+    }
+
+    /**
+     * Get why the releases could not be acquired.
+     * @author Griefed
+     * @return {@link IOException} which prevented acquiring the releases, wrapped in an {@link Optional}. Empty if the
+     * value is fresh.
+     */
+    public Optional<IOException> cause() {
+        return Optional.ofNullable(CAUSE);
+    }
+}
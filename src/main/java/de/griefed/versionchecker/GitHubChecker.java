@@ -24,17 +24,31 @@
 package de.griefed.versionchecker;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.jetbrains.annotations.NotNull;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Check a given GitHub repository for updates.<br>
@@ -44,18 +58,27 @@ import java.util.Optional;
  * 3.0.0-alpha.1<br>
  * 3.0.0-alpha.13<br>
  * 1.2.3-beta.1<br>
- * and so on.
+ * and so on.<br>
+ * Releases acquired from the Atom feed by {@link #refreshFromFeed()} are approximations of those of the REST API. Their
+ * publishing date is the date the release was last updated, their description is HTML instead of Markdown, and they are
+ * considered pre-releases if their tag contains <code>alpha</code> or <code>beta</code>, regardless of how they were
+ * published. Until a refresh from the REST API replaces them, such releases are only compared by tag and name when
+ * looking for changes, so acquiring the same release from both does not report it as edited.
  * @author Griefed
  */
 public class GitHubChecker extends VersionChecker {
 
     private static final Logger LOG = LogManager.getLogger(GitHubChecker.class);
+    private static final String FROM_FEED = "from_feed";
 
     private final URL GITHUB_API;
     private final URL GITHUB_API_LATEST;
+    private final URL GITHUB_FEED;
+    private final String REPOSITORY_NAME;
+    private final Map<String, List<ReleaseAsset>> FEED_ASSETS = new ConcurrentHashMap<>();
 
-    private JsonNode repository;
-    private JsonNode latest;
+    private volatile JsonNode repository;
+    private volatile JsonNode latest;
 
     /**
      * Constructs a GitHub checker with the given <code>user/repository</code> combination to allow for version checks as
@@ -67,6 +90,8 @@ public class GitHubChecker extends VersionChecker {
     public GitHubChecker(@NotNull String gitHubUserRepository) throws MalformedURLException {
         this.GITHUB_API = new URL("https://api.github.com/repos/" + gitHubUserRepository + "/releases");
         this.GITHUB_API_LATEST = new URL("https://api.github.com/repos/" + gitHubUserRepository + "/releases/latest");
+        this.GITHUB_FEED = new URL("https://github.com/" + gitHubUserRepository + "/releases.atom");
+        this.REPOSITORY_NAME = gitHubUserRepository;
     }
 
     /**
@@ -80,24 +105,254 @@ public class GitHubChecker extends VersionChecker {
     public GitHubChecker(@NotNull String user, @NotNull String repository) throws MalformedURLException {
         this.GITHUB_API = new URL("https://api.github.com/repos/" + user + "/" + repository + "/releases");
         this.GITHUB_API_LATEST = new URL("https://api.github.com/repos/" + user + "/" + repository + "/releases/latest");
+        this.GITHUB_FEED = new URL("https://github.com/" + user + "/" + repository + "/releases.atom");
+        this.REPOSITORY_NAME = user + "/" + repository;
+    }
+
+    /**
+     * Constructs a GitHub checker with the given <code>user/repository</code> combination, using the given GitHub API
+     * instead of <code>https://api.github.com/</code>. Use this for GitHub Enterprise installations or API mirrors.<br>
+     * The release feed used by {@link #refreshFromFeed()} is expected on the same host, with a trailing
+     * <code>api/v3/</code> removed from the given URL.
+     * @author Griefed
+     * @param gitHubApi {@link URL} Base URL of the GitHub API. For example <code>https://github.example.com/api/v3/</code>
+     * @param gitHubUserRepository String. GitHub <code>user/repository</code>-combination. For example <code>Griefed/ServerPackCreator</code>
+     * @throws MalformedURLException Thrown if the resulting URL is malformed or otherwise invalid.
+     */
+    public GitHubChecker(@NotNull URL gitHubApi, @NotNull String gitHubUserRepository) throws MalformedURLException {
+        String api = gitHubApi.toString().endsWith("/") ? gitHubApi.toString() : gitHubApi + "/";
+        this.GITHUB_API = new URL(api + "repos/" + gitHubUserRepository + "/releases");
+        this.GITHUB_API_LATEST = new URL(api + "repos/" + gitHubUserRepository + "/releases/latest");
+        this.REPOSITORY_NAME = gitHubUserRepository;
+
+        if (gitHubApi.getHost().equals("api.github.com")) {
+            this.GITHUB_FEED = new URL("https://github.com/" + gitHubUserRepository + "/releases.atom");
+        } else {
+            String web = api.endsWith("api/v3/") ? api.substring(0, api.length() - "api/v3/".length()) : api;
+            this.GITHUB_FEED = new URL(web + gitHubUserRepository + "/releases.atom");
+        }
     }
 
     /**
      * Refresh this GitHub-instance. Refreshes repository information, the latest version, as well as a list of all available
-     * versions.
+     * versions. Nothing is applied unless all of them were acquired, so a failed refresh leaves the previous ones intact.
      * @author Griefed
-     * @throws IOException Exception thrown if {@link #setRepository()} or {@link #setLatest()} encounter an error.
+     * @throws IOException Exception thrown if the releases or the latest release can not be acquired.
      * @return This GitHub-instance.
      */
     @Override
-    public GitHubChecker refresh() throws IOException {
-        setRepository();
-        setLatest();
+    public synchronized GitHubChecker refresh() throws IOException {
+        JsonNode releases;
+        JsonNode newest;
+        try {
+            releases = acquireReleases();
+            newest = acquireLatest(releases);
+        } catch (IOException | RuntimeException ex) {
+            forgetValidators();
+            throw ex;
+        }
+
+        this.repository = releases;
+        this.latest = newest;
+        setAllVersions();
+
+        return this;
+    }
+
+    /**
+     * Refresh this GitHub-instance with only the releases published since the last refresh. Falls back to a full
+     * {@link #refresh()} if this instance has not been refreshed yet.
+     * @author Griefed
+     * @throws IOException Exception thrown if the new releases can not be acquired.
+     * @return This GitHub-instance.
+     */
+    @Override
+    public synchronized GitHubChecker refreshIncrementally() throws IOException {
+        if (repository == null) {
+            return refresh();
+        }
+
+        JsonNode releases;
+        JsonNode newest;
+        try {
+            releases = getNewReleases(GITHUB_API, repository);
+            newest = acquireLatest(releases);
+        } catch (IOException | RuntimeException ex) {
+            forgetValidators();
+            throw ex;
+        }
+
+        this.repository = releases;
+        this.latest = newest;
+        setAllVersions();
+
+        return this;
+    }
+
+    /**
+     * Refresh this GitHub-instance from the Atom feed of the repository, <code>https://github.com/{user}/{repository}/releases.atom</code>,
+     * instead of the REST API. The feed is not subject to the rate limit of the API and much smaller, so it can be polled
+     * far more often.<br>
+     * The feed only lists the ten newest releases and carries neither assets nor a pre-release flag. Releases whose tag
+     * contains <code>alpha</code> or <code>beta</code> are therefore considered pre-releases, and assets are only acquired
+     * from the REST API once {@link Update#assets()} of an update found by {@link #check(String, boolean)} is accessed.
+     * New releases are merged into the current snapshot. Should every release in the feed be new, releases may have
+     * been missed, in which case the gap is filled from the REST API via {@link #refreshIncrementally()}.
+     * @author Griefed
+     * @throws IOException Exception thrown if the feed can not be acquired or parsed.
+     * @return This GitHub-instance.
+     */
+    public synchronized GitHubChecker refreshFromFeed() throws IOException {
+        Optional<ApiResponse> response = getApiResponse(GITHUB_FEED, repository != null);
+        if (!response.isPresent()) {
+            return this;
+        }
+
+        long started = System.nanoTime();
+        List<JsonNode> feed = readFeed(response.get().body());
+
+        Set<String> known = new HashSet<>();
+        if (repository != null) {
+            for (JsonNode release : repository) {
+                known.add(release.path("tag_name").asText());
+            }
+        }
+
+        List<JsonNode> selected = new ArrayList<>(feed.size());
+        for (JsonNode release : feed) {
+            JsonNode filtered = filterRelease(release);
+            if (filtered != null) {
+                selected.add(filtered);
+            }
+        }
+        feed = selected;
+
+        List<JsonNode> newReleases = new ArrayList<>(feed.size());
+        for (JsonNode release : feed) {
+            if (known.contains(release.path("tag_name").asText())) {
+                break;
+            }
+            newReleases.add(release);
+        }
+
+        getMetrics().parse(getHost(), getRepositoryName(), System.nanoTime() - started, newReleases.size());
+
+        if (repository != null && !feed.isEmpty() && newReleases.size() == feed.size()) {
+            LOG.debug("Every release in the feed of {} is new. Filling the gap from the API.", REPOSITORY_NAME);
+            try {
+                return refreshIncrementally();
+            } catch (IOException | RuntimeException ex) {
+                // Otherwise the unchanged feed would be confirmed next time, and the gap never filled.
+                forgetValidator(GITHUB_FEED);
+                throw ex;
+            }
+        }
+
+        this.repository = mergeReleases(newReleases, repository);
+        selectLatest();
         setAllVersions();
 
         return this;
     }
 
+    /**
+     * Apply a single release, as received from a webhook, to the current snapshot without contacting GitHub. Drafts
+     * and removed releases are removed from the snapshot, every other release is added or replaces the release with
+     * the same tag. Ignored if this instance has not been refreshed yet, as a single release is no replacement for a
+     * complete snapshot.
+     * Releases not selected by the tag filter of this instance are ignored as well. Waits for a running refresh to
+     * finish, so the release is applied to the snapshot it acquired instead of being overwritten by it.
+     * @author Griefed
+     * @param release {@link JsonNode} The release, shaped like those of the REST API.
+     * @param removed Boolean. Whether the release was deleted or unpublished.
+     * @return Boolean. <code>true</code> if the release was applied.
+     */
+    synchronized boolean applyRelease(@NotNull JsonNode release, boolean removed) {
+        if (repository == null) {
+            return false;
+        }
+
+        release = filterRelease(release.deepCopy());
+        if (release == null) {
+            return false;
+        }
+
+        this.repository = applyRelease(release, removed || release.path("draft").asBoolean(), repository);
+        selectLatest();
+        setAllVersions();
+
+        return true;
+    }
+
+    /**
+     * Set the latest release to the newest regular release of the current snapshot.
+     * @author Griefed
+     */
+    private void selectLatest() {
+        this.latest = newestRelease(repository);
+    }
+
+    /**
+     * Find the newest regular release of the given releases.
+     * @author Griefed
+     * @param releases {@link JsonNode} Releases, newest-first.
+     * @return {@link JsonNode} The newest release which is neither a pre-release nor a draft, or <code>null</code> if
+     * there is none.
+     */
+    private static JsonNode newestRelease(@NotNull JsonNode releases) {
+        for (JsonNode release : releases) {
+            if (!release.path("prerelease").asBoolean() && !release.path("draft").asBoolean()) {
+                return release;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether the newest release of this GitHub-instance changed since the last refresh, by requesting only the
+     * newest release.
+     * @author Griefed
+     * @return Boolean. <code>true</code> if the newest release changed, or if this instance was not refreshed yet.
+     * @throws IOException Exception thrown if the newest release can not be acquired.
+     */
+    @Override
+    public boolean isChanged() throws IOException {
+        return isHeadChanged(GITHUB_API, repository);
+    }
+
+    /**
+     * Compare two GitHub releases by tag, name, description, publishing-state and assets. Download counts are ignored.
+     * Releases acquired from the feed are only compared by tag and name, as the rest of them is approximated.
+     * @author Griefed
+     * @param snapshotRelease {@link JsonNode} Release from the current snapshot.
+     * @param newRelease {@link JsonNode} Release acquired from the API.
+     * @return Boolean. <code>true</code> if both represent the same, unchanged release.
+     */
+    @Override
+    protected boolean isSameRelease(@NotNull JsonNode snapshotRelease, @NotNull JsonNode newRelease) {
+        if (snapshotRelease.path(FROM_FEED).asBoolean() || newRelease.path(FROM_FEED).asBoolean()) {
+            return isSameFields(snapshotRelease, newRelease, "tag_name", "name");
+        }
+        return isSameFields(snapshotRelease, newRelease, "tag_name", "name", "body", "body_deflated", "draft", "prerelease", "published_at") &&
+                isSameElements(snapshotRelease.path("assets"), newRelease.path("assets"), "name", "updated_at");
+    }
+
+    /**
+     * Condense a GitHub release into a fingerprint of the fields compared by {@link #isSameRelease(JsonNode, JsonNode)}.
+     * Releases acquired from the feed have none, as they can not be compared with releases acquired from the API.
+     * @author Griefed
+     * @param release {@link JsonNode} Release to condense.
+     * @return Integer. Fingerprint of the release, or <code>0</code> if it was acquired from the feed.
+     */
+    @Override
+    protected int fingerprint(@NotNull JsonNode release) {
+        if (release.path(FROM_FEED).asBoolean()) {
+            return 0;
+        }
+        return 31 * hashFields(release, "tag_name", "name", "body", "body_deflated", "draft", "prerelease", "published_at") +
+                hashElements(release.path("assets"), "name", "updated_at");
+    }
+
     /**
      * Check whether an update/newer version is available for the given version. If you want to check for PreReleases, too,
      * then make sure to pass <code>true</code> for <code>checkForPreReleases</code>.
@@ -109,7 +364,10 @@ public class GitHubChecker extends VersionChecker {
      */
     @Override
     public Optional<Update> check(@NotNull String currentVersion, boolean checkForPreReleases) {
-        LOG.debug("Current version: " + currentVersion);
+        LOG.debug("Current version: {}", currentVersion);
+
+        long started = System.nanoTime();
+        Optional<Update> update = Optional.empty();
 
         try {
 
@@ -117,7 +375,7 @@ public class GitHubChecker extends VersionChecker {
 
             if (!newVersion.equals("up_to_date")) {
 
-                String description = "N/A";
+                DeflatedText description = DeflatedText.plain("N/A");
                 LocalDate releaseDate = null;
                 List<ReleaseAsset> assets = new ArrayList<>();
                 List<Source> sources = new ArrayList<>();
@@ -126,21 +384,16 @@ public class GitHubChecker extends VersionChecker {
 
                     if (release.get("tag_name").asText().equals(newVersion)) {
 
-                        description = release.get("body").asText();
+                        description = getDescription(release);
 
                         releaseDate = LocalDate.parse(release.get("published_at").asText()
                                 .substring(0,release.get("published_at").asText().lastIndexOf("T"))
                         );
 
-                        for (JsonNode asset : release.get("assets")) {
-
-                            assets.add(
-                                    new ReleaseAsset(
-                                        asset.get("name").asText(),
-                                        new URL(asset.get("browser_download_url").asText())
-                                )
-                            );
-
+                        if (release.has("assets")) {
+                            assets = getAssets(release);
+                        } else {
+                            assets = feedAssets(release.path("original_tag_name").asText(newVersion));
                         }
 
                         sources.add(
@@ -161,8 +414,8 @@ public class GitHubChecker extends VersionChecker {
                     }
                 }
 
-                return Optional.of(
-                        new Update(
+                update = Optional.of(
+                        Update.deflated(
                                 newVersion,
                                 description,
                                 new URL(getDownloadUrl(newVersion)),
@@ -180,7 +433,8 @@ public class GitHubChecker extends VersionChecker {
             LOG.error("URL could not be created.",ex);
         }
 
-        return Optional.empty();
+        getMetrics().check(getHost(), getRepositoryName(), System.nanoTime() - started, update.isPresent());
+        return prefetch(update);
     }
 
     /**
@@ -202,7 +456,7 @@ public class GitHubChecker extends VersionChecker {
             }
         }
 
-        LOG.debug("All versions: " + versions);
+        LOG.debug("All versions: {}", versions);
 
         // In case the given repository does not have any releases
         if (versions.size() == 0) {
@@ -238,7 +492,7 @@ public class GitHubChecker extends VersionChecker {
                 }
             }
 
-            LOG.debug("Latest version:" + latest);
+            LOG.debug("Latest version: {}", version);
             return version;
         }
 
@@ -273,17 +527,240 @@ public class GitHubChecker extends VersionChecker {
      */
     @Override
     protected void setRepository() throws IOException {
-        this.repository = getObjectMapper().readTree(getResponse(GITHUB_API));
+        this.repository = acquireReleases();
+    }
+
+    /**
+     * Acquire the releases of this instances repository, without applying them.
+     * @author Griefed
+     * @return {@link JsonNode} The releases, or the current snapshot if it is still up-to-date.
+     * @throws IOException Thrown if the repository can not be reached or any other unexpected error occurs.
+     */
+    private JsonNode acquireReleases() throws IOException {
+        Optional<String> response = getResponse(GITHUB_API, repository != null);
+        return response.isPresent() ? readReleases(response.get()) : repository;
+    }
+
+    /**
+     * Parse the entries of a GitHub release feed into releases shaped like those of the REST API, newest-first.
+     * Entities and DTDs are not resolved. The releases are marked as acquired from the feed.
+     * @author Griefed
+     * @param feed {@link String} The Atom feed to parse.
+     * @return List of releases from the feed, newest-first.
+     * @throws IOException Thrown if the feed is not valid XML.
+     */
+    private List<JsonNode> readFeed(@NotNull String feed) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        List<JsonNode> releases = new ArrayList<>(10);
+        String api = GITHUB_API.toString().substring(0, GITHUB_API.toString().length() - "releases".length());
+
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(feed));
+            try {
+                ObjectNode release = null;
+                String id = null;
+
+                while (reader.hasNext()) {
+                    int event = reader.next();
+
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String element = reader.getLocalName();
+
+                        if (element.equals("entry")) {
+                            release = getObjectMapper().createObjectNode();
+                            id = null;
+                        } else if (release == null) {
+                            continue;
+                        } else if (element.equals("link")) {
+                            String href = reader.getAttributeValue(null, "href");
+                            if (href != null) {
+                                release.put("html_url", href);
+                            }
+                        } else if (element.equals("id")) {
+                            id = reader.getElementText();
+                        } else if (element.equals("title")) {
+                            release.put("name", reader.getElementText());
+                        } else if (element.equals("content")) {
+                            release.put("body", reader.getElementText());
+                        } else if (element.equals("updated")) {
+                            release.put("published_at", reader.getElementText());
+                        }
+
+                    } else if (event == XMLStreamConstants.END_ELEMENT && release != null && reader.getLocalName().equals("entry")) {
+                        String tag = feedTag(release.path("html_url").asText(), id);
+                        if (tag != null) {
+                            release.put("tag_name", tag);
+                            release.put("draft", false);
+                            release.put("prerelease", tag.contains("alpha") || tag.contains("beta"));
+                            release.put(FROM_FEED, true);
+                            release.put("tarball_url", api + "tarball/" + tag);
+                            release.put("zipball_url", api + "zipball/" + tag);
+                            releases.add(release);
+                        }
+                        release = null;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException("Release feed of " + REPOSITORY_NAME + " could not be parsed.", ex);
+        }
 
+        return releases;
     }
 
     /**
-     * Acquires the latest version for this instances repository.
+     * Extract the tag of a feed entry from its link, or its ID if the link does not point to a tag.
      * @author Griefed
+     * @param link {@link String} Link of the entry.
+     * @param id {@link String} ID of the entry. May be <code>null</code>.
+     * @return {@link String} The tag, or <code>null</code> if neither contains one.
+     */
+    private String feedTag(@NotNull String link, String id) {
+        String tag = null;
+
+        int index = link.indexOf("/releases/tag/");
+        if (index >= 0) {
+            tag = link.substring(index + "/releases/tag/".length());
+        } else if (id != null && id.lastIndexOf('/') >= 0) {
+            tag = id.substring(id.lastIndexOf('/') + 1);
+        }
+
+        if (tag == null || tag.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return URLDecoder.decode(tag, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            return tag;
+        }
+    }
+
+    /**
+     * Get the assets of the given release from the REST API once they are accessed. Assets acquired this way are kept
+     * for subsequent checks.
+     * @author Griefed
+     * @param tag {@link String} Tag of the release.
+     * @return List of {@link ReleaseAsset} which is only acquired once accessed.
+     */
+    private List<ReleaseAsset> feedAssets(@NotNull String tag) {
+        List<ReleaseAsset> cached = FEED_ASSETS.get(tag);
+        if (cached != null) {
+            return cached;
+        }
+
+        return new LazyAssetList(() -> {
+            List<ReleaseAsset> assets = getAssets(getObjectMapper().readTree(
+                    getResponse(new URL(GITHUB_API + "/tags/" + URLEncoder.encode(tag, "UTF-8")))
+            ));
+            FEED_ASSETS.put(tag, assets);
+            return assets;
+        });
+    }
+
+    /**
+     * Get the assets of the given release.
+     * @author Griefed
+     * @param release {@link JsonNode} Release as returned by the REST API.
+     * @return List of {@link ReleaseAsset} of the given release.
+     * @throws MalformedURLException Thrown if the URL of an asset is malformed.
+     */
+    private List<ReleaseAsset> getAssets(@NotNull JsonNode release) throws MalformedURLException {
+        List<ReleaseAsset> assets = new ArrayList<>();
+
+        for (JsonNode asset : release.path("assets")) {
+
+            String digest = asset.path("digest").asText();
+
+            assets.add(
+                    new ReleaseAsset(
+                        asset.get("name").asText(),
+                        new URL(asset.get("browser_download_url").asText()),
+                        digest.startsWith("sha256:") ? digest.substring(7).toLowerCase(Locale.ROOT) : null
+                )
+            );
+
+        }
+
+        return assets;
+    }
+
+    /**
+     * Acquires the latest version for this instances repository, without applying it.
+     * @author Griefed
+     * @param releases {@link JsonNode} The releases which are about to be applied.
+     * @return {@link JsonNode} The latest release, or the current one if it is still up-to-date.
      * @throws IOException Thrown if the repository can not be reached or any other unexpected error occurs.
      */
-    private void setLatest() throws IOException {
-        this.latest = getObjectMapper().readTree(getResponse(GITHUB_API_LATEST));
+    private JsonNode acquireLatest(@NotNull JsonNode releases) throws IOException {
+        if (getTagFilter().isPresent()) {
+            // The latest release of the repository may belong to another component.
+            return newestRelease(releases);
+        }
+
+        Optional<String> response = getResponse(GITHUB_API_LATEST, latest != null);
+        return response.isPresent() ? getObjectMapper().readTree(response.get()) : latest;
+    }
+
+    /**
+     * Get the current snapshot of releases of this checker.
+     * @author Griefed
+     * @return {@link JsonNode} The current snapshot, or <code>null</code> if this instance was not refreshed yet.
+     */
+    @Override
+    protected JsonNode getSnapshot() {
+        return repository;
+    }
+
+    /**
+     * Replace the current snapshot of releases of this checker. The latest release is set to the newest regular
+     * release of the given snapshot.
+     * @author Griefed
+     * @param snapshot {@link JsonNode} The snapshot of releases, newest-first, or <code>null</code> to drop it.
+     */
+    @Override
+    protected void setSnapshot(JsonNode snapshot) {
+        this.repository = snapshot;
+        if (snapshot == null) {
+            this.latest = null;
+        } else {
+            selectLatest();
+        }
+    }
+
+    /**
+     * Get the name of the field which holds the description of a release.
+     * @author Griefed
+     * @return {@link String} <code>body</code>.
+     */
+    @Override
+    protected String getDescriptionField() {
+        return "body";
+    }
+
+    /**
+     * Get the host of the GitHub API this checker acquires releases from.
+     * @author Griefed
+     * @return {@link String} Host of the GitHub API, usually <code>api.github.com</code>.
+     */
+    @Override
+    public String getHost() {
+        return GITHUB_API.getHost();
+    }
+
+    /**
+     * Get the <code>user/repository</code>-combination this checker acquires releases for.
+     * @author Griefed
+     * @return {@link String} GitHub <code>user/repository</code>-combination of this checker.
+     */
+    @Override
+    public String getRepositoryName() {
+        return REPOSITORY_NAME;
     }
 
     /**
@@ -306,7 +783,7 @@ public class GitHubChecker extends VersionChecker {
 
                 if (version.get("tag_name").asText().equals(requestedVersion)) {
 
-                    for (JsonNode asset : version.get("assets")) {
+                    for (JsonNode asset : version.path("assets")) {
 
                         if (!assetUrls.contains(asset.get("browser_download_url").asText())) {
                             assetUrls.add(asset.get("browser_download_url").asText());
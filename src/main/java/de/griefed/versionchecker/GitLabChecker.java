@@ -53,7 +53,7 @@ public class GitLabChecker extends VersionChecker {
 
     private final URL GITLAB_API;
 
-    private JsonNode repository;
+    private volatile JsonNode repository;
 
     /**
      * Constructs a GitLab checker with the given GitLab-URL to allow for version checks as well as version and URL
@@ -87,13 +87,96 @@ public class GitLabChecker extends VersionChecker {
      * @return This GitLab-instance.
      */
     @Override
-    public GitLabChecker refresh() throws IOException  {
+    public synchronized GitLabChecker refresh() throws IOException  {
         setRepository();
         setAllVersions();
 
         return this;
     }
 
+    /**
+     * Refresh this GitLab-instance with only the releases published since the last refresh. Falls back to a full
+     * {@link #refresh()} if this instance has not been refreshed yet.
+     * @author Griefed
+     * @throws IOException Exception thrown if the new releases can not be acquired.
+     * @return This GitLab-instance.
+     */
+    @Override
+    public synchronized GitLabChecker refreshIncrementally() throws IOException {
+        if (repository == null) {
+            return refresh();
+        }
+
+        this.repository = getNewReleases(GITLAB_API, repository);
+        setAllVersions();
+
+        return this;
+    }
+
+    /**
+     * Apply a single release, as received from a webhook, to the current snapshot without contacting GitLab. Removed
+     * releases are removed from the snapshot, every other release is added or replaces the release with the same tag.
+     * Ignored if this instance has not been refreshed yet, as a single release is no replacement for a complete
+     * snapshot. Releases not selected by the tag filter of this instance are ignored as well. Waits for a running
+     * refresh to finish, so the release is applied to the snapshot it acquired instead of being overwritten by it.
+     * @author Griefed
+     * @param release {@link JsonNode} The release, shaped like those of the REST API.
+     * @param removed Boolean. Whether the release was deleted.
+     * @return Boolean. <code>true</code> if the release was applied.
+     */
+    synchronized boolean applyRelease(@NotNull JsonNode release, boolean removed) {
+        if (repository == null) {
+            return false;
+        }
+
+        release = filterRelease(release.deepCopy());
+        if (release == null) {
+            return false;
+        }
+
+        this.repository = applyRelease(release, removed, repository);
+        setAllVersions();
+
+        return true;
+    }
+
+    /**
+     * Check whether the newest release of this GitLab-instance changed since the last refresh, by requesting only the
+     * newest release.
+     * @author Griefed
+     * @return Boolean. <code>true</code> if the newest release changed, or if this instance was not refreshed yet.
+     * @throws IOException Exception thrown if the newest release can not be acquired.
+     */
+    @Override
+    public boolean isChanged() throws IOException {
+        return isHeadChanged(GITLAB_API, repository);
+    }
+
+    /**
+     * Compare two GitLab releases by tag, name, description, release date and asset links.
+     * @author Griefed
+     * @param snapshotRelease {@link JsonNode} Release from the current snapshot.
+     * @param newRelease {@link JsonNode} Release acquired from the API.
+     * @return Boolean. <code>true</code> if both represent the same, unchanged release.
+     */
+    @Override
+    protected boolean isSameRelease(@NotNull JsonNode snapshotRelease, @NotNull JsonNode newRelease) {
+        return isSameFields(snapshotRelease, newRelease, "tag_name", "name", "description", "description_deflated", "released_at") &&
+                isSameElements(snapshotRelease.path("assets").path("links"), newRelease.path("assets").path("links"), "name", "url");
+    }
+
+    /**
+     * Condense a GitLab release into a fingerprint of the fields compared by {@link #isSameRelease(JsonNode, JsonNode)}.
+     * @author Griefed
+     * @param release {@link JsonNode} Release to condense.
+     * @return Integer. Fingerprint of the release.
+     */
+    @Override
+    protected int fingerprint(@NotNull JsonNode release) {
+        return 31 * hashFields(release, "tag_name", "name", "description", "description_deflated", "released_at") +
+                hashElements(release.path("assets").path("links"), "name", "url");
+    }
+
     /**
      * Check whether an update/newer version is available for the given version. If you want to check for PreReleases, too,
      * then make sure to pass <code>true</code> for <code>checkForPreReleases</code>.
@@ -105,7 +188,10 @@ public class GitLabChecker extends VersionChecker {
      */
     @Override
     public Optional<Update> check(@NotNull String currentVersion, boolean checkForPreReleases) {
-        LOG.debug("Current version: " + currentVersion);
+        LOG.debug("Current version: {}", currentVersion);
+
+        long started = System.nanoTime();
+        Optional<Update> update = Optional.empty();
 
         try {
 
@@ -113,7 +199,7 @@ public class GitLabChecker extends VersionChecker {
 
             if (!newVersion.equals("up_to_date")) {
 
-                String description = "N/A";
+                DeflatedText description = DeflatedText.plain("N/A");
                 LocalDate releaseDate = null;
                 List<ReleaseAsset> assets = new ArrayList<>();
                 List<Source> sources = new ArrayList<>();
@@ -122,7 +208,7 @@ public class GitLabChecker extends VersionChecker {
 
                     if (release.get("tag_name").asText().equals(newVersion)) {
 
-                        description = release.get("description").asText();
+                        description = getDescription(release);
 
                         releaseDate = LocalDate.parse(release.get("released_at").asText()
                                 .substring(0, release.get("released_at").asText().lastIndexOf("T"))
@@ -171,8 +257,8 @@ public class GitLabChecker extends VersionChecker {
                     }
                 }
 
-                return Optional.of(
-                        new Update(
+                update = Optional.of(
+                        Update.deflated(
                                 newVersion,
                                 description,
                                 new URL(getDownloadUrl(newVersion)),
@@ -190,7 +276,8 @@ public class GitLabChecker extends VersionChecker {
             LOG.error("URL could not be created.",ex);
         }
 
-        return Optional.empty();
+        getMetrics().check(getHost(), getRepositoryName(), System.nanoTime() - started, update.isPresent());
+        return prefetch(update);
     }
 
     /**
@@ -212,7 +299,7 @@ public class GitLabChecker extends VersionChecker {
             }
         }
 
-        LOG.debug("All versions: " + versions);
+        LOG.debug("All versions: {}", versions);
 
         // In case the given repository does not have any releases
         if (versions.size() == 0) {
@@ -252,8 +339,6 @@ public class GitLabChecker extends VersionChecker {
 
             for (String version : getAllVersions()) {
 
-                LOG.debug("version: " + version);
-
                 if (!version.contains("alpha") && !version.contains("beta") && compareSemantics(latest, version, Comparison.NEW)) {
 
                     latest = version;
@@ -275,6 +360,7 @@ public class GitLabChecker extends VersionChecker {
                 }
             }
 
+            LOG.debug("Latest version: {}", latest);
             return latest;
         }
 
@@ -308,7 +394,69 @@ public class GitLabChecker extends VersionChecker {
      */
     @Override
     protected void setRepository() throws IOException {
-        this.repository = getObjectMapper().readTree(getResponse(GITLAB_API));
+        Optional<String> response = getResponse(GITLAB_API, repository != null);
+        if (response.isPresent()) {
+            this.repository = readReleases(response.get());
+        }
+    }
+
+    /**
+     * Get the current snapshot of releases of this checker.
+     * @author Griefed
+     * @return {@link JsonNode} The current snapshot, or <code>null</code> if this instance was not refreshed yet.
+     */
+    @Override
+    protected JsonNode getSnapshot() {
+        return repository;
+    }
+
+    /**
+     * Replace the current snapshot of releases of this checker.
+     * @author Griefed
+     * @param snapshot {@link JsonNode} The snapshot of releases, newest-first, or <code>null</code> to drop it.
+     */
+    @Override
+    protected void setSnapshot(JsonNode snapshot) {
+        this.repository = snapshot;
+    }
+
+    /**
+     * Get the name of the field which holds the description of a release.
+     * @author Griefed
+     * @return {@link String} <code>description</code>.
+     */
+    @Override
+    protected String getDescriptionField() {
+        return "description";
+    }
+
+    /**
+     * Get the host of the GitLab instance this checker acquires releases from.
+     * @author Griefed
+     * @return {@link String} Host of the GitLab instance, for example <code>gitlab.com</code>.
+     */
+    @Override
+    public String getHost() {
+        return GITLAB_API.getHost();
+    }
+
+    /**
+     * Get the project this checker acquires releases for, as it appears in the API-URL this checker was created with.
+     * @author Griefed
+     * @return {@link String} ID or URL-encoded path of the GitLab project of this checker.
+     */
+    @Override
+    public String getRepositoryName() {
+        String path = GITLAB_API.getPath();
+
+        if (path.contains("/projects/")) {
+            path = path.substring(path.indexOf("/projects/") + "/projects/".length());
+        }
+        if (path.endsWith("/releases")) {
+            path = path.substring(0, path.length() - "/releases".length());
+        }
+
+        return path;
     }
 
     /**
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * List of release assets which are only acquired once the list is accessed for the first time. Used for releases whose
+ * source, like a release feed, does not contain asset details. If the assets can not be acquired, the list is empty and
+ * acquiring them is attempted again on the next access.
+ * @author Griefed
+ */
+class LazyAssetList extends AbstractList<ReleaseAsset> {
+
+    private static final Logger LOG = LogManager.getLogger(LazyAssetList.class);
+
+    private final Loader LOADER;
+    private volatile List<ReleaseAsset> assets;
+
+    /**
+     * Create a new list which acquires its assets with the given loader.
+     * @author Griefed
+     * @param loader {@link Loader} Acquires the assets on first access.
+     */
+    LazyAssetList(Loader loader) {
+        this.LOADER = loader;
+    }
+
+    private List<ReleaseAsset> assets() {
+        List<ReleaseAsset> loaded = assets;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = assets;
+                if (loaded == null) {
+                    try {
+                        loaded = Collections.unmodifiableList(LOADER.load());
+                        assets = loaded;
+                    } catch (IOException ex) {
+                        LOG.error("Release assets could not be acquired.", ex);
+                        return Collections.emptyList();
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public ReleaseAsset get(int index) {
+        return assets().get(index);
+    }
+
+    @Override
+    public int size() {
+        return assets().size();
+    }
+
+    /**
+     * Acquires the assets of a release.
+     * @author Griefed
+     */
+    interface Loader {
+
+        /**
+         * Acquire the assets of a release.
+         * @author Griefed
+         * @return List of {@link ReleaseAsset}.
+         * @throws IOException Thrown if the assets can not be acquired.
+         */
+        List<ReleaseAsset> load() throws IOException;
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks one product which publishes the same releases to several repositories, for example to GitHub and to a
+ * self-hosted GitLab.<br>
+ * Sources are tried in the given order. Should a source take longer than its usual latency, the {@link #setHedgePercentile(double)}
+ * percentile of its recent refreshes, the next source is asked as well, and whichever answers first wins. Should a
+ * source fail, the next one is asked right away. Every source has its own {@link CircuitBreaker}, so a source which
+ * keeps failing is skipped until it recovered. Breakers open after three consecutive failures and probe their source
+ * again after thirty seconds.<br>
+ * Versions, updates and URLs are served by the source which won the most recent refresh. Sources which lost keep
+ * refreshing in the background, so they are up-to-date should they be needed.
+ * @author Griefed
+ */
+public class MirroredChecker extends VersionChecker {
+
+    private static final Logger LOG = LogManager.getLogger(MirroredChecker.class);
+
+    private static final int LATENCY_SAMPLES = 100;
+    private static final int MIN_LATENCY_SAMPLES = 10;
+
+    private final List<Mirror> SOURCES;
+    private final ExecutorService EXECUTOR;
+
+    private volatile Mirror active;
+    private volatile double hedgePercentile = 0.95;
+    private volatile Duration hedgeDelay = Duration.ofSeconds(2);
+
+    /**
+     * Create a new checker for the given sources, refreshing them on daemon threads.
+     * @author Griefed
+     * @param primary {@link VersionChecker} The preferred source.
+     * @param secondaries {@link VersionChecker} Sources to fall back to, in order.
+     */
+    public MirroredChecker(@NotNull VersionChecker primary, @NotNull VersionChecker... secondaries) {
+        this(sources(primary, secondaries), Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "VersionChecker-Mirror");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Create a new checker for the given sources, refreshing them on the given executor.
+     * @author Griefed
+     * @param sources List of {@link VersionChecker}. Sources of the product, the preferred one first.
+     * @param executor {@link ExecutorService} Executor to refresh sources on. Needs to run as many tasks at once as
+     *                 there are sources.
+     */
+    public MirroredChecker(@NotNull List<VersionChecker> sources, @NotNull ExecutorService executor) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one source is required.");
+        }
+
+        List<Mirror> wrapped = new ArrayList<>(sources.size());
+        for (VersionChecker source : sources) {
+            wrapped.add(new Mirror(source));
+        }
+
+        this.SOURCES = Collections.unmodifiableList(wrapped);
+        this.EXECUTOR = executor;
+        this.active = SOURCES.get(0);
+    }
+
+    /**
+     * Set the percentile of the recent refresh latencies of a source, after which the next source is asked as well.
+     * Defaults to <code>0.95</code>, so roughly one in twenty refreshes asks a second source.
+     * @author Griefed
+     * @param percentile Double. Percentile between <code>0</code> and <code>1</code>.
+     */
+    public void setHedgePercentile(double percentile) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("The percentile must be within (0, 1].");
+        }
+        this.hedgePercentile = percentile;
+    }
+
+    /**
+     * Set how long to wait for a source before asking the next one, as long as too few refreshes of the source were
+     * measured to know its latency. Defaults to two seconds.
+     * @author Griefed
+     * @param delay {@link Duration} How long to wait.
+     */
+    public void setHedgeDelay(@NotNull Duration delay) {
+        this.hedgeDelay = delay;
+    }
+
+    /**
+     * Get the circuit breaker of the given source.
+     * @author Griefed
+     * @param source {@link VersionChecker} One of the sources of this checker.
+     * @return {@link CircuitBreaker} of the given source, wrapped in an {@link Optional}. Empty if it is not a source of
+     * this checker.
+     */
+    public Optional<CircuitBreaker> getCircuitBreaker(@NotNull VersionChecker source) {
+        for (Mirror candidate : SOURCES) {
+            if (candidate.CHECKER == source) {
+                return Optional.of(candidate.BREAKER);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get the source which won the most recent refresh, and which therefore serves versions, updates and URLs.
+     * @author Griefed
+     * @return {@link VersionChecker} The active source.
+     */
+    public VersionChecker getActiveSource() {
+        return active.CHECKER;
+    }
+
+    /**
+     * Refresh the sources of this checker until one of them succeeds.
+     * @author Griefed
+     * @throws IOException Exception thrown if every source failed or is unavailable.
+     * @return This instance.
+     */
+    @Override
+    public MirroredChecker refresh() throws IOException {
+        setRepository();
+        setAllVersions();
+
+        return this;
+    }
+
+    /**
+     * Refresh the sources of this checker incrementally until one of them succeeds.
+     * @author Griefed
+     * @throws IOException Exception thrown if every source failed or is unavailable.
+     * @return This instance.
+     */
+    @Override
+    public MirroredChecker refreshIncrementally() throws IOException {
+        this.active = hedge(VersionChecker::refreshIncrementally);
+        setAllVersions();
+
+        return this;
+    }
+
+    /**
+     * Refresh the sources of this checker until one of them succeeds, and serve from the one which did.
+     * @author Griefed
+     * @throws IOException Exception thrown if every source failed or is unavailable.
+     */
+    @Override
+    protected void setRepository() throws IOException {
+        this.active = hedge(VersionChecker::refresh);
+    }
+
+    /**
+     * Run the given refresh on the available sources, hedging and failing over as described in {@link MirroredChecker}.
+     * @author Griefed
+     * @param refresh The refresh to run.
+     * @return {@link Mirror} which succeeded first.
+     * @throws IOException Thrown if every source failed or is unavailable.
+     */
+    private Mirror hedge(Refresh refresh) throws IOException {
+        CompletionService<Mirror> completion = new ExecutorCompletionService<>(EXECUTOR);
+        IOException failure = null;
+        int next = 0;
+        int launched = 0;
+        int finished = 0;
+
+        Mirror current = null;
+        while (next < SOURCES.size() && current == null) {
+            current = available(SOURCES.get(next++));
+        }
+        if (current == null) {
+            throw new IOException("Every source of " + getRepositoryName() + " is unavailable.");
+        }
+        launch(completion, current, refresh);
+        launched++;
+
+        try {
+            while (finished < launched) {
+                Future<Mirror> done;
+
+                if (next < SOURCES.size()) {
+                    done = completion.poll(current.hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        Mirror hedge = available(SOURCES.get(next++));
+                        if (hedge != null) {
+                            LOG.debug("Source {} is slow. Asking {} as well.", current.CHECKER.getHost(), hedge.CHECKER.getHost());
+                            launch(completion, hedge, refresh);
+                            launched++;
+                            current = hedge;
+                        }
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+                finished++;
+
+                try {
+                    return done.get();
+                } catch (ExecutionException ex) {
+                    if (failure == null) {
+                        failure = ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException(ex.getCause());
+                    } else {
+                        failure.addSuppressed(ex.getCause());
+                    }
+
+                    while (next < SOURCES.size()) {
+                        Mirror fallback = available(SOURCES.get(next++));
+                        if (fallback != null) {
+                            launch(completion, fallback, refresh);
+                            launched++;
+                            current = fallback;
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while refreshing " + getRepositoryName());
+        }
+
+        throw failure;
+    }
+
+    /**
+     * Check whether the circuit breaker of the given source lets a request through. Only call this right before
+     * refreshing the source, as a probing breaker lets exactly one request through.
+     * @author Griefed
+     * @param source {@link Mirror} The source to check.
+     * @return {@link Mirror} The given source, or <code>null</code> if it is unavailable.
+     */
+    private Mirror available(Mirror source) {
+        return source.BREAKER.allowRequest() ? source : null;
+    }
+
+    private void launch(CompletionService<Mirror> completion, Mirror source, Refresh refresh) {
+        Long deadline = DEADLINE.get();
+        completion.submit(() -> {
+            long started = System.nanoTime();
+            DEADLINE.set(deadline);
+            try {
+                refresh.run(source.CHECKER);
+            } catch (IOException | RuntimeException ex) {
+                // Like for hosts, a source which is unavailable or was cut short by the deadline is not at fault.
+                if (ex instanceof HostUnavailableException || isDeadlinePassed()) {
+                    source.BREAKER.recordAbandoned();
+                } else {
+                    source.BREAKER.recordFailure();
+                }
+                LOG.warn("Source {} of {} failed.", source.CHECKER.getHost(), getRepositoryName(), ex);
+                throw ex;
+            } finally {
+                DEADLINE.remove();
+            }
+            source.BREAKER.recordSuccess();
+            source.record(System.nanoTime() - started);
+            return source;
+        });
+    }
+
+    @Override
+    public Optional<Update> check(@NotNull String currentVersion, boolean checkForPreReleases) {
+        return prefetch(active.CHECKER.check(currentVersion, checkForPreReleases));
+    }
+
+    @Override
+    public List<String> allVersions() {
+        return active.CHECKER.allVersions();
+    }
+
+    @Override
+    public String latestVersion(boolean checkForPreRelease) {
+        return active.CHECKER.latestVersion(checkForPreRelease);
+    }
+
+    @Override
+    public String getDownloadUrl(@NotNull String version) {
+        return active.CHECKER.getDownloadUrl(version);
+    }
+
+    @Deprecated
+    @Override
+    public List<String> getAssetsDownloadUrls(@NotNull String version) {
+        return active.CHECKER.getAssetsDownloadUrls(version);
+    }
+
+    @Override
+    protected JsonNode getSnapshot() {
+        return active.CHECKER.getSnapshot();
+    }
+
+    /**
+     * Get the host of the active source.
+     * @author Griefed
+     * @return {@link String} Host of the active source.
+     */
+    @Override
+    public String getHost() {
+        return active.CHECKER.getHost();
+    }
+
+    /**
+     * Get the repository name of the preferred source.
+     * @author Griefed
+     * @return {@link String} Repository name of the preferred source.
+     */
+    @Override
+    public String getRepositoryName() {
+        return SOURCES.get(0).CHECKER.getRepositoryName();
+    }
+
+    private static List<VersionChecker> sources(VersionChecker primary, VersionChecker... secondaries) {
+        List<VersionChecker> sources = new ArrayList<>(secondaries.length + 1);
+        sources.add(primary);
+        sources.addAll(Arrays.asList(secondaries));
+        return sources;
+    }
+
+    /**
+     * A refresh of a single source.
+     * @author Griefed
+     */
+    private interface Refresh {
+        void run(VersionChecker checker) throws IOException;
+    }
+
+    /**
+     * A source, its circuit breaker and its recent refresh latencies.
+     * @author Griefed
+     */
+    private class Mirror {
+
+        private final VersionChecker CHECKER;
+        private final CircuitBreaker BREAKER = new CircuitBreaker(3, Duration.ofSeconds(30));
+        private final long[] LATENCIES = new long[LATENCY_SAMPLES];
+        private int samples = 0;
+
+        private Mirror(VersionChecker checker) {
+            this.CHECKER = checker;
+        }
+
+        private synchronized void record(long latencyNanos) {
+            LATENCIES[samples++ % LATENCY_SAMPLES] = latencyNanos;
+        }
+
+        private synchronized long hedgeDelayNanos() {
+            int count = Math.min(samples, LATENCY_SAMPLES);
+            if (count < MIN_LATENCY_SAMPLES) {
+                return hedgeDelay.toNanos();
+            }
+
+            long[] sorted = Arrays.copyOf(LATENCIES, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(hedgePercentile * count) - 1)];
+        }
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls any number of checkers, each on its own interval, learned from how often its repository releases.<br>
+ * The interval of a checker is the average time between its recent releases, divided by {@link #POLLS_PER_RELEASE} and
+ * kept within the given bounds. Repositories which have been quiet for longer than their average are polled as if the
+ * quiet time was their average, so abandoned repositories drift towards the maximum interval. Checkers without enough
+ * releases to learn from are polled at the geometric mean of the bounds, for example hourly with bounds of five minutes
+ * and twelve hours, as the bounds usually lie orders of magnitude apart.<br>
+ * Every poll is a {@link VersionChecker#refreshIfChanged()}, which costs a single request unless the newest release
+ * changed, and the budget is therefore counted in polls. Intervals are recalculated after every poll, so releases
+ * observed while polling immediately shorten the interval of their repository. Polls are jittered by ten percent and
+ * the first poll of every checker happens at a random point within its interval, so polls spread out instead of
+ * happening in bursts.
+ * Should the intervals of all checkers add up to more polls per hour than the given budget, all intervals are stretched
+ * evenly, and a token bucket guarantees the budget is never exceeded.
+ * @author Griefed
+ */
+public class PollingScheduler implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(PollingScheduler.class);
+
+    /**
+     * How often a repository is polled within the average time between two of its releases.
+     */
+    static final int POLLS_PER_RELEASE = 12;
+
+    /**
+     * How many of the newest releases are used to learn the release cadence of a repository.
+     */
+    static final int HISTORY = 10;
+
+    private static final double JITTER = 0.1;
+
+    private final Duration MIN_INTERVAL;
+    private final Duration MAX_INTERVAL;
+    private final int REQUESTS_PER_HOUR;
+    private final ScheduledExecutorService EXECUTOR;
+    private final Map<VersionChecker, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    private double tokens;
+    private long refilled = System.nanoTime();
+
+    /**
+     * Create a new scheduler. Checkers are polled on a single thread.
+     * @author Griefed
+     * @param minInterval {@link Duration} Shortest interval any checker is polled at.
+     * @param maxInterval {@link Duration} Longest interval any checker is polled at.
+     * @param requestsPerHour Integer. Maximum amount of polls per hour, across all checkers.
+     */
+    public PollingScheduler(@NotNull Duration minInterval, @NotNull Duration maxInterval, int requestsPerHour) {
+        this(minInterval, maxInterval, requestsPerHour, 1);
+    }
+
+    /**
+     * Create a new scheduler.
+     * @author Griefed
+     * @param minInterval {@link Duration} Shortest interval any checker is polled at.
+     * @param maxInterval {@link Duration} Longest interval any checker is polled at.
+     * @param requestsPerHour Integer. Maximum amount of polls per hour, across all checkers.
+     * @param threads Integer. Amount of threads to poll on.
+     */
+    public PollingScheduler(@NotNull Duration minInterval, @NotNull Duration maxInterval, int requestsPerHour, int threads) {
+        if (minInterval.isNegative() || minInterval.isZero() || maxInterval.compareTo(minInterval) < 0) {
+            throw new IllegalArgumentException("Intervals must be positive and the maximum must not be shorter than the minimum.");
+        }
+        if (requestsPerHour < 1) {
+            throw new IllegalArgumentException("At least one request per hour is required.");
+        }
+
+        this.MIN_INTERVAL = minInterval;
+        this.MAX_INTERVAL = maxInterval;
+        this.REQUESTS_PER_HOUR = requestsPerHour;
+        this.tokens = Math.max(1, requestsPerHour / 60);
+        this.EXECUTOR = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "VersionChecker-Polling");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start polling the given checker. Its first poll happens at a random point within its interval.
+     * @author Griefed
+     * @param checker {@link VersionChecker} The checker to poll.
+     * @return This scheduler.
+     */
+    public PollingScheduler schedule(@NotNull VersionChecker checker) {
+        Entry entry = new Entry(checker, interval(checker));
+        if (ENTRIES.putIfAbsent(checker, entry) == null) {
+            next(entry, (long) (ThreadLocalRandom.current().nextDouble() * stretched(entry.interval).toMillis()));
+        }
+        return this;
+    }
+
+    /**
+     * Stop polling the given checker.
+     * @author Griefed
+     * @param checker {@link VersionChecker} The checker to stop polling.
+     * @return This scheduler.
+     */
+    public PollingScheduler unschedule(@NotNull VersionChecker checker) {
+        Entry entry = ENTRIES.remove(checker);
+        if (entry != null && entry.future != null) {
+            entry.future.cancel(false);
+        }
+        return this;
+    }
+
+    /**
+     * Get the interval the given checker is currently polled at, before the budget is applied.
+     * @author Griefed
+     * @param checker {@link VersionChecker} The checker to get the interval of.
+     * @return {@link Duration} The interval, wrapped in an {@link Optional}. Empty if the checker is not scheduled.
+     */
+    public Optional<Duration> getInterval(@NotNull VersionChecker checker) {
+        Entry entry = ENTRIES.get(checker);
+        return entry == null ? Optional.empty() : Optional.of(entry.interval);
+    }
+
+    /**
+     * Stop polling all checkers. Polls in progress are interrupted.
+     * @author Griefed
+     */
+    @Override
+    public void close() {
+        EXECUTOR.shutdownNow();
+        ENTRIES.clear();
+    }
+
+    private void poll(Entry entry) {
+        if (!ENTRIES.containsKey(entry.CHECKER)) {
+            return;
+        }
+
+        // Whatever happens, the checker has to be polled again, or it never is.
+        long delayMillis = MIN_INTERVAL.toMillis();
+        try {
+            long wait = acquire();
+            if (wait > 0) {
+                delayMillis = wait;
+                return;
+            }
+
+            try {
+                entry.CHECKER.refreshIfChanged();
+                entry.interval = interval(entry.CHECKER);
+            } catch (IOException | RuntimeException ex) {
+                LOG.error("Polling {} failed.", entry.CHECKER.getRepositoryName(), ex);
+                entry.interval = clamp(entry.interval.multipliedBy(2));
+            }
+
+            double jitter = 1 + (ThreadLocalRandom.current().nextDouble() * 2 - 1) * JITTER;
+            delayMillis = (long) (stretched(entry.interval).toMillis() * jitter);
+        } catch (RuntimeException ex) {
+            LOG.error("Scheduling the next poll of {} failed.", entry.CHECKER.getRepositoryName(), ex);
+        } finally {
+            next(entry, delayMillis);
+        }
+    }
+
+    private void next(Entry entry, long delayMillis) {
+        if (ENTRIES.get(entry.CHECKER) == entry && !EXECUTOR.isShutdown()) {
+            entry.future = EXECUTOR.schedule(() -> poll(entry), Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Take a token from the budget.
+     * @author Griefed
+     * @return Long. <code>0</code> if a token was taken, otherwise the milliseconds until the next token is available.
+     */
+    private synchronized long acquire() {
+        long now = System.nanoTime();
+        double perNano = REQUESTS_PER_HOUR / (double) TimeUnit.HOURS.toNanos(1);
+
+        tokens = Math.min(Math.max(1, REQUESTS_PER_HOUR / 60), tokens + (now - refilled) * perNano);
+        refilled = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / perNano / 1_000_000);
+    }
+
+    /**
+     * Stretch the given interval, should all checkers together exceed the budget.
+     * @author Griefed
+     * @param interval {@link Duration} Interval of a checker.
+     * @return {@link Duration} The interval with the budget applied.
+     */
+    private Duration stretched(Duration interval) {
+        double pollsPerHour = 0;
+        for (Entry entry : ENTRIES.values()) {
+            pollsPerHour += TimeUnit.HOURS.toMillis(1) / (double) Math.max(1, entry.interval.toMillis());
+        }
+
+        if (pollsPerHour <= REQUESTS_PER_HOUR) {
+            return interval;
+        }
+        return Duration.ofMillis((long) (interval.toMillis() * pollsPerHour / REQUESTS_PER_HOUR));
+    }
+
+    private Duration interval(VersionChecker checker) {
+        return interval(releaseDates(checker.getSnapshot()), Instant.now(), MIN_INTERVAL, MAX_INTERVAL);
+    }
+
+    private Duration clamp(Duration interval) {
+        return clamp(interval, MIN_INTERVAL, MAX_INTERVAL);
+    }
+
+    /**
+     * Calculate the interval to poll a repository at, from the dates of its releases.
+     * @author Griefed
+     * @param releaseDates List of release dates, newest-first.
+     * @param now {@link Instant} The current time.
+     * @param min {@link Duration} Shortest interval.
+     * @param max {@link Duration} Longest interval.
+     * @return {@link Duration} The interval to poll at.
+     */
+    static Duration interval(@NotNull List<Instant> releaseDates, @NotNull Instant now, @NotNull Duration min, @NotNull Duration max) {
+        if (releaseDates.size() < 2) {
+            return clamp(Duration.ofMillis((long) Math.sqrt((double) min.toMillis() * max.toMillis())), min, max);
+        }
+
+        int releases = Math.min(releaseDates.size(), HISTORY);
+        Duration span = Duration.between(releaseDates.get(releases - 1), releaseDates.get(0));
+        Duration cadence = span.dividedBy(releases - 1);
+
+        Duration quiet = Duration.between(releaseDates.get(0), now);
+        if (quiet.compareTo(cadence) > 0) {
+            cadence = quiet;
+        }
+
+        return clamp(cadence.dividedBy(POLLS_PER_RELEASE), min, max);
+    }
+
+    private static Duration clamp(Duration interval, Duration min, Duration max) {
+        if (interval.compareTo(min) < 0) {
+            return min;
+        }
+        if (interval.compareTo(max) > 0) {
+            return max;
+        }
+        return interval;
+    }
+
+    /**
+     * Read the release dates from a snapshot.
+     * @author Griefed
+     * @param snapshot {@link JsonNode} Snapshot of releases, newest-first. May be <code>null</code>.
+     * @return List of release dates, newest-first.
+     */
+    private static List<Instant> releaseDates(JsonNode snapshot) {
+        if (snapshot == null) {
+            return Collections.emptyList();
+        }
+
+        List<Instant> dates = new ArrayList<>(HISTORY);
+        for (JsonNode release : snapshot) {
+            String date = release.has("published_at") ? release.path("published_at").asText() : release.path("released_at").asText();
+            try {
+                dates.add(Instant.parse(date));
+            } catch (DateTimeParseException ex) {
+                continue;
+            }
+            if (dates.size() == HISTORY) {
+                break;
+            }
+        }
+
+        dates.sort(Collections.reverseOrder());
+        return dates;
+    }
+
+    /**
+     * A scheduled checker and its current interval.
+     * @author Griefed
+     */
+    private static class Entry {
+
+        private final VersionChecker CHECKER;
+        private volatile Duration interval;
+        private volatile ScheduledFuture<?> future;
+
+        private Entry(VersionChecker checker, Duration interval) {
+            this.CHECKER = checker;
+            this.interval = interval;
+        }
+    }
+}
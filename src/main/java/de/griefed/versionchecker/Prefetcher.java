@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads selected assets of an update in the background as soon as a check finds it, so applying the update does
+ * not wait for its download. Set it on a checker with {@link VersionChecker#setPrefetcher(Prefetcher)}.<br>
+ * Assets are downloaded one at a time, on a thread of minimal priority, limited by a {@link BandwidthLimiter}, to
+ * <code>{directory}/{version}/{asset}</code>. Downloads are verified like those of
+ * {@link Downloader#download(Update, ReleaseAsset, Path)}. Once an asset is complete, it is available from
+ * {@link Update#getStagedAsset(String)}. Failed downloads are retried with the next check which finds the update.
+ * @author Griefed
+ */
+public class Prefetcher implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(Prefetcher.class);
+
+    private final Path DIRECTORY;
+    private final Predicate<ReleaseAsset> SELECTOR;
+    private final Downloader DOWNLOADER;
+    private final ExecutorService EXECUTOR;
+    private final Map<URL, CompletableFuture<Path>> DOWNLOADS = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new prefetcher.
+     * @author Griefed
+     * @param directory {@link Path} Directory to stage assets in.
+     * @param selector {@link Predicate} Selects the assets to download.
+     * @param bytesPerSecond Long. Rate to limit downloads to, in bytes per second.
+     */
+    public Prefetcher(@NotNull Path directory, @NotNull Predicate<ReleaseAsset> selector, long bytesPerSecond) {
+        this(directory, selector, new BandwidthLimiter(bytesPerSecond));
+    }
+
+    /**
+     * Create a new prefetcher, sharing the given limiter with other transfers.
+     * @author Griefed
+     * @param directory {@link Path} Directory to stage assets in.
+     * @param selector {@link Predicate} Selects the assets to download.
+     * @param limiter {@link BandwidthLimiter} Limits the rate of downloads.
+     */
+    public Prefetcher(@NotNull Path directory, @NotNull Predicate<ReleaseAsset> selector, @NotNull BandwidthLimiter limiter) {
+        this.DIRECTORY = directory;
+        this.SELECTOR = selector;
+        this.DOWNLOADER = new Downloader(1, 8L * 1024 * 1024);
+        this.DOWNLOADER.setLimiter(limiter);
+        this.EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VersionChecker-Prefetch");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Select assets whose name matches the given pattern.
+     * @author Griefed
+     * @param pattern {@link Pattern} Pattern the whole name of an asset has to match.
+     * @return {@link Predicate} selecting the matching assets.
+     */
+    public static Predicate<ReleaseAsset> named(@NotNull Pattern pattern) {
+        return asset -> pattern.matcher(asset.name()).matches();
+    }
+
+    /**
+     * Download the selected assets of the given update, unless they are downloaded already. Called by checkers for
+     * every update they find.
+     * @author Griefed
+     * @param update {@link Update} The update to download assets of.
+     * @return {@link CompletableFuture} completing once every selected asset of the update is staged, or completing
+     * exceptionally if one of them failed.
+     */
+    public CompletableFuture<Void> prefetch(@NotNull Update update) {
+        if (!update.assets().isPresent()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<CompletableFuture<Path>> staged = new ArrayList<>();
+        for (ReleaseAsset asset : update.assets().get()) {
+            if (!SELECTOR.test(asset)) {
+                continue;
+            }
+
+            CompletableFuture<Path> download = DOWNLOADS.computeIfAbsent(asset.url(),
+                    url -> CompletableFuture.supplyAsync(() -> download(update, asset), EXECUTOR));
+
+            staged.add(download.thenApply(path -> {
+                update.stage(asset.name(), path);
+                return path;
+            }));
+        }
+
+        return CompletableFuture.allOf(staged.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Stop downloading. Running downloads are interrupted, and resumed by the next prefetcher staging to the same
+     * directory. Futures of downloads which did not finish are cancelled.
+     * @author Griefed
+     */
+    @Override
+    public void close() {
+        EXECUTOR.shutdownNow();
+        DOWNLOADER.close();
+
+        // Queued downloads never run now, so nothing else would complete their futures.
+        for (CompletableFuture<Path> download : DOWNLOADS.values()) {
+            download.cancel(false);
+        }
+        DOWNLOADS.clear();
+    }
+
+    private Path download(Update update, ReleaseAsset asset) {
+        try {
+            Path directory = Files.createDirectories(DIRECTORY.resolve(update.version().replaceAll("[^A-Za-z0-9._-]", "_")));
+            LOG.debug("Prefetching {} of {}.", asset.name(), update.version());
+            return DOWNLOADER.download(update, asset, directory);
+        } catch (IOException ex) {
+            LOG.warn("Prefetching {} of {} failed.", asset.name(), update.version(), ex);
+            // Forget the failure before it completes the future, so the next check finds nothing to wait for.
+            DOWNLOADS.remove(asset.url());
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
@@ -24,6 +24,7 @@
 package de.griefed.versionchecker;
 
 import java.net.URL;
+import java.util.Optional;
 
 /**
  * A release asset is usually some form of compiled program or library.
@@ -33,6 +34,7 @@ public class ReleaseAsset {
 
     private final String ASSET_NAME;
     private final URL ASSET_URL;
+    private final String SHA256;
 
     /**
      * Create a new release asset from an asset name and the {@link URL} to said asset download.
@@ -41,8 +43,21 @@ public class ReleaseAsset {
      * @param assetURL {@link URL} Asset download URL.
      */
     public ReleaseAsset(String assetName, URL assetURL) {
+        this(assetName, assetURL, null);
+    }
+
+    /**
+     * Create a new release asset from an asset name, the {@link URL} to said asset download and the SHA-256 digest of
+     * the asset, as reported by its host.
+     * @author Griefed
+     * @param assetName {@link String} Asset name.
+     * @param assetURL {@link URL} Asset download URL.
+     * @param sha256 {@link String} Hex-encoded SHA-256 digest of the asset, or <code>null</code> if it is unknown.
+     */
+    public ReleaseAsset(String assetName, URL assetURL, String sha256) {
         this.ASSET_NAME = assetName;
         this.ASSET_URL = assetURL;
+        this.SHA256 = sha256;
     }
 
     /**
@@ -62,4 +77,14 @@ public class ReleaseAsset {
     public URL url() {
         return ASSET_URL;
     }
+
+    /**
+     * Get the SHA-256 digest of this asset, as reported by its host. GitHub reports digests for assets uploaded since
+     * mid-2025.
+     * @author Griefed
+     * @return {@link String} Lower-case, hex-encoded SHA-256 digest of this asset, wrapped in an {@link Optional}.
+     */
+    public Optional<String> sha256() {
+        return Optional.ofNullable(SHA256);
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Changes between two consecutive release snapshots of a {@link VersionChecker}: releases which were added, removed
+ * or edited, as well as the latest regular, beta and alpha release before and after the change.
+ * @author Griefed
+ */
+public class ReleaseDiff {
+
+    /**
+     * Kinds of releases of which the latest one is tracked.
+     * @author Griefed
+     */
+    public enum Channel {
+        RELEASE, BETA, ALPHA
+    }
+
+    private final List<String> ADDED;
+    private final List<String> REMOVED;
+    private final List<String> EDITED;
+    private final Map<Channel, String> PREVIOUS_LATEST;
+    private final Map<Channel, String> LATEST;
+
+    /**
+     * Create a new diff.
+     * @author Griefed
+     * @param added List of tags of the releases which were added, newest-first.
+     * @param removed List of tags of the releases which were removed.
+     * @param edited List of tags of the releases which were edited.
+     * @param previousLatest Map of every channel to its latest release before the change. Missing if there was none.
+     * @param latest Map of every channel to its latest release after the change. Missing if there is none.
+     */
+    public ReleaseDiff(@NotNull List<String> added,
+                       @NotNull List<String> removed,
+                       @NotNull List<String> edited,
+                       @NotNull Map<Channel, String> previousLatest,
+                       @NotNull Map<Channel, String> latest) {
+
+        this.ADDED = Collections.unmodifiableList(added);
+        this.REMOVED = Collections.unmodifiableList(removed);
+        this.EDITED = Collections.unmodifiableList(edited);
+        this.PREVIOUS_LATEST = copy(previousLatest);
+        this.LATEST = copy(latest);
+    }
+
+    private static Map<Channel, String> copy(Map<Channel, String> latest) {
+        Map<Channel, String> copy = new EnumMap<>(Channel.class);
+        copy.putAll(latest);
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Get the tags of the releases which were added.
+     * @author Griefed
+     * @return List of tags of the added releases, newest-first.
+     */
+    public List<String> added() {
+        return ADDED;
+    }
+
+    /**
+     * Get the tags of the releases which were removed.
+     * @author Griefed
+     * @return List of tags of the removed releases.
+     */
+    public List<String> removed() {
+        return REMOVED;
+    }
+
+    /**
+     * Get the tags of the releases which were edited, for example by changing their description or assets.
+     * @author Griefed
+     * @return List of tags of the edited releases.
+     */
+    public List<String> edited() {
+        return EDITED;
+    }
+
+    /**
+     * Get the latest release of the given channel after the change.
+     * @author Griefed
+     * @param channel {@link Channel} The channel to get the latest release of.
+     * @return {@link String} Tag of the latest release of the given channel, wrapped in an {@link Optional}.
+     */
+    public Optional<String> latest(@NotNull Channel channel) {
+        return Optional.ofNullable(LATEST.get(channel));
+    }
+
+    /**
+     * Get the latest release of the given channel before the change.
+     * @author Griefed
+     * @param channel {@link Channel} The channel to get the previous latest release of.
+     * @return {@link String} Tag of the previous latest release of the given channel, wrapped in an {@link Optional}.
+     */
+    public Optional<String> previousLatest(@NotNull Channel channel) {
+        return Optional.ofNullable(PREVIOUS_LATEST.get(channel));
+    }
+
+    /**
+     * Check whether the latest release of the given channel changed.
+     * @author Griefed
+     * @param channel {@link Channel} The channel to check.
+     * @return Boolean. <code>true</code> if the latest release of the given channel changed.
+     */
+    public boolean isLatestChanged(@NotNull Channel channel) {
+        return !Objects.equals(PREVIOUS_LATEST.get(channel), LATEST.get(channel));
+    }
+
+    /**
+     * Check whether nothing changed at all.
+     * @author Griefed
+     * @return Boolean. <code>true</code> if no release was added, removed or edited, and no latest release changed.
+     */
+    public boolean isEmpty() {
+        return ADDED.isEmpty() && REMOVED.isEmpty() && EDITED.isEmpty() && PREVIOUS_LATEST.equals(LATEST);
+    }
+
+    @Override
+    public String toString() {
+        return "added=" + ADDED +
+                ", removed=" + REMOVED +
+                ", edited=" + EDITED +
+                ", previousLatest=" + PREVIOUS_LATEST +
+                ", latest=" + LATEST;
+    }
+}
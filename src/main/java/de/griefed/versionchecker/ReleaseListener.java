@@ -0,0 +1,44 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener for changes between two consecutive release snapshots of a {@link VersionChecker}. Only called if something
+ * actually changed, so polls which return the same data cost listeners nothing.
+ * @author Griefed
+ */
+@FunctionalInterface
+public interface ReleaseListener {
+
+    /**
+     * Called after the snapshot of the given checker changed. Called on the executor set with
+     * {@link VersionChecker#setListenerExecutor(java.util.concurrent.Executor)}.
+     * @author Griefed
+     * @param checker {@link VersionChecker} The checker whose snapshot changed.
+     * @param diff {@link ReleaseDiff} What changed.
+     */
+    void onChange(@NotNull VersionChecker checker, @NotNull ReleaseDiff diff);
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the releases of one component in a repository which publishes releases for several, and extracts the
+ * version from their tags. For example, the prefix <code>server-</code> selects <code>server-1.2.3</code> as version
+ * <code>1.2.3</code> and skips <code>client-4.5.6</code>.
+ * @author Griefed
+ */
+public final class TagFilter {
+
+    private final Pattern PATTERN;
+    private final String PREFIX;
+
+    private TagFilter(Pattern pattern, String prefix) {
+        this.PATTERN = pattern;
+        this.PREFIX = prefix;
+    }
+
+    /**
+     * Select tags starting with the given prefix. The version is the rest of the tag.
+     * @author Griefed
+     * @param prefix {@link String} Prefix of the tags to select.
+     * @return {@link TagFilter} for the given prefix.
+     */
+    public static TagFilter prefix(@NotNull String prefix) {
+        return new TagFilter(null, prefix);
+    }
+
+    /**
+     * Select tags matching the given pattern completely. The version is the first capturing group, or the whole tag if
+     * the pattern has none.
+     * @author Griefed
+     * @param pattern {@link Pattern} Pattern of the tags to select. For example <code>server/v(.+)</code>
+     * @return {@link TagFilter} for the given pattern.
+     */
+    public static TagFilter pattern(@NotNull Pattern pattern) {
+        return new TagFilter(pattern, null);
+    }
+
+    /**
+     * Get the version of the given tag.
+     * @author Griefed
+     * @param tag {@link String} The tag of a release.
+     * @return {@link String} The version, or <code>null</code> if the tag is not selected by this filter.
+     */
+    public String version(@NotNull String tag) {
+        if (PREFIX != null) {
+            return tag.startsWith(PREFIX) && tag.length() > PREFIX.length() ? tag.substring(PREFIX.length()) : null;
+        }
+
+        Matcher matcher = PATTERN.matcher(tag);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return matcher.groupCount() > 0 ? matcher.group(1) : tag;
+    }
+
+    @Override
+    public String toString() {
+        return PREFIX != null ? "prefix " + PREFIX : "pattern " + PATTERN.pattern();
+    }
+}
@@ -27,9 +27,12 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.net.URL;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An instance of Update contains information about the release which is considered an update to the version which was used
@@ -46,11 +49,12 @@ import java.util.Optional;
 public class Update {
 
     private final String VERSION;
-    private final String DESCRIPTION;
+    private final DeflatedText DESCRIPTION;
     private final URL LINK;
     private final LocalDate RELEASE_DATE;
     private final List<ReleaseAsset> ASSETS;
     private final List<Source> SOURCES;
+    private final Map<String, Path> STAGED = new ConcurrentHashMap<>();
 
     /**
      * Create a new Update-instance.
@@ -69,6 +73,16 @@ public class Update {
                   @Nullable List<ReleaseAsset> assets,
                   @NotNull List<Source> sources) {
 
+        this(version, description == null ? null : DeflatedText.plain(description), link, releaseDate, assets, sources);
+    }
+
+    private Update(@NotNull String version,
+                   @Nullable DeflatedText description,
+                   @NotNull URL link,
+                   @NotNull LocalDate releaseDate,
+                   @Nullable List<ReleaseAsset> assets,
+                   @NotNull List<Source> sources) {
+
         this.VERSION = version;
         this.DESCRIPTION = description;
         this.LINK = link;
@@ -77,6 +91,27 @@ public class Update {
         this.SOURCES = sources;
     }
 
+    /**
+     * Create a new Update-instance whose description is only inflated once {@link #description()} is called.
+     * @author Griefed
+     * @param version {@link String} The version of this update/release.
+     * @param description {@link DeflatedText} The description of this release/update.
+     * @param link {@link URL} The URL to this release for visiting it in your browser.
+     * @param releaseDate {@link LocalDate} The date at which this release was published/release.
+     * @param assets {@link ReleaseAsset}-list. Available release-assets for this update/release, if any.
+     * @param sources {@link Source}-list. Available source-archives for this update/release.
+     * @return {@link Update} The new instance.
+     */
+    static Update deflated(@NotNull String version,
+                           @Nullable DeflatedText description,
+                           @NotNull URL link,
+                           @NotNull LocalDate releaseDate,
+                           @Nullable List<ReleaseAsset> assets,
+                           @NotNull List<Source> sources) {
+
+        return new Update(version, description, link, releaseDate, assets, sources);
+    }
+
     /**
      * Get the version of this update/release.
      * @author Griefed
@@ -92,7 +127,7 @@ public class Update {
      * @return {@link String} The description of this update/release, wrapped in an {@link Optional}.
      */
     public Optional<String> description() {
-        return Optional.ofNullable(DESCRIPTION);
+        return DESCRIPTION == null ? Optional.empty() : Optional.ofNullable(DESCRIPTION.text());
     }
 
     /**
@@ -207,4 +242,26 @@ public class Update {
         }
         return Optional.empty();
     }
+
+    /**
+     * Get the local copy of the given asset, if a {@link Prefetcher} downloaded it in the background. Applying an update
+     * from its staged assets needs no further download.
+     * @author Griefed
+     * @param assetName {@link String} The name of the asset.
+     * @return {@link Path} of the completely downloaded asset, wrapped in an {@link Optional}. Empty while the asset is
+     * not staged.
+     */
+    public Optional<Path> getStagedAsset(@NotNull String assetName) {
+        return Optional.ofNullable(STAGED.get(assetName));
+    }
+
+    /**
+     * Record the local copy of the given asset.
+     * @author Griefed
+     * @param assetName {@link String} The name of the asset.
+     * @param file {@link Path} The completely downloaded asset.
+     */
+    void stage(@NotNull String assetName, @NotNull Path file) {
+        STAGED.put(assetName, file);
+    }
 }
@@ -0,0 +1,820 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compact, versioned binary representation of an {@link Update}, for relaying update information to clients or storing
+ * it in a cache without mapping it to JSON first.<br>
+ * Layout of format version 2:<br>
+ * - 2 bytes magic <code>VC</code>, 1 byte format version, 1 byte flags.<br>
+ * - 4 bytes release date as epoch-day.<br>
+ * - Version, description and link, each as a varint-length prefixed UTF-8 string.<br>
+ * - Varint asset count, followed by name and URL of every asset. If any asset has a SHA-256 digest, every URL is
+ *   followed by one byte, <code>1</code> if 32 bytes of digest follow, <code>0</code> otherwise.<br>
+ * - Varint source count, followed by the {@link ArchiveType}-ordinal and URL of every source.<br>
+ * URLs after the link are front-coded against the previously written URL, as asset and source URLs of a release usually
+ * share most of their prefix with the release link. Version, release date, description and link sit at fixed or directly
+ * skippable positions, so they can be read from an encoded buffer without decoding the whole update.<br>
+ * Updates without asset digests are written in format version 1, which is identical apart from the digests, so older
+ * readers can still decode them.<br>
+ * Lengths and counts are checked before anything is allocated for them. In a buffer they may not exceed its remaining
+ * bytes, and strings read from a stream may not exceed 16 MiB, so corrupt data fails with an {@link IOException}
+ * instead of exhausting memory.
+ * @author Griefed
+ */
+public final class UpdateCodec {
+
+    /**
+     * The format version written by this codec.
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    private static final byte MAGIC_0 = 'V';
+    private static final byte MAGIC_1 = 'C';
+
+    private static final int FLAG_DESCRIPTION = 1;
+    private static final int FLAG_ASSETS = 1 << 1;
+    private static final int FLAG_RELEASE_DATE = 1 << 2;
+    private static final int FLAG_DIGESTS = 1 << 3;
+    private static final int DIGEST_SIZE = 32;
+
+    private static final int NO_ARCHIVE_TYPE = 0xFF;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_STREAMED_LENGTH = 16 * 1024 * 1024;
+
+    private static final ArchiveType[] ARCHIVE_TYPES = ArchiveType.values();
+
+    private UpdateCodec() {
+    }
+
+    /**
+     * Calculate the amount of bytes the given update occupies when encoded.
+     * @author Griefed
+     * @param update {@link Update} The update to measure.
+     * @return Integer. Size of the encoded update in bytes.
+     */
+    public static int encodedSize(@NotNull Update update) {
+        int size = HEADER_SIZE;
+
+        size += stringSize(update.version());
+        if (update.description().isPresent()) {
+            size += stringSize(update.description().get());
+        }
+
+        String previous = update.url().toString();
+        size += stringSize(previous);
+
+        if (update.assets().isPresent()) {
+            size += varIntSize(update.assets().get().size());
+            for (ReleaseAsset asset : update.assets().get()) {
+                size += stringSize(asset.name());
+                String url = asset.url().toString();
+                size += frontCodedSize(previous, url);
+                previous = url;
+            }
+            if (hasDigests(update)) {
+                for (ReleaseAsset asset : update.assets().get()) {
+                    size += 1 + (digest(asset) != null ? DIGEST_SIZE : 0);
+                }
+            }
+        }
+
+        size += varIntSize(update.sources().size());
+        for (Source source : update.sources()) {
+            String url = source.url().toString();
+            size += 1 + frontCodedSize(previous, url);
+            previous = url;
+        }
+
+        return size;
+    }
+
+    /**
+     * Encode the given update into a new byte-array of exactly the required size.
+     * @author Griefed
+     * @param update {@link Update} The update to encode.
+     * @return Byte-array containing the encoded update.
+     */
+    public static byte[] encode(@NotNull Update update) {
+        byte[] encoded = new byte[encodedSize(update)];
+        encode(update, ByteBuffer.wrap(encoded));
+        return encoded;
+    }
+
+    /**
+     * Encode the given update to the given {@link OutputStream}. The update is written in small chunks as it is encoded,
+     * so large descriptions are not held in memory a second time. The stream is neither flushed nor closed.
+     * @author Griefed
+     * @param update {@link Update} The update to encode.
+     * @param outputStream {@link OutputStream} The stream to write the encoded update to.
+     * @throws IOException Thrown if the update could not be written to the stream.
+     */
+    public static void encode(@NotNull Update update, @NotNull OutputStream outputStream) throws IOException {
+        StreamOutput output = new StreamOutput(outputStream);
+        try {
+            encode(update, output);
+            output.drain();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Encode the given update into the given {@link ByteBuffer}, starting at its current position. Afterwards, the position
+     * of the buffer is right behind the encoded update.
+     * @author Griefed
+     * @param update {@link Update} The update to encode.
+     * @param buffer {@link ByteBuffer} The buffer to write the encoded update to.
+     * @throws java.nio.BufferOverflowException Thrown if the buffer does not have {@link #encodedSize(Update)} bytes
+     * remaining.
+     */
+    public static void encode(@NotNull Update update, @NotNull ByteBuffer buffer) {
+        encode(update, new BufferOutput(buffer));
+    }
+
+    private static void encode(Update update, Output buffer) {
+        int flags = 0;
+        if (update.description().isPresent()) {
+            flags |= FLAG_DESCRIPTION;
+        }
+        if (update.assets().isPresent()) {
+            flags |= FLAG_ASSETS;
+        }
+        if (update.releaseDate() != null) {
+            flags |= FLAG_RELEASE_DATE;
+        }
+        boolean digests = hasDigests(update);
+        if (digests) {
+            flags |= FLAG_DIGESTS;
+        }
+
+        buffer.put(MAGIC_0);
+        buffer.put(MAGIC_1);
+        buffer.put((byte) (digests ? FORMAT_VERSION : 1));
+        buffer.put((byte) flags);
+        buffer.putInt(update.releaseDate() != null ? (int) update.releaseDate().toEpochDay() : 0);
+
+        putString(buffer, update.version());
+        if (update.description().isPresent()) {
+            putString(buffer, update.description().get());
+        }
+
+        String previous = update.url().toString();
+        putString(buffer, previous);
+
+        if (update.assets().isPresent()) {
+            putVarInt(buffer, update.assets().get().size());
+            for (ReleaseAsset asset : update.assets().get()) {
+                putString(buffer, asset.name());
+                String url = asset.url().toString();
+                putFrontCoded(buffer, previous, url);
+                previous = url;
+                if (digests) {
+                    putDigest(buffer, digest(asset));
+                }
+            }
+        }
+
+        putVarInt(buffer, update.sources().size());
+        for (Source source : update.sources()) {
+            buffer.put((byte) (source.type() != null ? source.type().ordinal() : NO_ARCHIVE_TYPE));
+            String url = source.url().toString();
+            putFrontCoded(buffer, previous, url);
+            previous = url;
+        }
+    }
+
+    /**
+     * Decode an update from the given {@link ByteBuffer}, starting at its current position. Afterwards, the position of
+     * the buffer is right behind the encoded update.
+     * @author Griefed
+     * @param buffer {@link ByteBuffer} The buffer containing an encoded update.
+     * @return The decoded {@link Update}.
+     * @throws IOException Thrown if the buffer does not contain an update in a supported format.
+     */
+    public static Update decode(@NotNull ByteBuffer buffer) throws IOException {
+        try {
+            int flags = readHeader(buffer);
+            int epochDay = buffer.getInt();
+
+            String version = getString(buffer);
+            String description = null;
+            if ((flags & FLAG_DESCRIPTION) != 0) {
+                description = getString(buffer);
+            }
+
+            String previous = getString(buffer);
+            URL link = new URL(previous);
+
+            List<ReleaseAsset> assets = null;
+            if ((flags & FLAG_ASSETS) != 0) {
+                int count = getLength(buffer);
+                assets = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String name = getString(buffer);
+                    previous = getFrontCoded(buffer, previous);
+                    String digest = (flags & FLAG_DIGESTS) != 0 ? getDigest(buffer) : null;
+                    assets.add(new ReleaseAsset(name, new URL(previous), digest));
+                }
+            }
+
+            int count = getLength(buffer);
+            List<Source> sources = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ArchiveType type = archiveType(buffer.get() & 0xFF);
+                previous = getFrontCoded(buffer, previous);
+                sources.add(new Source(type, new URL(previous)));
+            }
+
+            return new Update(
+                    version,
+                    description,
+                    link,
+                    (flags & FLAG_RELEASE_DATE) != 0 ? LocalDate.ofEpochDay(epochDay) : null,
+                    assets,
+                    sources
+            );
+
+        } catch (RuntimeException ex) {
+            throw corrupt(ex);
+        }
+    }
+
+    /**
+     * Decode an update from the given {@link InputStream}. Exactly the bytes of one encoded update are consumed, so
+     * several updates can be read from the same stream one after another.
+     * @author Griefed
+     * @param inputStream {@link InputStream} The stream containing an encoded update.
+     * @return The decoded {@link Update}.
+     * @throws IOException Thrown if the stream could not be read, ended prematurely, or does not contain an update in a
+     * supported format.
+     */
+    public static Update decode(@NotNull InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        ByteArrayBuilder record = new ByteArrayBuilder(256);
+
+        byte[] header = new byte[HEADER_SIZE];
+        input.readFully(header);
+        record.write(header, HEADER_SIZE);
+        int flags = readHeader(ByteBuffer.wrap(header));
+
+        copyString(input, record);
+        if ((flags & FLAG_DESCRIPTION) != 0) {
+            copyString(input, record);
+        }
+        copyString(input, record);
+
+        if ((flags & FLAG_ASSETS) != 0) {
+            int count = copyLength(input, record);
+            for (int i = 0; i < count; i++) {
+                copyString(input, record);
+                copyVarInt(input, record);
+                copyString(input, record);
+                if ((flags & FLAG_DIGESTS) != 0) {
+                    int present = input.readUnsignedByte();
+                    record.write(present);
+                    if (present != 0) {
+                        byte[] digest = new byte[DIGEST_SIZE];
+                        input.readFully(digest);
+                        record.write(digest, DIGEST_SIZE);
+                    }
+                }
+            }
+        }
+
+        int count = copyLength(input, record);
+        for (int i = 0; i < count; i++) {
+            record.write(input.readUnsignedByte());
+            copyVarInt(input, record);
+            copyString(input, record);
+        }
+
+        return decode(ByteBuffer.wrap(record.array(), 0, record.size()));
+    }
+
+    /**
+     * Read the version of an encoded update without decoding anything else. The position of the given buffer is not
+     * modified.
+     * @author Griefed
+     * @param buffer {@link ByteBuffer} The buffer containing an encoded update at its current position.
+     * @return {@link String} The version of the encoded update.
+     * @throws IOException Thrown if the buffer does not contain an update in a supported format.
+     */
+    public static String version(@NotNull ByteBuffer buffer) throws IOException {
+        try {
+            ByteBuffer view = buffer.duplicate();
+            readHeader(view);
+            view.position(view.position() + 4);
+            return getString(view);
+        } catch (RuntimeException ex) {
+            throw corrupt(ex);
+        }
+    }
+
+    /**
+     * Read the release date of an encoded update without decoding anything else. The position of the given buffer is not
+     * modified.
+     * @author Griefed
+     * @param buffer {@link ByteBuffer} The buffer containing an encoded update at its current position.
+     * @return {@link LocalDate} The release date of the encoded update, wrapped in an {@link Optional}.
+     * @throws IOException Thrown if the buffer does not contain an update in a supported format.
+     */
+    public static Optional<LocalDate> releaseDate(@NotNull ByteBuffer buffer) throws IOException {
+        try {
+            ByteBuffer view = buffer.duplicate();
+            int flags = readHeader(view);
+
+            if ((flags & FLAG_RELEASE_DATE) == 0) {
+                return Optional.empty();
+            }
+
+            return Optional.of(LocalDate.ofEpochDay(view.getInt()));
+        } catch (RuntimeException ex) {
+            throw corrupt(ex);
+        }
+    }
+
+    /**
+     * Get a read-only view of the UTF-8 bytes of the description of an encoded update. The bytes are not copied, the
+     * returned buffer shares its content with the given buffer. The position of the given buffer is not modified.
+     * @author Griefed
+     * @param buffer {@link ByteBuffer} The buffer containing an encoded update at its current position.
+     * @return {@link ByteBuffer} View of the UTF-8 encoded description, wrapped in an {@link Optional}.
+     * @throws IOException Thrown if the buffer does not contain an update in a supported format.
+     */
+    public static Optional<ByteBuffer> descriptionBytes(@NotNull ByteBuffer buffer) throws IOException {
+        try {
+            ByteBuffer view = buffer.duplicate();
+            int flags = readHeader(view);
+
+            if ((flags & FLAG_DESCRIPTION) == 0) {
+                return Optional.empty();
+            }
+
+            view.position(view.position() + 4);
+            skipString(view);
+
+            int length = getLength(view);
+            view.limit(view.position() + length);
+            return Optional.of(view.slice().asReadOnlyBuffer());
+        } catch (RuntimeException ex) {
+            throw corrupt(ex);
+        }
+    }
+
+    /**
+     * Read the link of an encoded update without decoding anything else. The position of the given buffer is not modified.
+     * @author Griefed
+     * @param buffer {@link ByteBuffer} The buffer containing an encoded update at its current position.
+     * @return {@link URL} The link to the release of the encoded update.
+     * @throws IOException Thrown if the buffer does not contain an update in a supported format, or if the link is not
+     * a valid URL.
+     */
+    public static URL link(@NotNull ByteBuffer buffer) throws IOException {
+        try {
+            ByteBuffer view = buffer.duplicate();
+            int flags = readHeader(view);
+
+            view.position(view.position() + 4);
+            skipString(view);
+            if ((flags & FLAG_DESCRIPTION) != 0) {
+                skipString(view);
+            }
+
+            return new URL(getString(view));
+        } catch (RuntimeException ex) {
+            throw corrupt(ex);
+        }
+    }
+
+    /**
+     * Validate the header at the current position of the given buffer and move past magic, format version and flags.
+     * @author Griefed
+     * @param buffer {@link ByteBuffer} The buffer containing an encoded update.
+     * @return Integer. The flags of the encoded update.
+     * @throws IOException Thrown if the magic or the format version do not match.
+     */
+    private static int readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.get() != MAGIC_0 || buffer.get() != MAGIC_1) {
+            throw new IOException("Buffer does not contain an encoded update.");
+        }
+
+        int formatVersion = buffer.get() & 0xFF;
+        if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+            throw new IOException("Unsupported update format version " + formatVersion);
+        }
+
+        return buffer.get() & 0xFF;
+    }
+
+    private static IOException corrupt(RuntimeException ex) {
+        return new IOException("Encoded update is truncated or corrupt.", ex);
+    }
+
+    private static boolean hasDigests(Update update) {
+        if (update.assets().isPresent()) {
+            for (ReleaseAsset asset : update.assets().get()) {
+                if (digest(asset) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String digest(ReleaseAsset asset) {
+        String digest = asset.sha256().orElse(null);
+        return digest != null && digest.matches("[0-9a-fA-F]{" + DIGEST_SIZE * 2 + "}") ? digest : null;
+    }
+
+    private static void putDigest(Output buffer, String digest) {
+        if (digest == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        buffer.put((byte) 1);
+        for (int i = 0; i < DIGEST_SIZE; i++) {
+            buffer.put((byte) Integer.parseInt(digest.substring(i * 2, i * 2 + 2), 16));
+        }
+    }
+
+    private static String getDigest(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        StringBuilder digest = new StringBuilder(DIGEST_SIZE * 2);
+        for (int i = 0; i < DIGEST_SIZE; i++) {
+            digest.append(String.format("%02x", buffer.get() & 0xFF));
+        }
+        return digest.toString();
+    }
+
+    private static ArchiveType archiveType(int ordinal) throws IOException {
+        if (ordinal == NO_ARCHIVE_TYPE) {
+            return null;
+        }
+        if (ordinal >= ARCHIVE_TYPES.length) {
+            throw new IOException("Unknown archive type " + ordinal);
+        }
+        return ARCHIVE_TYPES[ordinal];
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarInt(Output buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint.");
+    }
+
+    /**
+     * Read a length or count, which can never exceed the bytes remaining in the buffer.
+     * @author Griefed
+     * @param buffer {@link ByteBuffer} The buffer to read from.
+     * @return Integer. The length or count.
+     * @throws IOException Thrown if the value is negative or larger than the remaining bytes.
+     */
+    private static int getLength(ByteBuffer buffer) throws IOException {
+        int length = getVarInt(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Length " + Integer.toUnsignedString(length) + " exceeds the remaining " + buffer.remaining() + " bytes.");
+        }
+        return length;
+    }
+
+    /**
+     * Calculate the UTF-8 length of the given characters without encoding them.
+     * @author Griefed
+     * @param value {@link String} The string to measure.
+     * @param from Integer. Index of the first character to measure.
+     * @return Integer. Amount of bytes the characters occupy when encoded as UTF-8.
+     */
+    private static int utf8Length(String value, int from) {
+        int length = 0;
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int stringSize(String value) {
+        int length = utf8Length(value, 0);
+        return varIntSize(length) + length;
+    }
+
+    private static void putString(Output buffer, String value) {
+        putUtf8(buffer, value, 0);
+    }
+
+    /**
+     * Write the characters of the given string, starting at <code>from</code>, as a varint-length prefixed UTF-8 string.
+     * Unpaired surrogates are written as <code>?</code>, just like {@link String#getBytes(java.nio.charset.Charset)} does.
+     * @author Griefed
+     * @param buffer {@link Output} The output to write to.
+     * @param value {@link String} The string to write.
+     * @param from Integer. Index of the first character to write.
+     */
+    private static void putUtf8(Output buffer, String value, int from) {
+        putVarInt(buffer, utf8Length(value, from));
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) throws IOException {
+        int length = getLength(buffer);
+        String value;
+
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return value;
+    }
+
+    private static void skipString(ByteBuffer buffer) throws IOException {
+        int length = getLength(buffer);
+        buffer.position(buffer.position() + length);
+    }
+
+    private static int sharedPrefix(String previous, String current) {
+        int max = Math.min(previous.length(), current.length());
+        int shared = 0;
+        while (shared < max && previous.charAt(shared) == current.charAt(shared)) {
+            shared++;
+        }
+        // Never split a surrogate pair between prefix and suffix.
+        if (shared > 0 && Character.isHighSurrogate(current.charAt(shared - 1))) {
+            shared--;
+        }
+        return shared;
+    }
+
+    private static int frontCodedSize(String previous, String current) {
+        int shared = sharedPrefix(previous, current);
+        int length = utf8Length(current, shared);
+        return varIntSize(shared) + varIntSize(length) + length;
+    }
+
+    private static void putFrontCoded(Output buffer, String previous, String current) {
+        int shared = sharedPrefix(previous, current);
+        putVarInt(buffer, shared);
+        putUtf8(buffer, current, shared);
+    }
+
+    private static String getFrontCoded(ByteBuffer buffer, String previous) throws IOException {
+        int shared = getVarInt(buffer);
+        if (shared < 0 || shared > previous.length()) {
+            throw new IOException("Front-coded prefix exceeds previous value.");
+        }
+        return previous.substring(0, shared).concat(getString(buffer));
+    }
+
+    private static int copyVarInt(DataInputStream input, ByteArrayBuilder record) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = input.readUnsignedByte();
+            record.write(b);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint.");
+    }
+
+    /**
+     * Copy a length or count, which may neither be negative nor exceed 16 MiB, as the bytes it announces are
+     * allocated before they are read.
+     * @author Griefed
+     * @param input {@link DataInputStream} The stream to read from.
+     * @param record {@link ByteArrayBuilder} The record to copy to.
+     * @return Integer. The length or count.
+     * @throws IOException Thrown if the stream ended or the value is negative or too large.
+     */
+    private static int copyLength(DataInputStream input, ByteArrayBuilder record) throws IOException {
+        int length = copyVarInt(input, record);
+        if (length < 0 || length > MAX_STREAMED_LENGTH) {
+            throw new IOException("Length " + Integer.toUnsignedString(length) + " exceeds " + MAX_STREAMED_LENGTH + " bytes.");
+        }
+        return length;
+    }
+
+    private static void copyString(DataInputStream input, ByteArrayBuilder record) throws IOException {
+        int length = copyLength(input, record);
+        record.ensureCapacity(length);
+        input.readFully(record.array(), record.size(), length);
+        record.skip(length);
+    }
+
+    /**
+     * Destination of an update being encoded.
+     * @author Griefed
+     */
+    private interface Output {
+
+        void put(byte b);
+
+        void putInt(int value);
+    }
+
+    /**
+     * Writes an encoded update into a {@link ByteBuffer}.
+     * @author Griefed
+     */
+    private static final class BufferOutput implements Output {
+
+        private final ByteBuffer BUFFER;
+
+        private BufferOutput(ByteBuffer buffer) {
+            this.BUFFER = buffer;
+        }
+
+        @Override
+        public void put(byte b) {
+            BUFFER.put(b);
+        }
+
+        @Override
+        public void putInt(int value) {
+            BUFFER.putInt(value);
+        }
+    }
+
+    /**
+     * Writes an encoded update to an {@link OutputStream} in chunks. Failures to write are thrown as
+     * {@link UncheckedIOException}, as encoding into a buffer can not fail that way.
+     * @author Griefed
+     */
+    private static final class StreamOutput implements Output {
+
+        private final OutputStream OUTPUT_STREAM;
+        private final byte[] CHUNK = new byte[4096];
+        private int size = 0;
+
+        private StreamOutput(OutputStream outputStream) {
+            this.OUTPUT_STREAM = outputStream;
+        }
+
+        @Override
+        public void put(byte b) {
+            if (size == CHUNK.length) {
+                drain();
+            }
+            CHUNK[size++] = b;
+        }
+
+        @Override
+        public void putInt(int value) {
+            put((byte) (value >>> 24));
+            put((byte) (value >>> 16));
+            put((byte) (value >>> 8));
+            put((byte) value);
+        }
+
+        private void drain() {
+            try {
+                OUTPUT_STREAM.write(CHUNK, 0, size);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Minimal growable byte-array which, unlike {@link java.io.ByteArrayOutputStream}, exposes its backing array so an
+     * encoded update read from a stream can be decoded without copying it once more.
+     * @author Griefed
+     */
+    private static final class ByteArrayBuilder {
+
+        private byte[] bytes;
+        private int size = 0;
+
+        private ByteArrayBuilder(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, size + additional)];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+        }
+
+        private void write(int b) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) b;
+        }
+
+        private void write(byte[] source, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, 0, bytes, size, length);
+            size += length;
+        }
+
+        private void skip(int length) {
+            size += length;
+        }
+
+        private byte[] array() {
+            return bytes;
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+}
@@ -23,19 +23,40 @@
  */
 package de.griefed.versionchecker;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.jetbrains.annotations.NotNull;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Baseclass from wich GitHub and GitLab checks extend. This class mainly provides the logic for comparing versions against
@@ -47,7 +68,40 @@ public abstract class VersionChecker {
 
     private static final Logger LOG = LogManager.getLogger(VersionChecker.class);
 
+    /**
+     * Amount of releases requested per page during incremental refreshes. Usually only the first page is required.
+     */
+    protected static final int INCREMENTAL_PAGE_SIZE = 10;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+
+    /**
+     * Deadline of the refresh the current thread is doing, in {@link System#nanoTime()}, or <code>null</code> if there is
+     * none.
+     */
+    static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private static final Map<String, CircuitBreaker> CIRCUIT_BREAKERS = new ConcurrentHashMap<>();
+    private static final int CIRCUIT_BREAKER_THRESHOLD = 5;
+    private static final Duration CIRCUIT_BREAKER_DURATION = Duration.ofSeconds(30);
+
+    private final Map<String, String> ETAGS = new ConcurrentHashMap<>();
+
     private List<String> allVersions;
+    private volatile VersionCheckerMetrics metrics = VersionCheckerMetrics.NOOP;
+    private volatile Duration connectTimeout = Duration.ofSeconds(10);
+    private volatile Duration readTimeout = Duration.ofSeconds(30);
+    private final List<ReleaseListener> LISTENERS = new CopyOnWriteArrayList<>();
+    private volatile Executor listenerExecutor = Runnable::run;
+    private volatile Runnable snapshotObserver;
+    private JsonNode observedSnapshot;
+    private volatile TagFilter tagFilter;
+    private volatile Prefetcher prefetcher;
+    private JsonNode previousSnapshot;
+    private Map<String, Integer> evictedFingerprints;
+    private Map<ReleaseDiff.Channel, String> previousLatest = new EnumMap<>(ReleaseDiff.Channel.class);
 
     /**
      * Check whether an update/newer version is available for the given version. If you want to check for PreReleases, too,
@@ -63,7 +117,7 @@ public abstract class VersionChecker {
      */
     public String checkForUpdate(@NotNull String currentVersion, boolean checkForPreReleases) {
 
-        LOG.debug("Current version: " + currentVersion);
+        LOG.debug("Current version: {}", currentVersion);
 
         try {
 
@@ -131,10 +185,6 @@ public abstract class VersionChecker {
      */
     protected boolean compareSemantics(@NotNull String currentVersion, @NotNull String newVersion, @NotNull Comparison comparison) {
 
-        LOG.debug("Current version: " + currentVersion);
-        LOG.debug("New version:     " + newVersion);
-        LOG.debug("Comparison:      " + comparison);
-
         if (newVersion.equals("no_release")) {
             return false;
         }
@@ -164,7 +214,7 @@ public abstract class VersionChecker {
                 return checkNewOrEqual(newMajor,newMinor,newPatch,currentMajor,currentMinor,currentPatch);
 
             default:
-                LOG.error("Incorrect comparison type selected: " + comparison);
+                LOG.error("Incorrect comparison type selected: {}", comparison);
                 return false;
 
         }
@@ -419,7 +469,7 @@ public abstract class VersionChecker {
 
         }
 
-        LOG.debug("Latest beta: " + beta);
+        LOG.debug("Latest beta: {}", beta);
 
         return beta;
     }
@@ -448,7 +498,7 @@ public abstract class VersionChecker {
 
         }
 
-        LOG.debug("Latest alpha: " + alpha);
+        LOG.debug("Latest alpha: {}", alpha);
 
         return alpha;
     }
@@ -461,41 +511,1062 @@ public abstract class VersionChecker {
      * @throws IOException Thrown if the requested URL can not be reached or if any other error occurs during the request.
      */
     protected String getResponse(@NotNull URL requestUrl) throws IOException {
-        HttpURLConnection httpURLConnection = (HttpURLConnection) requestUrl.openConnection();
-        httpURLConnection.setRequestMethod("GET");
+        return getResponse(requestUrl, false).get();
+    }
+
+    /**
+     * Acquire the response from a given URL. If <code>revalidate</code> is <code>true</code> and a previous response
+     * from the same URL carried an <code>ETag</code>, the request is made conditional. Should the host answer that nothing
+     * changed, no body is transferred and an empty {@link Optional} is returned, so the caller can keep what it parsed
+     * from the previous response.
+     * @author Griefed
+     * @param requestUrl {@link URL} The URL to get the response from.
+     * @param revalidate Boolean. Whether to revalidate against the previous response instead of requesting a new one.
+     * Only pass <code>true</code> if you still hold on to whatever you acquired from the previous response.
+     * @return The response from the given URL, wrapped in an {@link Optional}. Empty if the previous response is still
+     * up-to-date.
+     * @throws IOException Thrown if the requested URL can not be reached or if any other error occurs during the request.
+     */
+    protected Optional<String> getResponse(@NotNull URL requestUrl, boolean revalidate) throws IOException {
+        return getApiResponse(requestUrl, revalidate).map(ApiResponse::body);
+    }
+
+    /**
+     * Acquire the response, including its headers, from a given URL. Behaves like {@link #getResponse(URL, boolean)}.
+     * @author Griefed
+     * @param requestUrl {@link URL} The URL to get the response from.
+     * @param revalidate Boolean. Whether to revalidate against the previous response instead of requesting a new one.
+     * Only pass <code>true</code> if you still hold on to whatever you acquired from the previous response.
+     * @return {@link ApiResponse} from the given URL, wrapped in an {@link Optional}. Empty if the previous response is
+     * still up-to-date.
+     * @throws IOException Thrown if the requested URL can not be reached or if any other error occurs during the request.
+     */
+    protected Optional<ApiResponse> getApiResponse(@NotNull URL requestUrl, boolean revalidate) throws IOException {
+        String url = requestUrl.toString();
+        String etag = revalidate ? ETAGS.get(url) : null;
 
-        if (httpURLConnection.getResponseCode() != 200)
-            throw new IOException("Request for " + requestUrl + " responded with " + httpURLConnection.getResponseCode());
+        // A passed deadline is the fault of the caller, so it must neither reach nor trip the breaker of the host.
+        int connectMillis = timeoutMillis(connectTimeout, requestUrl);
+        int readMillis = timeoutMillis(readTimeout, requestUrl);
 
-        BufferedReader bufferedReader = new BufferedReader(
-                new InputStreamReader(httpURLConnection.getInputStream())
-        );
+        CircuitBreaker circuitBreaker = getCircuitBreaker(requestUrl);
+        if (!circuitBreaker.allowRequest()) {
+            throw new HostUnavailableException(requestUrl.getAuthority());
+        }
+
+        long started = System.nanoTime();
+        int status = -1;
+        long bytes = 0;
+        boolean healthy = false;
+        boolean deadlinePassed = false;
+
+        try {
+            HttpURLConnection httpURLConnection = (HttpURLConnection) requestUrl.openConnection();
+            httpURLConnection.setRequestMethod("GET");
+            httpURLConnection.setConnectTimeout(connectMillis);
+            httpURLConnection.setReadTimeout(readMillis);
+            if (etag != null) {
+                httpURLConnection.setRequestProperty("If-None-Match", etag);
+            }
+
+            status = httpURLConnection.getResponseCode();
+
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && etag != null) {
+                healthy = true;
+                metrics.cache(getHost(), getRepositoryName(), VersionCheckerMetrics.CacheResult.REVALIDATED);
+                return Optional.empty();
+            }
+
+            if (status != 200) {
+                healthy = status < 500;
+                throw new IOException("Request for " + requestUrl + " responded with " + status);
+            }
+
+            CountingInputStream inputStream = new CountingInputStream(httpURLConnection.getInputStream());
+            StringBuilder response = new StringBuilder();
+
+            try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    response.append(buffer, 0, read);
+                    timeoutMillis(readTimeout, requestUrl);
+                }
+            }
+
+            bytes = inputStream.count();
+
+            String newEtag = httpURLConnection.getHeaderField("ETag");
+            if (newEtag != null) {
+                ETAGS.put(url, newEtag);
+            } else {
+                ETAGS.remove(url);
+            }
+
+            if (revalidate) {
+                metrics.cache(getHost(), getRepositoryName(), VersionCheckerMetrics.CacheResult.MISS);
+            }
+
+            healthy = true;
+            return Optional.of(new ApiResponse(requestUrl, response.toString(), httpURLConnection.getHeaderFields()));
+
+        } catch (SocketTimeoutException ex) {
+            deadlinePassed = isDeadlinePassed();
+            throw ex;
+        } finally {
+            if (healthy) {
+                circuitBreaker.recordSuccess();
+            } else if (deadlinePassed) {
+                circuitBreaker.recordAbandoned();
+            } else {
+                circuitBreaker.recordFailure();
+            }
+            metrics.request(getHost(), getRepositoryName(), status, System.nanoTime() - started, bytes);
+        }
+    }
+
+    /**
+     * Get the timeout for the next step of a request, shortened to the deadline of the current refresh.
+     * @author Griefed
+     * @param timeout {@link Duration} Timeout of the step.
+     * @param requestUrl {@link URL} URL which is being requested.
+     * @return Integer. Timeout in milliseconds, at least <code>1</code>.
+     * @throws SocketTimeoutException Thrown if the deadline of the current refresh has passed.
+     */
+    private static int timeoutMillis(Duration timeout, URL requestUrl) throws SocketTimeoutException {
+        long millis = timeout.toMillis();
+
+        Long deadline = DEADLINE.get();
+        if (deadline != null) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new SocketTimeoutException("Deadline passed while requesting " + requestUrl);
+            }
+            millis = Math.min(millis, remaining);
+        }
+
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, millis));
+    }
+
+    /**
+     * Check whether the deadline of the current refresh has passed. A timeout once it has passed is caused by the
+     * deadline, not by the host.
+     * @author Griefed
+     * @return Boolean. <code>true</code> if there is a deadline and it has passed.
+     */
+    static boolean isDeadlinePassed() {
+        Long deadline = DEADLINE.get();
+        return deadline != null && deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Get the circuit breaker of the host of the given URL. Breakers are shared by all checkers requesting the same
+     * host and port. They open after five consecutive failed requests, where only errors, timeouts and 5xx responses
+     * count as failures, and let a single request probe the host after thirty seconds. Requests cut short by the
+     * deadline of a {@link #refresh(Duration)} are not counted, and a probe cut short lets the next request probe again.
+     * @author Griefed
+     * @param url {@link URL} A URL of the host.
+     * @return {@link CircuitBreaker} of the host.
+     */
+    public static CircuitBreaker getCircuitBreaker(@NotNull URL url) {
+        return CIRCUIT_BREAKERS.computeIfAbsent(url.getAuthority(),
+                host -> new CircuitBreaker(CIRCUIT_BREAKER_THRESHOLD, CIRCUIT_BREAKER_DURATION));
+    }
+
+    /**
+     * Replace the circuit breaker of the host of the given URL, for example to probe it sooner.
+     * @author Griefed
+     * @param url {@link URL} A URL of the host.
+     * @param circuitBreaker {@link CircuitBreaker} The breaker to use for the host from now on.
+     */
+    static void setCircuitBreaker(@NotNull URL url, @NotNull CircuitBreaker circuitBreaker) {
+        CIRCUIT_BREAKERS.put(url.getAuthority(), circuitBreaker);
+    }
+
+    /**
+     * Set the timeouts of every request of this checker. Default to ten seconds to connect and thirty seconds between
+     * two reads. Deadlines given to {@link #refresh(Duration)} shorten them further.
+     * @author Griefed
+     * @param connect {@link Duration} Timeout to establish a connection.
+     * @param read {@link Duration} Timeout while waiting for data.
+     */
+    public void setTimeouts(@NotNull Duration connect, @NotNull Duration read) {
+        this.connectTimeout = connect;
+        this.readTimeout = read;
+    }
+
+    /**
+     * Refresh this instance, giving up once the given time has passed. The deadline applies to all requests of the
+     * refresh together, including every page.<br>
+     * Should the deadline pass, the host fail or its circuit breaker be open, the releases acquired by an earlier
+     * refresh are kept and the result is marked as stale. Without releases from an earlier refresh, the exception is
+     * thrown instead.
+     * @author Griefed
+     * @param timeout {@link Duration} Time the refresh may take.
+     * @return {@link FetchResult} containing this instance.
+     * @throws IOException Thrown if the refresh failed and there are no releases from an earlier refresh.
+     */
+    public FetchResult<VersionChecker> refresh(@NotNull Duration timeout) throws IOException {
+        Long outer = DEADLINE.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        DEADLINE.set(outer == null ? deadline : Math.min(outer, deadline));
+
+        try {
+            refresh();
+            return FetchResult.fresh(this);
+        } catch (IOException ex) {
+            if (getSnapshot() == null) {
+                throw ex;
+            }
+            LOG.warn("Refreshing {} failed, keeping the releases of the previous refresh.", getRepositoryName(), ex);
+            return FetchResult.stale(this, ex);
+        } finally {
+            if (outer == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Refresh this instance within the given time, as described in {@link #refresh(Duration)}, and check for an update.
+     * @author Griefed
+     * @param currentVersion String. The current version of the app.
+     * @param checkForPreReleases Boolean. Whether to check for PreReleases as well.
+     * @param timeout {@link Duration} Time the refresh may take.
+     * @return {@link FetchResult} containing the {@link Update}, wrapped in an {@link Optional}.
+     * @throws IOException Thrown if the refresh failed and there are no releases from an earlier refresh.
+     */
+    public FetchResult<Optional<Update>> check(@NotNull String currentVersion, boolean checkForPreReleases, @NotNull Duration timeout) throws IOException {
+        FetchResult<VersionChecker> refreshed = refresh(timeout);
+        Optional<Update> update = check(currentVersion, checkForPreReleases);
+
+        return refreshed.isStale() ? FetchResult.stale(update, refreshed.cause().get()) : FetchResult.fresh(update);
+    }
+
+    /**
+     * Parse a response containing a list of releases and report the time it took to the metrics of this checker.
+     * @author Griefed
+     * @param response {@link String} The response to parse.
+     * @return {@link JsonNode} containing the parsed releases.
+     * @throws IOException Thrown if the response is not valid JSON.
+     */
+    protected JsonNode readReleases(@NotNull String response) throws IOException {
+        long started = System.nanoTime();
+        TagFilter filter = tagFilter;
+
+        JsonNode releases;
+        if (filter == null) {
+            releases = getObjectMapper().readTree(response);
+            for (JsonNode release : releases) {
+                deflateDescription(release);
+            }
+        } else {
+            ArrayNode selected = getObjectMapper().createArrayNode();
+            try (JsonParser parser = getObjectMapper().getFactory().createParser(response)) {
+
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("Expected a list of releases of " + getRepositoryName());
+                }
+
+                JsonNode release;
+                while ((release = nextRelease(parser, response, filter)) != null) {
+                    selected.add(release);
+                }
+            }
+            releases = selected;
+        }
+
+        metrics.parse(getHost(), getRepositoryName(), System.nanoTime() - started, releases.size());
+        return releases;
+    }
+
+    /**
+     * Read the next release from the list of releases the given parser is positioned in. If a tag filter is set,
+     * releases whose tag it does not select are skipped without building a tree for them, and the tag of the returned
+     * release is replaced by its version.
+     * @author Griefed
+     * @param parser {@link JsonParser} Parser positioned inside a list of releases, created from the given response.
+     * @param response {@link String} The response the parser was created from.
+     * @param filter {@link TagFilter} The tag filter to apply, or <code>null</code>.
+     * @return {@link JsonNode} The next release, or <code>null</code> once the end of the list is reached.
+     * @throws IOException Thrown if the response is not valid JSON.
+     */
+    private JsonNode nextRelease(@NotNull JsonParser parser, @NotNull String response, TagFilter filter) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (filter == null) {
+                return deflateDescription(parser.readValueAsTree());
+            }
+
+            int start = (int) parser.getTokenLocation().getCharOffset();
+            String tag = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                if (tag == null && "tag_name".equals(field)) {
+                    tag = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (tag != null && filter.version(tag) != null) {
+                int end = (int) parser.getCurrentLocation().getCharOffset();
+                return filterRelease(getObjectMapper().readTree(response.substring(start, end)), filter);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Apply the tag filter of this checker to a single release. The tag of a selected release is replaced by its
+     * version, and the original tag is kept as <code>original_tag_name</code>. A long description is deflated, see
+     * {@link #getDescriptionField()}.
+     * @author Griefed
+     * @param release {@link JsonNode} The release to filter. Modified in place.
+     * @return {@link JsonNode} The given release, or <code>null</code> if the tag filter does not select it.
+     */
+    protected JsonNode filterRelease(@NotNull JsonNode release) {
+        return filterRelease(release, tagFilter);
+    }
 
-        String inputLine;
-        StringBuilder response = new StringBuilder();
+    private JsonNode filterRelease(@NotNull JsonNode release, TagFilter filter) {
+        deflateDescription(release);
+        if (filter == null) {
+            return release;
+        }
 
-        while ((inputLine = bufferedReader.readLine()) != null) {
-            response.append(inputLine);
+        String tag = release.path("tag_name").asText();
+        String version = filter.version(tag);
+        if (version == null || !(release instanceof ObjectNode)) {
+            return null;
         }
 
-        bufferedReader.close();
+        ((ObjectNode) release).put("original_tag_name", tag);
+        ((ObjectNode) release).put("tag_name", version);
+        return release;
+    }
 
-        return response.toString();
+    /**
+     * Get the name of the field which holds the description of a release, as returned by the API of this checker.
+     * Descriptions are often several kilobytes of Markdown, but only read for the release an {@link Update} is created
+     * for. Releases in the snapshot therefore keep a long description deflated, in a field of the same name with the
+     * suffix <code>_deflated</code>, and the {@link Update} only inflates it once its description is requested.
+     * @author Griefed
+     * @return {@link String} Name of the description field, or <code>null</code> if descriptions are kept as they are.
+     */
+    protected String getDescriptionField() {
+        return null;
     }
 
+    /**
+     * Deflate the description of the given release, if it is long enough to be worth it.
+     * @author Griefed
+     * @param release {@link JsonNode} The release. Modified in place.
+     * @return {@link JsonNode} The given release.
+     */
+    private JsonNode deflateDescription(JsonNode release) {
+        String field = getDescriptionField();
+        if (field == null || !(release instanceof ObjectNode)) {
+            return release;
+        }
+
+        JsonNode description = release.get(field);
+        if (description != null && description.isTextual() && description.textValue().length() >= DeflatedText.THRESHOLD) {
+            ((ObjectNode) release).remove(field);
+            ((ObjectNode) release).set(field + "_deflated", BinaryNode.valueOf(DeflatedText.deflate(description.textValue())));
+        }
+        return release;
+    }
+
+    /**
+     * Get the description of the given release from the snapshot of this checker, without inflating it.
+     * @author Griefed
+     * @param release {@link JsonNode} A release of the snapshot of this checker.
+     * @return {@link DeflatedText} The description of the release.
+     */
+    DeflatedText getDescription(@NotNull JsonNode release) {
+        String field = getDescriptionField();
+        JsonNode deflated = release.get(field + "_deflated");
+
+        if (deflated instanceof BinaryNode) {
+            return new DeflatedText(((BinaryNode) deflated).binaryValue());
+        }
+        return DeflatedText.plain(release.path(field).asText());
+    }
+
+    /**
+     * Acquire only the releases which are newer than the newest release of the given snapshot, and merge them into a new
+     * snapshot.<br>
+     * Releases are requested newest-first, in small pages. Reading stops at the first release whose tag is already part
+     * of the snapshot, and further pages are only requested if every release of the current page is new. If the host
+     * confirms the first page to be unchanged, nothing is downloaded or parsed at all.<br>
+     * Releases which were edited or deleted after they were added to the snapshot are not noticed. Do a full refresh
+     * from time to time if you need those changes. Should any page fail, the first page is requested completely next
+     * time.
+     * @author Griefed
+     * @param releasesUrl {@link URL} URL of the newest-first, paginated release list.
+     * @param snapshot {@link JsonNode} The current snapshot of releases, newest-first.
+     * @return {@link JsonNode} The new snapshot, or the given one if there are no new releases.
+     * @throws IOException Thrown if a page can not be acquired or parsed.
+     */
+    protected JsonNode getNewReleases(@NotNull URL releasesUrl, @NotNull JsonNode snapshot) throws IOException {
+        Set<String> known = new HashSet<>(snapshot.size() * 2);
+        for (JsonNode release : snapshot) {
+            known.add(release.path("tag_name").asText());
+        }
+
+        TagFilter filter = tagFilter;
+        List<JsonNode> newReleases = new ArrayList<>();
+        long parseNanos = 0;
+        boolean firstPage = true;
+        Optional<URL> page = Optional.of(withParameter(releasesUrl, "per_page", String.valueOf(INCREMENTAL_PAGE_SIZE)));
+
+        // The first page is only revalidated next time if every page was acquired, otherwise the releases on the pages
+        // which failed would be missed until the first page changes.
+        URL firstUrl = page.get();
+        try {
+            pages:
+            while (page.isPresent()) {
+                Optional<ApiResponse> response = getApiResponse(page.get(), firstPage);
+                if (!response.isPresent()) {
+                    break;
+                }
+                firstPage = false;
+
+                long started = System.nanoTime();
+                String body = response.get().body();
+                try (JsonParser parser = getObjectMapper().getFactory().createParser(body)) {
+
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        throw new IOException("Expected a list of releases from " + page.get());
+                    }
+
+                    JsonNode release;
+                    while ((release = nextRelease(parser, body, filter)) != null) {
+
+                        if (known.contains(release.path("tag_name").asText())) {
+                            parseNanos += System.nanoTime() - started;
+                            break pages;
+                        }
+
+                        newReleases.add(release);
+                    }
+                }
+                parseNanos += System.nanoTime() - started;
+
+                page = response.get().nextPage();
+            }
+        } catch (IOException | RuntimeException ex) {
+            forgetValidator(firstUrl);
+            throw ex;
+        }
+
+        metrics.parse(getHost(), getRepositoryName(), parseNanos, newReleases.size());
+
+        return mergeReleases(newReleases, snapshot);
+    }
+
+    /**
+     * Forget the validator of the previous response from the given URL, so the next request acquires a complete
+     * response instead of revalidating. Use this if whatever was acquired from the previous response was not kept.
+     * @author Griefed
+     * @param requestUrl {@link URL} The URL to forget the validator of.
+     */
+    protected void forgetValidator(@NotNull URL requestUrl) {
+        ETAGS.remove(requestUrl.toString());
+    }
+
+    /**
+     * Forget the validators of all previous responses, so the next requests acquire complete responses. Use this if
+     * nothing acquired during a refresh was kept, because part of it failed.
+     * @author Griefed
+     */
+    protected void forgetValidators() {
+        ETAGS.clear();
+    }
+
+    /**
+     * Create a new snapshot with the given new releases in front of the releases of the given snapshot. Nodes are not
+     * copied, both snapshots share them.
+     * @author Griefed
+     * @param newReleases List of new releases, newest-first.
+     * @param snapshot {@link JsonNode} The current snapshot of releases, newest-first. May be <code>null</code>.
+     * @return {@link JsonNode} The new snapshot, or the given one if there are no new releases.
+     */
+    protected JsonNode mergeReleases(@NotNull List<JsonNode> newReleases, JsonNode snapshot) {
+        if (newReleases.isEmpty() && snapshot != null) {
+            return snapshot;
+        }
+
+        LOG.debug("Found {} new releases.", newReleases.size());
+
+        ArrayNode merged = getObjectMapper().createArrayNode();
+        merged.addAll(newReleases);
+        if (snapshot != null) {
+            for (JsonNode release : snapshot) {
+                merged.add(release);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Create a new snapshot with the given release added, replaced or removed. A release replaces the release with the
+     * same tag at its position. A release which is not part of the snapshot yet is considered the newest one and added
+     * in front. Nodes are not copied, both snapshots share them.
+     * @author Griefed
+     * @param release {@link JsonNode} The release to add, replace or remove.
+     * @param remove Boolean. Whether to remove the release with the same tag instead.
+     * @param snapshot {@link JsonNode} The current snapshot of releases, newest-first.
+     * @return {@link JsonNode} The new snapshot.
+     */
+    protected JsonNode applyRelease(@NotNull JsonNode release, boolean remove, @NotNull JsonNode snapshot) {
+        String tag = release.path("tag_name").asText();
+        ArrayNode applied = getObjectMapper().createArrayNode();
+        boolean replaced = remove;
+
+        for (JsonNode existing : snapshot) {
+            if (existing.path("tag_name").asText().equals(tag)) {
+                if (!remove) {
+                    applied.add(release);
+                    replaced = true;
+                }
+            } else {
+                applied.add(existing);
+            }
+        }
+
+        if (!replaced) {
+            applied.insert(0, release);
+        }
+
+        LOG.debug("Applied release {} to snapshot of {}.", tag, getRepositoryName());
+        return applied;
+    }
+
+    /**
+     * Check whether the newest release of a repository differs from the newest release of the given snapshot, by
+     * requesting only a single release. The probe is revalidated via <code>ETag</code>, so unless something changed,
+     * repeated probes do not transfer any body at all. If a tag filter is set and the newest release of the repository
+     * is not selected by it, the probe can not tell and reports a change.<br>
+     * Once a change is reported, the <code>ETag</code> of the probe is forgotten. Should the refresh which follows fail,
+     * the next probe compares the newest release again instead of being told that nothing changed since this one.
+     * @author Griefed
+     * @param releasesUrl {@link URL} URL of the newest-first release list.
+     * @param snapshot {@link JsonNode} The current snapshot of releases, newest-first. May be <code>null</code>.
+     * @return Boolean. <code>true</code> if the newest release changed, or if there is no snapshot to compare with.
+     * @throws IOException Thrown if the newest release can not be acquired or parsed.
+     */
+    protected boolean isHeadChanged(@NotNull URL releasesUrl, JsonNode snapshot) throws IOException {
+        if (snapshot == null) {
+            return true;
+        }
+
+        URL probe = withParameter(releasesUrl, "per_page", "1");
+        Optional<ApiResponse> response = getApiResponse(probe, true);
+        if (!response.isPresent()) {
+            return false;
+        }
+
+        boolean changed;
+        JsonNode newest = getObjectMapper().readTree(response.get().body());
+        if (newest.size() == 0 || snapshot.size() == 0) {
+            changed = newest.size() != snapshot.size();
+        } else {
+            JsonNode head = filterRelease(newest.get(0));
+            // If the newest release belongs to another component, the probe can not tell.
+            changed = head == null || !isSameRelease(snapshot.get(0), head);
+        }
+
+        if (changed) {
+            ETAGS.remove(probe.toString());
+        }
+        return changed;
+    }
+
+    /**
+     * Compare two releases of the same platform. Used to decide whether the newest release of a repository changed.
+     * Fields which change without the release itself changing, like download counts, must not be compared.
+     * @author Griefed
+     * @param snapshotRelease {@link JsonNode} Release from the current snapshot.
+     * @param newRelease {@link JsonNode} Release acquired from the API.
+     * @return Boolean. <code>true</code> if both represent the same, unchanged release.
+     */
+    protected boolean isSameRelease(@NotNull JsonNode snapshotRelease, @NotNull JsonNode newRelease) {
+        return snapshotRelease.path("tag_name").equals(newRelease.path("tag_name"));
+    }
+
+    /**
+     * Check whether the given fields are equal in both nodes.
+     * @author Griefed
+     * @param first {@link JsonNode} First node to compare.
+     * @param second {@link JsonNode} Second node to compare.
+     * @param fields Names of the fields to compare.
+     * @return Boolean. <code>true</code> if all given fields are equal, or missing, in both nodes.
+     */
+    protected static boolean isSameFields(@NotNull JsonNode first, @NotNull JsonNode second, @NotNull String... fields) {
+        for (String field : fields) {
+            if (!first.path(field).equals(second.path(field))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether two arrays contain the same amount of elements, and whether their elements have equal values for the
+     * given fields.
+     * @author Griefed
+     * @param first {@link JsonNode} First array to compare.
+     * @param second {@link JsonNode} Second array to compare.
+     * @param fields Names of the fields of the elements to compare.
+     * @return Boolean. <code>true</code> if both arrays are equal with regard to the given fields.
+     */
+    protected static boolean isSameElements(@NotNull JsonNode first, @NotNull JsonNode second, @NotNull String... fields) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            if (!isSameFields(first.get(i), second.get(i), fields)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Condense a release into a fingerprint which changes whenever {@link #isSameRelease(JsonNode, JsonNode)} would tell
+     * the release apart from its previous state. Kept instead of the snapshot when it is dropped, so the releases
+     * acquired again afterwards are only reported as changed if they did.
+     * @author Griefed
+     * @param release {@link JsonNode} Release to condense.
+     * @return Integer. Fingerprint of the release, or <code>0</code> if it can not tell whether the release changed.
+     */
+    protected int fingerprint(@NotNull JsonNode release) {
+        return release.path("tag_name").hashCode();
+    }
+
+    /**
+     * Hash the given fields of a node, consistent with {@link #isSameFields(JsonNode, JsonNode, String...)}.
+     * @author Griefed
+     * @param node {@link JsonNode} Node to hash.
+     * @param fields Names of the fields to hash.
+     * @return Integer. Hash of the given fields.
+     */
+    protected static int hashFields(@NotNull JsonNode node, @NotNull String... fields) {
+        int hash = 1;
+        for (String field : fields) {
+            JsonNode value = node.path(field);
+            hash = 31 * hash + (value.isBinary() ? Arrays.hashCode(((BinaryNode) value).binaryValue()) : value.hashCode());
+        }
+        return hash;
+    }
+
+    /**
+     * Hash the given fields of every element of an array, consistent with
+     * {@link #isSameElements(JsonNode, JsonNode, String...)}.
+     * @author Griefed
+     * @param array {@link JsonNode} Array to hash.
+     * @param fields Names of the fields of the elements to hash.
+     * @return Integer. Hash of the given fields of all elements.
+     */
+    protected static int hashElements(@NotNull JsonNode array, @NotNull String... fields) {
+        int hash = array.size();
+        for (JsonNode element : array) {
+            hash = 31 * hash + hashFields(element, fields);
+        }
+        return hash;
+    }
+
+    /**
+     * Add a query-parameter to the given URL, replacing the parameter if it is already present.
+     * @author Griefed
+     * @param url {@link URL} The URL to add the parameter to.
+     * @param name {@link String} Name of the parameter.
+     * @param value {@link String} Value of the parameter.
+     * @return {@link URL} with the given parameter.
+     * @throws MalformedURLException Thrown if the resulting URL is invalid.
+     */
+    protected static URL withParameter(@NotNull URL url, @NotNull String name, @NotNull String value) throws MalformedURLException {
+        StringBuilder query = new StringBuilder();
+
+        if (url.getQuery() != null) {
+            for (String parameter : url.getQuery().split("&")) {
+                if (!parameter.isEmpty() && !parameter.startsWith(name + "=")) {
+                    query.append(parameter).append('&');
+                }
+            }
+        }
+        query.append(name).append('=').append(value);
+
+        String base = url.toString();
+        int end = base.indexOf('?');
+        if (end < 0) {
+            end = base.indexOf('#');
+        }
+
+        return new URL((end < 0 ? base : base.substring(0, end)) + "?" + query);
+    }
+
+    /**
+     * Get the {@link ObjectMapper} used to parse responses. The returned instance is shared, configure a copy if you need
+     * different settings.
+     * @author Griefed
+     * @return {@link ObjectMapper} for parsing responses.
+     */
     protected ObjectMapper getObjectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
-        objectMapper.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
-        return objectMapper;
+        return OBJECT_MAPPER;
+    }
+
+    /**
+     * Set the metrics-listener this checker reports its measurements to. Defaults to {@link VersionCheckerMetrics#NOOP}.
+     * @author Griefed
+     * @param metrics {@link VersionCheckerMetrics} The listener to report measurements to.
+     */
+    public void setMetrics(@NotNull VersionCheckerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get the metrics-listener this checker reports its measurements to.
+     * @author Griefed
+     * @return {@link VersionCheckerMetrics} The listener this checker reports measurements to.
+     */
+    public VersionCheckerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Register a listener which is told about every change between two consecutive snapshots of this checker. The
+     * first snapshot after the first listener was registered is reported with all of its releases added.
+     * @author Griefed
+     * @param listener {@link ReleaseListener} The listener to register.
+     */
+    public void addListener(@NotNull ReleaseListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Unregister a previously registered listener.
+     * @author Griefed
+     * @param listener {@link ReleaseListener} The listener to unregister.
+     */
+    public void removeListener(@NotNull ReleaseListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Set the observer which is told whenever this checker replaced its snapshot, regardless of whether any release
+     * changed. Used by {@link VersionCheckerRegistry} to account for the memory snapshots occupy.
+     * @author Griefed
+     * @param observer {@link Runnable} The observer to call, or <code>null</code> to remove it.
+     */
+    void setSnapshotObserver(Runnable observer) {
+        this.snapshotObserver = observer;
+    }
+
+    /**
+     * Set the executor listeners are called on. Defaults to calling them on the thread which changed the snapshot,
+     * before the refresh returns.
+     * @author Griefed
+     * @param executor {@link Executor} The executor to call listeners on.
+     */
+    public void setListenerExecutor(@NotNull Executor executor) {
+        this.listenerExecutor = executor;
+    }
+
+    /**
+     * Only consider releases whose tag is selected by the given filter, for repositories which publish releases for
+     * several components, like <code>server-1.2.3</code> and <code>client-4.5.6</code>. The filter is applied while
+     * releases are parsed, so releases of other components are never kept, and versions are reported without the
+     * part of the tag the filter strips. Takes effect with the next full refresh, which acquires every release anew
+     * instead of revalidating the releases acquired with the previous filter.
+     * @author Griefed
+     * @param filter {@link TagFilter} The filter to apply, or <code>null</code> to consider every release.
+     */
+    public void setTagFilter(TagFilter filter) {
+        this.tagFilter = filter;
+        forgetValidators();
+    }
+
+    /**
+     * Get the tag filter of this checker.
+     * @author Griefed
+     * @return {@link TagFilter} of this checker, wrapped in an {@link Optional}. Empty if every release is considered.
+     */
+    public Optional<TagFilter> getTagFilter() {
+        return Optional.ofNullable(tagFilter);
+    }
+
+    /**
+     * Download selected assets of every update a check finds in the background, with the given prefetcher. Several
+     * checkers may share one prefetcher.
+     * @author Griefed
+     * @param prefetcher {@link Prefetcher} The prefetcher to hand updates to, or <code>null</code> to not prefetch.
+     */
+    public void setPrefetcher(Prefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * Get the prefetcher of this checker.
+     * @author Griefed
+     * @return {@link Prefetcher} of this checker, wrapped in an {@link Optional}. Empty if updates are not prefetched.
+     */
+    public Optional<Prefetcher> getPrefetcher() {
+        return Optional.ofNullable(prefetcher);
+    }
+
+    /**
+     * Hand the update found by a check to the prefetcher of this checker, if there is one.
+     * @author Griefed
+     * @param update {@link Update} found by a check, wrapped in an {@link Optional}.
+     * @return The given update.
+     */
+    protected Optional<Update> prefetch(Optional<Update> update) {
+        Prefetcher current = prefetcher;
+        if (current != null && update.isPresent()) {
+            current.prefetch(update.get());
+        }
+        return update;
+    }
+
+    /**
+     * Get the current snapshot of releases of this checker, newest-first. Used to tell listeners about changes between
+     * consecutive snapshots. Checkers which do not hold a snapshot return <code>null</code>, and their listeners are
+     * never called.
+     * @author Griefed
+     * @return {@link JsonNode} The current snapshot, or <code>null</code>.
+     */
+    protected JsonNode getSnapshot() {
+        return null;
+    }
+
+    /**
+     * Replace the current snapshot of releases of this checker without contacting its host. Checkers which do not hold
+     * a snapshot ignore this.
+     * @author Griefed
+     * @param snapshot {@link JsonNode} The snapshot of releases, newest-first, or <code>null</code> to drop it.
+     */
+    protected void setSnapshot(JsonNode snapshot) {
+    }
+
+    /**
+     * Drop the snapshot of this checker to free its memory. The next refresh acquires all releases again. Listeners are
+     * only told about the releases which changed in the meantime, as a {@link #fingerprint(JsonNode)} of every dropped
+     * release is kept.
+     * @author Griefed
+     */
+    synchronized void evictSnapshot() {
+        if (previousSnapshot != null) {
+            Map<String, Integer> fingerprints = new HashMap<>(previousSnapshot.size() * 2);
+            for (JsonNode release : previousSnapshot) {
+                fingerprints.put(release.path("tag_name").asText(), fingerprint(release));
+            }
+            this.evictedFingerprints = fingerprints;
+        }
+
+        setSnapshot(null);
+        this.allVersions = null;
+        this.previousSnapshot = null;
+        this.observedSnapshot = null;
+    }
+
+    /**
+     * Restore a snapshot previously dropped with {@link #evictSnapshot()}. Listeners are not told about it, as nothing
+     * changed from their point of view. Deflated descriptions of a snapshot read back from JSON are Base64-text, and
+     * are turned back into bytes.
+     * @author Griefed
+     * @param snapshot {@link JsonNode} The snapshot to restore.
+     */
+    synchronized void restoreSnapshot(@NotNull JsonNode snapshot) {
+        String field = getDescriptionField();
+        if (field != null) {
+            for (JsonNode release : snapshot) {
+                JsonNode deflated = release.get(field + "_deflated");
+                if (deflated != null && deflated.isTextual()) {
+                    ((ObjectNode) release).set(field + "_deflated",
+                            BinaryNode.valueOf(Base64.getDecoder().decode(deflated.textValue())));
+                }
+            }
+        }
+        setSnapshot(snapshot);
+        this.allVersions = allVersions();
+        this.previousSnapshot = snapshot;
+        this.observedSnapshot = snapshot;
+        this.evictedFingerprints = null;
+    }
+
+    /**
+     * Compare the current snapshot with the one of the previous call and tell every listener about the changes, if
+     * there are any. Costs nothing if the snapshot was kept, as happens when the host confirms it to be up-to-date.
+     * Releases present in both snapshots are matched by tag and compared with {@link #isSameRelease(JsonNode, JsonNode)},
+     * or by {@link #fingerprint(JsonNode)} if the previous snapshot was dropped.
+     * @author Griefed
+     */
+    private synchronized void publishChanges() {
+        JsonNode snapshot = getSnapshot();
+        Runnable observer = snapshotObserver;
+        if (observer != null && snapshot != null && snapshot != observedSnapshot) {
+            observer.run();
+        }
+        this.observedSnapshot = snapshot;
+
+        if (LISTENERS.isEmpty()) {
+            this.previousSnapshot = null;
+            this.evictedFingerprints = null;
+            this.previousLatest = new EnumMap<>(ReleaseDiff.Channel.class);
+            return;
+        }
+
+        JsonNode previous = previousSnapshot;
+        this.previousSnapshot = snapshot;
+
+        if (snapshot == null || snapshot == previous) {
+            return;
+        }
+
+        Map<String, Integer> fingerprints = previous == null ? evictedFingerprints : null;
+        this.evictedFingerprints = null;
+
+        Map<String, JsonNode> known = new HashMap<>(previous == null ? 16 : previous.size() * 2);
+        if (previous != null) {
+            for (JsonNode release : previous) {
+                known.put(release.path("tag_name").asText(), release);
+            }
+        }
+
+        List<String> added = new ArrayList<>();
+        List<String> edited = new ArrayList<>();
+        for (JsonNode release : snapshot) {
+            String tag = release.path("tag_name").asText();
+
+            if (fingerprints != null) {
+                Integer before = fingerprints.remove(tag);
+                if (before == null) {
+                    added.add(tag);
+                    continue;
+                }
+                int after = fingerprint(release);
+                if (before != 0 && after != 0 && before != after) {
+                    edited.add(tag);
+                }
+                continue;
+            }
+
+            JsonNode before = known.remove(tag);
+            if (before == null) {
+                added.add(tag);
+            } else if (before != release && !isSameRelease(before, release)) {
+                edited.add(tag);
+            }
+        }
+        List<String> removed = new ArrayList<>(fingerprints != null ? fingerprints.keySet() : known.keySet());
+
+        Map<ReleaseDiff.Channel, String> latest = new EnumMap<>(ReleaseDiff.Channel.class);
+        try {
+            putLatest(latest, ReleaseDiff.Channel.RELEASE, latestVersion(false), "no_release");
+            putLatest(latest, ReleaseDiff.Channel.BETA, latestBeta(), "no_betas");
+            putLatest(latest, ReleaseDiff.Channel.ALPHA, latestAlpha(), "no_alphas");
+        } catch (NumberFormatException ex) {
+            LOG.error("A version could not be parsed into integers.", ex);
+        }
+
+        ReleaseDiff diff = new ReleaseDiff(added, removed, edited, previousLatest, latest);
+        this.previousLatest = latest;
+
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        LOG.debug("Releases of {} changed: {}", getRepositoryName(), diff);
+
+        for (ReleaseListener listener : LISTENERS) {
+            listenerExecutor.execute(() -> {
+                try {
+                    listener.onChange(this, diff);
+                } catch (RuntimeException ex) {
+                    LOG.error("Release listener failed.", ex);
+                }
+            });
+        }
+    }
+
+    private static void putLatest(Map<ReleaseDiff.Channel, String> latest, ReleaseDiff.Channel channel, String version, String none) {
+        if (!version.equals(none)) {
+            latest.put(channel, version);
+        }
+    }
+
+    /**
+     * Get the host of the API this checker acquires releases from. Used to tag measurements.
+     * @author Griefed
+     * @return {@link String} Host of the API of this checker.
+     */
+    public String getHost() {
+        return "unknown";
+    }
+
+    /**
+     * Get the name of the repository this checker acquires releases for. Used to tag measurements.
+     * @author Griefed
+     * @return {@link String} Name of the repository of this checker.
+     */
+    public String getRepositoryName() {
+        return getClass().getSimpleName();
     }
 
     protected abstract List<String> allVersions();
 
     public abstract VersionChecker refresh() throws IOException;
 
+    /**
+     * Refresh this instance with only the releases published since the last refresh, instead of acquiring all releases
+     * again. See {@link #getNewReleases(URL, JsonNode)} for what is and what is not noticed this way.<br>
+     * Checkers which do not support incremental refreshes, and checkers which have not been refreshed yet, do a full
+     * {@link #refresh()}.
+     * @author Griefed
+     * @throws IOException Exception thrown if the releases can not be acquired.
+     * @return This instance.
+     */
+    public VersionChecker refreshIncrementally() throws IOException {
+        return refresh();
+    }
+
+    /**
+     * Check whether the newest release of the repository changed since the last refresh, without acquiring all releases.
+     * Checkers which do not support this always return <code>true</code>.
+     * @author Griefed
+     * @return Boolean. <code>true</code> if the newest release changed, or if this instance was not refreshed yet.
+     * @throws IOException Exception thrown if the newest release can not be acquired.
+     */
+    public boolean isChanged() throws IOException {
+        return true;
+    }
+
+    /**
+     * Do a full {@link #refresh()}, but only if {@link #isChanged()} reports that the newest release changed. Use this
+     * when polling many repositories, as almost every poll then only costs a single, tiny request.
+     * @author Griefed
+     * @throws IOException Exception thrown if the releases can not be acquired.
+     * @return This instance.
+     */
+    public VersionChecker refreshIfChanged() throws IOException {
+        if (isChanged()) {
+            return refresh();
+        }
+
+        metrics.cache(getHost(), getRepositoryName(), VersionCheckerMetrics.CacheResult.HIT);
+        return this;
+    }
+
     protected void setAllVersions() {
         this.allVersions = allVersions();
+        publishChanges();
     }
 
     protected List<String> getAllVersions() {
@@ -512,4 +1583,39 @@ public abstract class VersionChecker {
     public abstract List<String> getAssetsDownloadUrls(@NotNull String version);
 
     public abstract Optional<Update> check(@NotNull String currentVersion, boolean checkForPreReleases);
+
+    /**
+     * Counts the bytes read from the wrapped stream.
+     * @author Griefed
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count = 0;
+
+        private CountingInputStream(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        private long count() {
+            return count;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener for measurements taken by a {@link VersionChecker} while fetching, parsing and checking releases. Every
+ * measurement is tagged with the host of the API and the repository of the checker which took it.<br>
+ * All methods default to doing nothing, so implementations only need to override what they are interested in. Methods are
+ * called on the thread doing the work and should therefore return quickly. See {@link AggregatingMetrics} for an
+ * implementation which does not require any metrics library.
+ * @author Griefed
+ */
+public interface VersionCheckerMetrics {
+
+    /**
+     * Metrics-instance which discards every measurement. Used by every {@link VersionChecker} unless told otherwise.
+     */
+    VersionCheckerMetrics NOOP = new VersionCheckerMetrics() {
+    };
+
+    /**
+     * Outcome of a request with regard to previously fetched data.
+     * @author Griefed
+     */
+    enum CacheResult {
+
+        /**
+         * The request was answered from the current snapshot without contacting the host.
+         */
+        HIT,
+
+        /**
+         * The host sent a complete response, which had to be parsed.
+         */
+        MISS,
+
+        /**
+         * The host confirmed the current snapshot to be up-to-date, so nothing had to be downloaded or parsed.
+         */
+        REVALIDATED
+    }
+
+    /**
+     * Called after an HTTP request has completed, regardless of its status.
+     * @author Griefed
+     * @param host {@link String} Host of the API.
+     * @param repository {@link String} Repository of the checker.
+     * @param status Integer. HTTP status of the response, or <code>-1</code> if no response was received.
+     * @param latencyNanos Long. Nanoseconds from sending the request until the response was read completely.
+     * @param bytes Long. Amount of bytes in the response body.
+     */
+    default void request(@NotNull String host, @NotNull String repository, int status, long latencyNanos, long bytes) {
+    }
+
+    /**
+     * Called for every request which could have been served from, or revalidated against, previously fetched data.
+     * @author Griefed
+     * @param host {@link String} Host of the API.
+     * @param repository {@link String} Repository of the checker.
+     * @param result {@link CacheResult} Whether the previously fetched data could be used.
+     */
+    default void cache(@NotNull String host, @NotNull String repository, @NotNull CacheResult result) {
+    }
+
+    /**
+     * Called after a response has been parsed into a release snapshot.
+     * @author Griefed
+     * @param host {@link String} Host of the API.
+     * @param repository {@link String} Repository of the checker.
+     * @param parseNanos Long. Nanoseconds it took to parse the response.
+     * @param releases Integer. Amount of releases in the parsed response.
+     */
+    default void parse(@NotNull String host, @NotNull String repository, long parseNanos, int releases) {
+    }
+
+    /**
+     * Called after every {@link VersionChecker#check(String, boolean)}.
+     * @author Griefed
+     * @param host {@link String} Host of the API.
+     * @param repository {@link String} Repository of the checker.
+     * @param durationNanos Long. Nanoseconds the check took.
+     * @param updateAvailable Boolean. Whether the check found an update.
+     */
+    default void check(@NotNull String host, @NotNull String repository, long durationNanos, boolean updateAvailable) {
+    }
+}
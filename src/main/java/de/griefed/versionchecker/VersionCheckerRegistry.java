@@ -0,0 +1,380 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Hands out one shared checker per repository and keeps the memory their snapshots occupy within a budget.<br>
+ * The retained size of every snapshot is estimated whenever it changes. Once all snapshots together exceed the budget,
+ * the snapshots of the least recently requested checkers are dropped until the budget is met again. If a spill
+ * directory is given, dropped snapshots are written to it and restored the next time their checker is requested.
+ * Otherwise, or if writing them fails, the checker is refreshed the next time it is requested, so it never hands out a
+ * checker without releases, unless acquiring them fails.<br>
+ * Looking up a checker does not lock, unless its snapshot has to be restored or acquired again. Evicting happens on
+ * whichever thread exceeded the budget, while other threads keep going. Entries are guarded by the monitor of their
+ * checker, the same one the checker guards its snapshot with.
+ * @author Griefed
+ */
+public class VersionCheckerRegistry {
+
+    private static final Logger LOG = LogManager.getLogger(VersionCheckerRegistry.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final long BUDGET;
+    private final Path SPILL_DIRECTORY;
+    private final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private final AtomicLong SIZE = new AtomicLong();
+    private final AtomicLong CLOCK = new AtomicLong();
+    private final ReentrantLock EVICTION = new ReentrantLock();
+
+    /**
+     * Create a new registry which drops snapshots exceeding the given budget.
+     * @author Griefed
+     * @param budgetBytes Long. Approximate amount of bytes all snapshots together may occupy.
+     */
+    public VersionCheckerRegistry(long budgetBytes) {
+        this.BUDGET = budgetBytes;
+        this.SPILL_DIRECTORY = null;
+    }
+
+    /**
+     * Create a new registry which writes snapshots exceeding the given budget to the given directory.
+     * @author Griefed
+     * @param budgetBytes Long. Approximate amount of bytes all snapshots together may occupy.
+     * @param spillDirectory {@link Path} Directory to write dropped snapshots to. Created if it does not exist.
+     * @throws IOException Thrown if the directory can not be created.
+     */
+    public VersionCheckerRegistry(long budgetBytes, @NotNull Path spillDirectory) throws IOException {
+        this.BUDGET = budgetBytes;
+        this.SPILL_DIRECTORY = Files.createDirectories(spillDirectory);
+    }
+
+    /**
+     * Get the shared checker for the given GitHub repository, creating it if necessary.
+     * @author Griefed
+     * @param gitHubUserRepository {@link String} GitHub <code>user/repository</code>-combination.
+     * @return {@link GitHubChecker} for the given repository.
+     */
+    public GitHubChecker gitHub(@NotNull String gitHubUserRepository) {
+        return (GitHubChecker) get("github:" + gitHubUserRepository, key -> {
+            try {
+                return new GitHubChecker(gitHubUserRepository);
+            } catch (MalformedURLException ex) {
+                throw new IllegalArgumentException("Invalid repository " + gitHubUserRepository, ex);
+            }
+        });
+    }
+
+    /**
+     * Get the shared checker for the given GitLab API-URL, creating it if necessary.
+     * @author Griefed
+     * @param repositoryUrl {@link String} The full /api/v4-GitLab-repository-URL.
+     * @return {@link GitLabChecker} for the given URL.
+     */
+    public GitLabChecker gitLab(@NotNull String repositoryUrl) {
+        return (GitLabChecker) get("gitlab:" + repositoryUrl, key -> {
+            try {
+                return new GitLabChecker(repositoryUrl);
+            } catch (MalformedURLException ex) {
+                throw new IllegalArgumentException("Invalid repository URL " + repositoryUrl, ex);
+            }
+        });
+    }
+
+    /**
+     * Get the shared checker for the given key, creating it with the given factory if necessary. A snapshot which was
+     * written to the spill directory is restored before the checker is returned. A snapshot which was dropped without
+     * being written is acquired again with a full {@link VersionChecker#refresh()}. Should that fail, the checker is
+     * returned without releases and the next call tries again.
+     * @author Griefed
+     * @param key {@link String} Key of the repository.
+     * @param factory Creates the checker for the given key.
+     * @return {@link VersionChecker} for the given key.
+     */
+    public VersionChecker get(@NotNull String key, @NotNull Function<String, ? extends VersionChecker> factory) {
+        Entry entry = ENTRIES.get(key);
+        if (entry == null) {
+            entry = ENTRIES.computeIfAbsent(key, k -> new Entry(k, factory.apply(k)));
+        }
+
+        entry.lastAccess = CLOCK.incrementAndGet();
+        if (entry.spilled) {
+            restore(entry);
+        } else if (entry.dropped) {
+            reacquire(entry);
+        }
+        return entry.CHECKER;
+    }
+
+    /**
+     * Remove the checker for the given key from this registry, including its spilled snapshot.
+     * @author Griefed
+     * @param key {@link String} Key of the repository.
+     */
+    public void remove(@NotNull String key) {
+        Entry entry = ENTRIES.remove(key);
+        if (entry != null) {
+            entry.CHECKER.setSnapshotObserver(null);
+            synchronized (entry.CHECKER) {
+                SIZE.addAndGet(-entry.size);
+                entry.size = 0;
+                deleteSpill(entry);
+            }
+        }
+    }
+
+    /**
+     * Get the approximate amount of bytes all snapshots currently held in memory occupy.
+     * @author Griefed
+     * @return Long. Approximate size of all snapshots in bytes.
+     */
+    public long size() {
+        return SIZE.get();
+    }
+
+    /**
+     * Get the amount of checkers in this registry.
+     * @author Griefed
+     * @return Integer. Amount of checkers, regardless of whether their snapshot is held in memory.
+     */
+    public int count() {
+        return ENTRIES.size();
+    }
+
+    private void update(Entry entry) {
+        synchronized (entry.CHECKER) {
+            long size = estimateSize(entry.CHECKER.getSnapshot());
+            SIZE.addAndGet(size - entry.size);
+            entry.size = size;
+            if (size > 0) {
+                entry.dropped = false;
+            }
+
+            if (entry.spilled) {
+                entry.spilled = false;
+                deleteSpill(entry);
+            }
+        }
+
+        if (SIZE.get() > BUDGET) {
+            evict(entry);
+        }
+    }
+
+    /**
+     * Drop the snapshots of the least recently requested checkers until the budget is met. Does nothing if another
+     * thread is already evicting.
+     * @author Griefed
+     * @param keep {@link Entry} Entry which must not be evicted, because it just changed.
+     */
+    private void evict(Entry keep) {
+        if (!EVICTION.tryLock()) {
+            return;
+        }
+
+        try {
+            List<Entry> candidates = new ArrayList<>(ENTRIES.values());
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.lastAccess));
+
+            for (Entry entry : candidates) {
+                if (SIZE.get() <= BUDGET) {
+                    break;
+                }
+                if (entry == keep || entry.size == 0) {
+                    continue;
+                }
+
+                synchronized (entry.CHECKER) {
+                    JsonNode snapshot = entry.CHECKER.getSnapshot();
+                    if (snapshot != null && SPILL_DIRECTORY != null) {
+                        spill(entry, snapshot);
+                    }
+                    entry.CHECKER.evictSnapshot();
+                    SIZE.addAndGet(-entry.size);
+                    entry.size = 0;
+                    entry.dropped = !entry.spilled;
+                }
+
+                LOG.debug("Evicted snapshot of {}. Spilled: {}", entry.KEY, entry.spilled);
+            }
+        } finally {
+            EVICTION.unlock();
+        }
+    }
+
+    private void spill(Entry entry, JsonNode snapshot) {
+        Path file = spillFile(entry);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+            OBJECT_MAPPER.writeValue(outputStream, snapshot);
+        } catch (IOException ex) {
+            LOG.error("Snapshot of {} could not be spilled. Dropping it instead.", entry.KEY, ex);
+            return;
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            entry.spilled = true;
+        } catch (IOException ex) {
+            LOG.error("Snapshot of {} could not be spilled. Dropping it instead.", entry.KEY, ex);
+        }
+    }
+
+    private void reacquire(Entry entry) {
+        synchronized (entry.CHECKER) {
+            if (!entry.dropped) {
+                return;
+            }
+
+            try {
+                entry.CHECKER.refresh();
+                entry.dropped = false;
+            } catch (IOException ex) {
+                LOG.error("Releases of {} could not be acquired again after its snapshot was dropped.", entry.KEY, ex);
+            }
+        }
+    }
+
+    private void restore(Entry entry) {
+        synchronized (entry.CHECKER) {
+            if (!entry.spilled) {
+                return;
+            }
+            entry.spilled = false;
+
+            try (InputStream inputStream = Files.newInputStream(spillFile(entry))) {
+                JsonNode snapshot = OBJECT_MAPPER.readTree(inputStream);
+                entry.CHECKER.restoreSnapshot(snapshot);
+
+                long size = estimateSize(snapshot);
+                SIZE.addAndGet(size - entry.size);
+                entry.size = size;
+            } catch (IOException ex) {
+                LOG.error("Spilled snapshot of {} could not be restored.", entry.KEY, ex);
+            }
+
+            deleteSpill(entry);
+        }
+
+        if (SIZE.get() > BUDGET) {
+            evict(entry);
+        }
+    }
+
+    private void deleteSpill(Entry entry) {
+        if (SPILL_DIRECTORY != null) {
+            try {
+                Files.deleteIfExists(spillFile(entry));
+            } catch (IOException ex) {
+                LOG.error("Spilled snapshot of {} could not be deleted.", entry.KEY, ex);
+            }
+        }
+    }
+
+    private Path spillFile(Entry entry) {
+        try {
+            StringBuilder name = new StringBuilder(64);
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(entry.KEY.getBytes(StandardCharsets.UTF_8))) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return SPILL_DIRECTORY.resolve(name.append(".json").toString());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available.", ex);
+        }
+    }
+
+    /**
+     * Estimate the amount of bytes the given snapshot occupies on the heap. Field names are not counted, as Jackson
+     * shares them between nodes.
+     * @author Griefed
+     * @param node {@link JsonNode} The snapshot. May be <code>null</code>.
+     * @return Long. Approximate size in bytes.
+     */
+    static long estimateSize(JsonNode node) {
+        if (node == null) {
+            return 0;
+        }
+        if (node.isTextual()) {
+            return 56 + 2L * node.textValue().length();
+        }
+        if (node.isBinary()) {
+            return 32 + ((BinaryNode) node).binaryValue().length;
+        }
+        if (node.isContainerNode()) {
+            long size = node.isObject() ? 64 : 40;
+            for (JsonNode child : node) {
+                size += 32 + estimateSize(child);
+            }
+            return size;
+        }
+        return 16;
+    }
+
+    /**
+     * A registered checker, when it was last requested, the approximate size of its snapshot and whether that snapshot
+     * was spilled or dropped.
+     * @author Griefed
+     */
+    private class Entry {
+
+        private final String KEY;
+        private final VersionChecker CHECKER;
+        private volatile long lastAccess;
+        private volatile long size;
+        private volatile boolean spilled;
+        private volatile boolean dropped;
+
+        private Entry(String key, VersionChecker checker) {
+            this.KEY = key;
+            this.CHECKER = checker;
+            this.CHECKER.setSnapshotObserver(() -> update(this));
+        }
+    }
+}
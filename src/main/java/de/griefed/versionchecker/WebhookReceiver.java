@@ -0,0 +1,361 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Griefed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.griefed.versionchecker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP endpoint which receives release webhooks from GitHub and GitLab and applies the releases they carry
+ * directly to the snapshots of registered checkers, so new releases are known without polling for them.<br>
+ * Accepted are GitHub <code>release</code> events, authenticated by their <code>X-Hub-Signature-256</code>-header, and
+ * GitLab <code>Release Hook</code> events, authenticated by their <code>X-Gitlab-Token</code>-header. Both need to be
+ * configured with the secret the checker was registered with. Payloads larger than one MiB are rejected. Signatures
+ * and tokens are checked against every registered secret before the payload is parsed, so payloads with invalid
+ * signatures are rejected without revealing which repositories are registered. Authenticated payloads for repositories
+ * not registered with the same secret are rejected as well.<br>
+ * Checkers only accept pushed releases once they have been refreshed, and releases edited or deleted while the receiver
+ * was not reachable are missed. Keep refreshing them, just far less often.
+ * @author Griefed
+ */
+public class WebhookReceiver implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(WebhookReceiver.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_PAYLOAD = 1024 * 1024;
+
+    private final HttpServer SERVER;
+    private final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    private final Map<String, List<Registration<GitHubChecker>>> GITHUB = new ConcurrentHashMap<>();
+    private final Map<String, List<Registration<GitLabChecker>>> GITLAB = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new receiver listening on the given address and path. Call {@link #start()} once your checkers are
+     * registered.
+     * @author Griefed
+     * @param address {@link InetSocketAddress} The address to listen on. Use port <code>0</code> for any free port.
+     * @param path {@link String} The path webhooks are delivered to, for example <code>/webhooks</code>.
+     * @throws IOException Thrown if the address can not be bound.
+     */
+    public WebhookReceiver(@NotNull InetSocketAddress address, @NotNull String path) throws IOException {
+        this.SERVER = HttpServer.create(address, 0);
+        this.SERVER.createContext(path, this::handle);
+        this.SERVER.setExecutor(EXECUTOR);
+    }
+
+    /**
+     * Start receiving webhooks.
+     * @author Griefed
+     * @return This receiver.
+     */
+    public WebhookReceiver start() {
+        SERVER.start();
+        return this;
+    }
+
+    /**
+     * Get the address this receiver is listening on.
+     * @author Griefed
+     * @return {@link InetSocketAddress} this receiver is bound to.
+     */
+    public InetSocketAddress address() {
+        return SERVER.getAddress();
+    }
+
+    /**
+     * Apply releases of the repository of the given checker, delivered by GitHub, to it.
+     * @author Griefed
+     * @param checker {@link GitHubChecker} The checker to apply releases to.
+     * @param secret {@link String} The secret configured for the webhook on GitHub.
+     * @return This receiver.
+     */
+    public WebhookReceiver register(@NotNull GitHubChecker checker, @NotNull String secret) {
+        GITHUB.computeIfAbsent(checker.getRepositoryName(), key -> new CopyOnWriteArrayList<>())
+                .add(new Registration<>(checker, secret));
+        return this;
+    }
+
+    /**
+     * Apply releases of the project of the given checker, delivered by GitLab, to it.
+     * @author Griefed
+     * @param checker {@link GitLabChecker} The checker to apply releases to.
+     * @param token {@link String} The secret token configured for the webhook on GitLab.
+     * @return This receiver.
+     */
+    public WebhookReceiver register(@NotNull GitLabChecker checker, @NotNull String token) {
+        GITLAB.computeIfAbsent(checker.getRepositoryName(), key -> new CopyOnWriteArrayList<>())
+                .add(new Registration<>(checker, token));
+        return this;
+    }
+
+    /**
+     * Stop receiving webhooks.
+     * @author Griefed
+     */
+    @Override
+    public void close() {
+        SERVER.stop(0);
+        EXECUTOR.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, "Only POST is supported.");
+                return;
+            }
+
+            byte[] payload = read(exchange.getRequestBody());
+            if (payload == null) {
+                send(exchange, 413, "Payload too large.");
+                return;
+            }
+
+            String gitHubEvent = exchange.getRequestHeaders().getFirst("X-GitHub-Event");
+            String gitLabEvent = exchange.getRequestHeaders().getFirst("X-Gitlab-Event");
+
+            if (gitHubEvent != null) {
+                handleGitHub(exchange, gitHubEvent, payload);
+            } else if (gitLabEvent != null) {
+                handleGitLab(exchange, gitLabEvent, payload);
+            } else {
+                send(exchange, 400, "Unknown webhook.");
+            }
+
+        } catch (IOException | RuntimeException ex) {
+            LOG.error("Webhook could not be processed.", ex);
+            send(exchange, 400, "Invalid payload.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleGitHub(HttpExchange exchange, String event, byte[] payload) throws IOException {
+        if (!event.equals("release") && !event.equals("ping")) {
+            send(exchange, 202, "Ignored.");
+            return;
+        }
+
+        String signature = exchange.getRequestHeaders().getFirst("X-Hub-Signature-256");
+        Set<Registration<GitHubChecker>> authenticated = new HashSet<>();
+        if (signature != null) {
+            Map<String, String> signatures = new HashMap<>();
+            for (List<Registration<GitHubChecker>> registrations : GITHUB.values()) {
+                for (Registration<GitHubChecker> registration : registrations) {
+                    String expected = signatures.computeIfAbsent(registration.SECRET, secret -> "sha256=" + hmac(secret, payload));
+                    if (isEqual(signature, expected)) {
+                        authenticated.add(registration);
+                    }
+                }
+            }
+        }
+        if (authenticated.isEmpty()) {
+            send(exchange, 401, "Invalid signature.");
+            return;
+        }
+
+        JsonNode json = OBJECT_MAPPER.readTree(payload);
+        List<Registration<GitHubChecker>> registrations = GITHUB.get(json.path("repository").path("full_name").asText());
+        if (registrations == null || Collections.disjoint(registrations, authenticated)) {
+            send(exchange, 404, "Unknown repository.");
+            return;
+        }
+
+        boolean applied = false;
+        if (event.equals("release")) {
+            String action = json.path("action").asText();
+            boolean removed = action.equals("deleted") || action.equals("unpublished");
+
+            for (Registration<GitHubChecker> registration : registrations) {
+                if (authenticated.contains(registration)) {
+                    applied |= registration.CHECKER.applyRelease(json.path("release"), removed);
+                }
+            }
+        }
+
+        LOG.debug("GitHub {} event for {} applied: {}", event, json.path("repository").path("full_name").asText(), applied);
+        send(exchange, 200, applied ? "Applied." : "Accepted.");
+    }
+
+    private void handleGitLab(HttpExchange exchange, String event, byte[] payload) throws IOException {
+        if (!event.equals("Release Hook")) {
+            send(exchange, 202, "Ignored.");
+            return;
+        }
+
+        String token = exchange.getRequestHeaders().getFirst("X-Gitlab-Token");
+        Set<Registration<GitLabChecker>> authenticated = new HashSet<>();
+        if (token != null) {
+            for (List<Registration<GitLabChecker>> registrations : GITLAB.values()) {
+                for (Registration<GitLabChecker> registration : registrations) {
+                    if (isEqual(token, registration.SECRET)) {
+                        authenticated.add(registration);
+                    }
+                }
+            }
+        }
+        if (authenticated.isEmpty()) {
+            send(exchange, 401, "Invalid token.");
+            return;
+        }
+
+        JsonNode json = OBJECT_MAPPER.readTree(payload);
+        JsonNode project = json.path("project");
+
+        List<Registration<GitLabChecker>> registrations = GITLAB.get(project.path("id").asText());
+        if (registrations == null) {
+            registrations = GITLAB.get(URLEncoder.encode(project.path("path_with_namespace").asText(), "UTF-8"));
+        }
+        if (registrations == null || Collections.disjoint(registrations, authenticated)) {
+            send(exchange, 404, "Unknown project.");
+            return;
+        }
+
+        boolean applied = false;
+        for (Registration<GitLabChecker> registration : registrations) {
+            if (authenticated.contains(registration)) {
+                applied |= registration.CHECKER.applyRelease(gitLabRelease(json), json.path("action").asText().equals("delete"));
+            }
+        }
+
+        LOG.debug("GitLab release event for {} applied: {}", project.path("path_with_namespace").asText(), applied);
+        send(exchange, 200, applied ? "Applied." : "Accepted.");
+    }
+
+    /**
+     * Convert the payload of a GitLab <code>Release Hook</code> into a release shaped like those of the REST API.
+     * @author Griefed
+     * @param hook {@link JsonNode} Payload of the webhook.
+     * @return {@link JsonNode} The release.
+     */
+    private JsonNode gitLabRelease(JsonNode hook) {
+        ObjectNode release = OBJECT_MAPPER.createObjectNode();
+        release.put("name", hook.path("name").asText());
+        release.put("tag_name", hook.path("tag").asText());
+        release.put("description", hook.path("description").asText());
+        release.put("created_at", hook.path("created_at").asText());
+        release.put("released_at", hook.path("released_at").asText());
+
+        ObjectNode assets = release.putObject("assets");
+        assets.set("sources", hook.path("assets").path("sources").deepCopy());
+
+        ArrayNode links = assets.putArray("links");
+        for (JsonNode link : hook.path("assets").path("links")) {
+            ObjectNode copy = link.deepCopy();
+            if (!copy.has("direct_asset_url")) {
+                copy.put("direct_asset_url", link.path("url").asText());
+            }
+            links.add(copy);
+        }
+
+        release.putObject("_links").put("self", hook.path("url").asText());
+        return release;
+    }
+
+    private static String hmac(String secret, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : mac.doFinal(payload)) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HmacSHA256 is not available.", ex);
+        }
+    }
+
+    private static boolean isEqual(String first, String second) {
+        return MessageDigest.isEqual(first.getBytes(StandardCharsets.UTF_8), second.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(8192);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            if (payload.size() + read > MAX_PAYLOAD) {
+                return null;
+            }
+            payload.write(buffer, 0, read);
+        }
+        return payload.toByteArray();
+    }
+
+    private static void send(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * A checker and the secret its webhook is authenticated with.
+     * @author Griefed
+     */
+    private static class Registration<T extends VersionChecker> {
+
+        private final T CHECKER;
+        private final String SECRET;
+
+        private Registration(T checker, String secret) {
+            this.CHECKER = checker;
+            this.SECRET = secret;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+
+public class AssetRelayTests {
+
+    private final ReleaseApiStub STUB;
+    private final byte[] CONTENT = new byte[50_000];
+    private final String DIGEST;
+
+    @TempDir
+    Path directory;
+
+    public AssetRelayTests() throws Exception {
+        this.STUB = new ReleaseApiStub();
+        new Random(42).nextBytes(CONTENT);
+        STUB.file("asset.jar", CONTENT);
+        this.DIGEST = ReleaseFixtures.sha256(CONTENT);
+    }
+
+    @AfterEach
+    void stop() {
+        STUB.close();
+    }
+
+    @Test
+    void servesSiteFromOneDownload() throws Exception {
+        ReleaseAsset asset = new ReleaseAsset("asset.jar", STUB.fileUrl("asset.jar"), DIGEST);
+
+        try (AssetStore relayStore = new AssetStore(directory.resolve("relay"), 1_000_000);
+             AssetRelay relay = new AssetRelay(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), relayStore, 2).start();
+             AssetStore first = new AssetStore(directory.resolve("first"), 1_000_000);
+             AssetStore second = new AssetStore(directory.resolve("second"), 1_000_000)) {
+
+            relay.setOrigins(Collections.singleton(STUB.url().getHost()));
+            first.setRelay(relay.url());
+            second.setRelay(relay.url());
+
+            first.fetch(asset, directory.resolve("first.jar"));
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(directory.resolve("first.jar")));
+
+            for (int i = 0; i < 500 && !relayStore.get(DIGEST).isPresent(); i++) {
+                Thread.sleep(10);
+            }
+            Assertions.assertTrue(relayStore.get(DIGEST).isPresent());
+            Assertions.assertEquals(2, STUB.requests().size());
+
+            second.fetch(asset, directory.resolve("second.jar"));
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(directory.resolve("second.jar")));
+            Assertions.assertEquals(2, STUB.requests().size());
+        }
+    }
+
+    @Test
+    void fetchesOnlyFromAllowedOrigins() throws Exception {
+        try (AssetStore relayStore = new AssetStore(directory.resolve("relay"), 1_000_000);
+             AssetRelay relay = new AssetRelay(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), relayStore, 2).start();
+             AssetStore store = new AssetStore(directory.resolve("store"), 1_000_000)) {
+
+            store.setRelay(relay.url());
+            store.fetch(new ReleaseAsset("asset.jar", STUB.fileUrl("asset.jar"), DIGEST), directory.resolve("asset.jar"));
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(directory.resolve("asset.jar")));
+
+            Thread.sleep(200);
+            Assertions.assertFalse(relayStore.get(DIGEST).isPresent());
+            Assertions.assertEquals(1, STUB.requests().size());
+        }
+    }
+
+    @Test
+    void fallsBackToOrigin() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            closedPort = socket.getLocalPort();
+        }
+
+        try (AssetStore store = new AssetStore(directory.resolve("store"), 1_000_000)) {
+            store.setRelay(new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), closedPort, "/"));
+
+            store.fetch(new ReleaseAsset("asset.jar", STUB.fileUrl("asset.jar"), DIGEST), directory.resolve("asset.jar"));
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(directory.resolve("asset.jar")));
+
+            store.fetch(new ReleaseAsset("other.jar", STUB.fileUrl("asset.jar")), directory.resolve("other.jar"));
+            Assertions.assertEquals(2, STUB.requests().size());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class AssetSelectorTests {
+
+    private final AssetSelector SELECTOR = new AssetSelector()
+            .glob("*-musl.tar.gz", "musl")
+            .glob("*.{tar.gz,zip}")
+            .rule(Pattern.compile("app-setup\\.exe"), null, "win", null)
+            .regex(Pattern.compile("app-.*\\.deb"))
+            .rule(Pattern.compile("app\\.dmg"), null, "darwin", null)
+            .glob("*.jar");
+
+    @Test
+    void selectsPerPlatform() throws MalformedURLException {
+        Update update = update("1.0.0",
+                "app-linux-x86_64.tar.gz", "app-linux-aarch64.tar.gz", "app-linux-x86_64-musl.tar.gz",
+                "app-windows-x64.zip", "app-setup.exe", "app-linux-armhf.deb", "app.dmg", "app.jar", "checksums.txt");
+
+        Assertions.assertEquals("app-linux-x86_64.tar.gz", select(update, "linux", "amd64", null));
+        Assertions.assertEquals("app-linux-aarch64.tar.gz", select(update, "Linux", "arm64", null));
+        Assertions.assertEquals("app-linux-x86_64-musl.tar.gz", select(update, "linux", "x64", "musl"));
+        Assertions.assertEquals("app-linux-armhf.deb", select(update, "linux", "armv7", null));
+        Assertions.assertEquals("app-windows-x64.zip", select(update, "windows", "x86_64", null));
+        Assertions.assertEquals("app-setup.exe", select(update, "windows", "x86", null));
+        Assertions.assertEquals("app.dmg", select(update, "macos", "arm64", null));
+        Assertions.assertEquals("app.jar", select(update, "freebsd", "x64", null));
+        Assertions.assertNull(select(update, "freebsd", "x64", "portable"));
+    }
+
+    @Test
+    void splitsUnderscores() throws MalformedURLException {
+        AssetSelector selector = new AssetSelector().glob("*.tar.gz");
+        Update update = update("1.0.0",
+                "app_1.0.0_linux_amd64.tar.gz", "app_1.0.0_linux_arm64.tar.gz", "app_1.0.0_darwin_x86_64.tar.gz");
+
+        Assertions.assertEquals("app_1.0.0_linux_amd64.tar.gz",
+                selector.select(update, new AssetSelector.Platform("linux", "x64", null)).get().name());
+        Assertions.assertEquals("app_1.0.0_linux_arm64.tar.gz",
+                selector.select(update, new AssetSelector.Platform("linux", "aarch64", null)).get().name());
+        Assertions.assertEquals("app_1.0.0_darwin_x86_64.tar.gz",
+                selector.select(update, new AssetSelector.Platform("macos", "x64", null)).get().name());
+        Assertions.assertFalse(selector.select(update, new AssetSelector.Platform("windows", "x64", null)).isPresent());
+    }
+
+    @Test
+    void matchesArchitectureAlone() throws MalformedURLException {
+        AssetSelector selector = new AssetSelector().glob("*.zip").glob("*.jar");
+        Update update = update("1.0.0", "app-x64.zip", "app-linux.zip", "app.jar");
+
+        Assertions.assertEquals("app-linux.zip", selector.select(update, new AssetSelector.Platform("linux", "arm64", null)).get().name());
+        Assertions.assertEquals("app-x64.zip", selector.select(update, new AssetSelector.Platform("windows", "x64", null)).get().name());
+        Assertions.assertEquals("app.jar", selector.select(update, new AssetSelector.Platform("windows", "arm64", null)).get().name());
+    }
+
+    @Test
+    void indexesOncePerRelease() throws MalformedURLException {
+        Update update = update("1.0.0", "app-linux-x64.tar.gz", "app.jar");
+        AssetSelector.Index index = SELECTOR.index(update);
+
+        Assertions.assertSame(index, SELECTOR.index(update("1.0.0", "app-linux-x64.tar.gz", "app.jar")));
+        Assertions.assertNotSame(index, SELECTOR.index(update("1.0.0", "app-linux-x64.tar.gz", "app.jar", "app-windows-x64.zip")));
+        Assertions.assertNotSame(index, SELECTOR.index(update("1.1.0", "app-linux-x64.tar.gz", "app.jar")));
+
+        SELECTOR.glob("*.txt");
+        Assertions.assertNotSame(index, SELECTOR.index(update));
+    }
+
+    @Test
+    void compilesGlobs() {
+        Assertions.assertTrue(AssetSelector.compile("App-*.{zip,tar.gz}").matcher("app-1.0.tar.gz").matches());
+        Assertions.assertFalse(AssetSelector.compile("app-?.zip").matcher("app-10.zip").matches());
+        Assertions.assertTrue(AssetSelector.compile("app(1).zip").matcher("app(1).zip").matches());
+        Assertions.assertFalse(AssetSelector.compile("*.zip").matcher("app.zip.sha256").matches());
+    }
+
+    private String select(Update update, String os, String arch, String variant) {
+        return SELECTOR.select(update, new AssetSelector.Platform(os, arch, variant)).map(ReleaseAsset::name).orElse(null);
+    }
+
+    private static Update update(String version, String... names) throws MalformedURLException {
+        List<ReleaseAsset> assets = new ArrayList<>();
+        for (String name : names) {
+            assets.add(new ReleaseAsset(name, new URL("https://example.com/" + version + "/" + name)));
+        }
+        return new Update(version, null, new URL("https://example.com/" + version), LocalDate.now(), assets, Collections.emptyList());
+    }
+}
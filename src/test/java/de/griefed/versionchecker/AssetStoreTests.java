@@ -0,0 +1,127 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+public class AssetStoreTests {
+
+    private final ReleaseApiStub STUB;
+    private final byte[] CONTENT = new byte[50_000];
+
+    @TempDir
+    Path directory;
+
+    public AssetStoreTests() throws IOException {
+        this.STUB = new ReleaseApiStub();
+        new Random(42).nextBytes(CONTENT);
+        STUB.file("asset.jar", CONTENT).file("copy.jar", CONTENT);
+    }
+
+    @AfterEach
+    void stop() {
+        STUB.close();
+    }
+
+    @Test
+    void reusesKnownDigest() throws Exception {
+        String digest = ReleaseFixtures.sha256(CONTENT);
+
+        try (AssetStore store = new AssetStore(directory.resolve("store"), 1_000_000)) {
+            store.fetch(new ReleaseAsset("asset.jar", STUB.fileUrl("asset.jar"), digest), directory.resolve("1/asset.jar"));
+            Assertions.assertTrue(store.get(digest).isPresent());
+            Assertions.assertEquals(CONTENT.length, store.size());
+
+            STUB.requests().clear();
+            Path second = store.fetch(new ReleaseAsset("copy.jar", STUB.fileUrl("copy.jar"), digest.toUpperCase()), directory.resolve("2/copy.jar"));
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(second));
+            Assertions.assertTrue(STUB.requests().isEmpty());
+        }
+
+        try (AssetStore reopened = new AssetStore(directory.resolve("store"), 1_000_000)) {
+            Assertions.assertTrue(reopened.get(digest).isPresent());
+            Assertions.assertEquals(CONTENT.length, reopened.size());
+        }
+    }
+
+    @Test
+    void checksumFile() throws Exception {
+        STUB.file("checksums.txt", (ReleaseFixtures.sha256(CONTENT) + "  asset.jar\n" + ReleaseFixtures.sha256(CONTENT) + " *copy.jar\n").getBytes(StandardCharsets.UTF_8));
+        STUB.file("copy.jar.sha256", ReleaseFixtures.sha256(CONTENT).getBytes(StandardCharsets.UTF_8));
+        STUB.file("named.jar.sha256", (ReleaseFixtures.sha256(CONTENT) + "  named.jar\n").getBytes(StandardCharsets.UTF_8));
+        STUB.file("path.jar.sha256", (ReleaseFixtures.sha256(CONTENT) + " *build/libs/path.jar\n").getBytes(StandardCharsets.UTF_8));
+
+        try (AssetStore store = new AssetStore(directory.resolve("store"), 1_000_000)) {
+            Update first = update("1.0.0", new ReleaseAsset("asset.jar", STUB.fileUrl("asset.jar")),
+                    new ReleaseAsset("checksums.txt", STUB.fileUrl("checksums.txt")));
+            Update second = update("1.1.0", new ReleaseAsset("copy.jar", STUB.fileUrl("copy.jar")),
+                    new ReleaseAsset("copy.jar.sha256", STUB.fileUrl("copy.jar.sha256")));
+
+            Assertions.assertEquals(ReleaseFixtures.sha256(CONTENT), store.digest(first, first.assets().get().get(0)).orElse(null));
+            Assertions.assertFalse(store.digest(first, first.assets().get().get(1)).isPresent());
+
+            Update named = update("1.2.0", new ReleaseAsset("named.jar", STUB.fileUrl("named.jar")),
+                    new ReleaseAsset("named.jar.sha256", STUB.fileUrl("named.jar.sha256")),
+                    new ReleaseAsset("path.jar", STUB.fileUrl("path.jar")),
+                    new ReleaseAsset("path.jar.sha256", STUB.fileUrl("path.jar.sha256")));
+            Assertions.assertEquals(ReleaseFixtures.sha256(CONTENT), store.digest(named, named.assets().get().get(0)).orElse(null));
+            Assertions.assertEquals(ReleaseFixtures.sha256(CONTENT), store.digest(named, named.assets().get().get(2)).orElse(null));
+
+            store.fetch(first, first.assets().get().get(0), directory.resolve("asset.jar"));
+            STUB.requests().clear();
+            store.fetch(second, second.assets().get().get(0), directory.resolve("copy.jar"));
+
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(directory.resolve("copy.jar")));
+            Assertions.assertEquals(1, STUB.requests().size());
+            Assertions.assertTrue(STUB.requests().get(0).contains("copy.jar.sha256"));
+        }
+    }
+
+    @Test
+    void rejectsMismatch() throws Exception {
+        String wrong = ReleaseFixtures.sha256("wrong".getBytes(StandardCharsets.UTF_8));
+
+        try (AssetStore store = new AssetStore(directory.resolve("store"), 1_000_000)) {
+            Assertions.assertThrows(IOException.class, () -> store.fetch(
+                    new ReleaseAsset("asset.jar", STUB.fileUrl("asset.jar"), wrong), directory.resolve("asset.jar")));
+            Assertions.assertFalse(Files.exists(directory.resolve("asset.jar")));
+            Assertions.assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        byte[][] contents = new byte[3][20_000];
+        for (int i = 0; i < contents.length; i++) {
+            new Random(i).nextBytes(contents[i]);
+            STUB.file(i + ".jar", contents[i]);
+        }
+
+        try (AssetStore store = new AssetStore(directory.resolve("store"), 45_000)) {
+            store.fetch(new ReleaseAsset("0.jar", STUB.fileUrl("0.jar")), directory.resolve("0.jar"));
+            store.fetch(new ReleaseAsset("1.jar", STUB.fileUrl("1.jar")), directory.resolve("1.jar"));
+            Assertions.assertTrue(store.get(ReleaseFixtures.sha256(contents[0])).isPresent());
+            store.fetch(new ReleaseAsset("2.jar", STUB.fileUrl("2.jar")), directory.resolve("2.jar"));
+
+            Assertions.assertTrue(store.get(ReleaseFixtures.sha256(contents[0])).isPresent());
+            Assertions.assertFalse(store.get(ReleaseFixtures.sha256(contents[1])).isPresent());
+            Assertions.assertTrue(store.get(ReleaseFixtures.sha256(contents[2])).isPresent());
+            Assertions.assertEquals(40_000, store.size());
+            Assertions.assertArrayEquals(contents[1], Files.readAllBytes(directory.resolve("1.jar")));
+        }
+    }
+
+    private Update update(String version, ReleaseAsset... assets) {
+        return new Update(version, null, STUB.url(), LocalDate.now(), Arrays.asList(assets), Collections.emptyList());
+    }
+}
@@ -0,0 +1,159 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class DeltaUpdaterTests {
+
+    private final ReleaseApiStub STUB;
+    private final Map<String, byte[]> ENTRIES = new LinkedHashMap<>();
+
+    @TempDir
+    Path directory;
+
+    public DeltaUpdaterTests() throws IOException {
+        this.STUB = new ReleaseApiStub();
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            byte[] content = new byte[100_000];
+            random.nextBytes(content);
+            ENTRIES.put("lib/library-" + i + ".jar", content);
+        }
+    }
+
+    @AfterEach
+    void stop() {
+        STUB.close();
+    }
+
+    @Test
+    void downloadsChangedEntries() throws IOException {
+        Path installed = Files.write(directory.resolve("installed.zip"), zip(ENTRIES));
+
+        ENTRIES.put("lib/library-7.jar", "changed".getBytes());
+        ENTRIES.remove("lib/library-12.jar");
+        ENTRIES.put("lib/added.jar", new byte[5000]);
+        byte[] updated = zip(ENTRIES);
+        STUB.file("bundle.zip", updated);
+
+        try (DeltaUpdater updater = new DeltaUpdater()) {
+            DeltaUpdater.Result result = updater.update(installed, new ReleaseAsset("bundle.zip", STUB.fileUrl("bundle.zip")), directory.resolve("bundle.zip"));
+
+            Assertions.assertArrayEquals(updated, Files.readAllBytes(result.target()));
+            Assertions.assertTrue(result.downloaded() < updated.length / 10, "Downloaded " + result.downloaded());
+            Assertions.assertTrue(result.reused() > updated.length * 9L / 10);
+        }
+    }
+
+    @Test
+    void downloadsCompletelyWithoutRanges() throws IOException {
+        Path installed = Files.write(directory.resolve("installed.zip"), zip(ENTRIES));
+        ENTRIES.put("lib/library-7.jar", "changed".getBytes());
+        byte[] updated = zip(ENTRIES);
+        STUB.file("bundle.zip", updated).ranges(false);
+
+        try (DeltaUpdater updater = new DeltaUpdater()) {
+            DeltaUpdater.Result result = updater.update(installed, STUB.fileUrl("bundle.zip"), directory.resolve("bundle.zip"));
+
+            Assertions.assertArrayEquals(updated, Files.readAllBytes(result.target()));
+            Assertions.assertEquals(0, result.reused());
+        }
+    }
+
+    @Test
+    void downloadsCompletelyWithoutStrongETag() throws IOException {
+        Path installed = Files.write(directory.resolve("installed.zip"), zip(ENTRIES));
+        ENTRIES.put("lib/library-7.jar", "changed".getBytes());
+        byte[] updated = zip(ENTRIES);
+        STUB.file("bundle.zip", updated).weakETags(true);
+
+        try (DeltaUpdater updater = new DeltaUpdater()) {
+            DeltaUpdater.Result result = updater.update(installed, STUB.fileUrl("bundle.zip"), directory.resolve("bundle.zip"));
+
+            Assertions.assertArrayEquals(updated, Files.readAllBytes(result.target()));
+            Assertions.assertEquals(0, result.reused());
+        }
+    }
+
+    @Test
+    void downloadsCompletelyIfInstalledIsNoArchive() throws IOException {
+        Path installed = Files.write(directory.resolve("installed.zip"), new byte[1000]);
+        byte[] updated = zip(ENTRIES);
+        STUB.file("bundle.zip", updated);
+
+        try (DeltaUpdater updater = new DeltaUpdater()) {
+            DeltaUpdater.Result result = updater.update(installed, STUB.fileUrl("bundle.zip"), directory.resolve("bundle.zip"));
+
+            Assertions.assertArrayEquals(updated, Files.readAllBytes(result.target()));
+            Assertions.assertEquals(0, result.reused());
+        }
+    }
+
+    @Test
+    void downloadsCompletelyIfRebuiltDoesNotMatch() throws IOException {
+        byte[] corrupted = zip(ENTRIES);
+        corrupted[corrupted.length / 2] ^= 1;
+        Path installed = Files.write(directory.resolve("installed.zip"), corrupted);
+        ENTRIES.put("lib/library-7.jar", "changed".getBytes());
+        byte[] updated = zip(ENTRIES);
+        STUB.file("bundle.zip", updated);
+
+        try (DeltaUpdater updater = new DeltaUpdater()) {
+            ReleaseAsset asset = new ReleaseAsset("bundle.zip", STUB.fileUrl("bundle.zip"), ReleaseFixtures.sha256(updated));
+            DeltaUpdater.Result result = updater.update(installed, asset, directory.resolve("bundle.zip"));
+
+            Assertions.assertArrayEquals(updated, Files.readAllBytes(result.target()));
+            Assertions.assertEquals(0, result.reused());
+        }
+    }
+
+    @Test
+    void downloadsCompletelyIfDirectoryIsCorrupt() throws IOException {
+        Path installed = Files.write(directory.resolve("installed.zip"), zip(ENTRIES));
+        byte[] corrupt = zip(ENTRIES);
+        ByteBuffer buffer = ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = corrupt.length - 22; i >= 0; i--) {
+            if (buffer.getInt(i) == 0x02014b50) {
+                buffer.putShort(i + 28, (short) 0xFFFF);
+                break;
+            }
+        }
+        STUB.file("bundle.zip", corrupt);
+
+        try (DeltaUpdater updater = new DeltaUpdater()) {
+            DeltaUpdater.Result result = updater.update(installed, STUB.fileUrl("bundle.zip"), directory.resolve("bundle.zip"));
+
+            Assertions.assertArrayEquals(corrupt, Files.readAllBytes(result.target()));
+            Assertions.assertEquals(0, result.reused());
+        }
+    }
+
+    private static byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                zipEntry.setTime(1_600_000_000_000L);
+                zip.putNextEntry(zipEntry);
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return archive.toByteArray();
+    }
+}
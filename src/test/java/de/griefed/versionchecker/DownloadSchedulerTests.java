@@ -0,0 +1,124 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class DownloadSchedulerTests {
+
+    private final ReleaseApiStub STUB;
+    private final byte[] CONTENT = new byte[40_000];
+
+    @TempDir
+    Path directory;
+
+    public DownloadSchedulerTests() throws IOException {
+        this.STUB = new ReleaseApiStub();
+        new Random(42).nextBytes(CONTENT);
+        for (String name : new String[] {"large.bin", "critical.bin", "normal.bin", "background.bin"}) {
+            STUB.file(name, name.equals("large.bin") ? CONTENT : new byte[1000]);
+        }
+    }
+
+    @AfterEach
+    void stop() {
+        STUB.close();
+    }
+
+    @Test
+    void runsByPriority() throws Exception {
+        try (DownloadScheduler scheduler = new DownloadScheduler(1, 20_000, 0)) {
+            DownloadScheduler.Transfer large = scheduler.submit(asset("large.bin"), directory, DownloadScheduler.Priority.NORMAL);
+
+            List<String> finished = Collections.synchronizedList(new ArrayList<>());
+            CompletableFuture<?>[] results = new CompletableFuture[3];
+            String[] names = {"background.bin", "normal.bin", "critical.bin"};
+            DownloadScheduler.Priority[] priorities = {
+                    DownloadScheduler.Priority.BACKGROUND, DownloadScheduler.Priority.NORMAL, DownloadScheduler.Priority.CRITICAL
+            };
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i];
+                results[i] = scheduler.submit(asset(name), directory, priorities[i]).result().thenRun(() -> finished.add(name));
+            }
+            Assertions.assertEquals(3, scheduler.queued());
+
+            Assertions.assertEquals(directory.resolve("large.bin"), large.result().get(10, TimeUnit.SECONDS));
+            CompletableFuture.allOf(results).get(10, TimeUnit.SECONDS);
+
+            Assertions.assertEquals(Arrays.asList("critical.bin", "normal.bin", "background.bin"), finished);
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(directory.resolve("large.bin")));
+            Assertions.assertEquals(CONTENT.length, large.transferred());
+            Assertions.assertEquals(CONTENT.length + 3000, scheduler.transferred());
+            Assertions.assertEquals(0, scheduler.queued());
+            Assertions.assertEquals(0, scheduler.active());
+        }
+    }
+
+    @Test
+    void limitsPerHost() throws Exception {
+        try (DownloadScheduler scheduler = new DownloadScheduler(2, 0, 20_000)) {
+            Path firstDirectory = Files.createDirectories(directory.resolve("first"));
+            Path secondDirectory = Files.createDirectories(directory.resolve("second"));
+
+            long started = System.nanoTime();
+            CompletableFuture<Path> first = scheduler.submit(asset("large.bin"), firstDirectory, DownloadScheduler.Priority.NORMAL).result();
+            CompletableFuture<Path> second = scheduler.submit(asset("large.bin"), secondDirectory, DownloadScheduler.Priority.NORMAL).result();
+
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+
+            // 80 KB at 20 KB/s, with the first second worth of tokens available right away.
+            Assertions.assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(2800));
+            Assertions.assertTrue(scheduler.throughput() > 0);
+        }
+    }
+
+    @Test
+    void cancels() throws Exception {
+        try (DownloadScheduler scheduler = new DownloadScheduler(1, 10_000, 0)) {
+            DownloadScheduler.Transfer running = scheduler.submit(asset("large.bin"), directory, DownloadScheduler.Priority.NORMAL);
+            DownloadScheduler.Transfer queued = scheduler.submit(asset("normal.bin"), directory, DownloadScheduler.Priority.NORMAL);
+
+            queued.cancel();
+            Assertions.assertTrue(queued.isCancelled());
+            assertCancelled(queued);
+
+            while (running.transferred() == 0) {
+                Thread.sleep(10);
+            }
+            running.cancel();
+            assertCancelled(running);
+
+            Assertions.assertFalse(Files.exists(directory.resolve("large.bin")));
+            Assertions.assertFalse(Files.exists(directory.resolve("normal.bin")));
+            Assertions.assertTrue(STUB.requests().stream().noneMatch(request -> request.contains("normal.bin")));
+        }
+    }
+
+    private static void assertCancelled(DownloadScheduler.Transfer transfer) throws Exception {
+        try {
+            transfer.result().get(5, TimeUnit.SECONDS);
+            Assertions.fail("Transfer of " + transfer.url() + " was not cancelled.");
+        } catch (ExecutionException | CancellationException ex) {
+            Assertions.assertTrue(ex instanceof CancellationException || ex.getCause() instanceof CancellationException);
+        }
+    }
+
+    private ReleaseAsset asset(String name) {
+        return new ReleaseAsset(name, STUB.fileUrl(name));
+    }
+}
@@ -0,0 +1,142 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class DownloaderTests {
+
+    private final ReleaseApiStub STUB;
+    private final byte[] CONTENT = new byte[100_000];
+
+    @TempDir
+    Path directory;
+
+    public DownloaderTests() throws IOException {
+        this.STUB = new ReleaseApiStub();
+        new Random(42).nextBytes(CONTENT);
+        STUB.file("asset.jar", CONTENT);
+    }
+
+    @AfterEach
+    void stop() {
+        STUB.close();
+    }
+
+    @Test
+    void ranged() throws IOException {
+        try (Downloader downloader = new Downloader(4, 16384)) {
+            Path file = downloader.download(new ReleaseAsset("asset.jar", STUB.fileUrl("asset.jar")), directory);
+
+            Assertions.assertEquals(directory.resolve("asset.jar"), file);
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(file));
+            Assertions.assertEquals(7, STUB.requests().size());
+            try (Stream<Path> files = Files.list(directory)) {
+                Assertions.assertEquals(1, files.count());
+            }
+        }
+    }
+
+    @Test
+    void resumes() throws IOException {
+        Path target = directory.resolve("asset.jar");
+
+        try (Downloader downloader = new Downloader(1, 10_000)) {
+            STUB.fail(500, 3, 4);
+            Assertions.assertThrows(IOException.class, () -> downloader.download(STUB.fileUrl("asset.jar"), target));
+            Assertions.assertFalse(Files.exists(target));
+            Assertions.assertTrue(Files.exists(directory.resolve("asset.jar.part.properties")));
+
+            STUB.requests().clear();
+            downloader.download(STUB.fileUrl("asset.jar"), target);
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+            Assertions.assertEquals(6, STUB.requests().size());
+            Assertions.assertFalse(Files.exists(directory.resolve("asset.jar.part.properties")));
+        }
+    }
+
+    @Test
+    void restartsChangedFile() throws IOException {
+        Path target = directory.resolve("asset.jar");
+
+        try (Downloader downloader = new Downloader(1, 10_000)) {
+            STUB.fail(500, 3, 4);
+            Assertions.assertThrows(IOException.class, () -> downloader.download(STUB.fileUrl("asset.jar"), target));
+
+            byte[] changed = new byte[50_000];
+            new Random(7).nextBytes(changed);
+            STUB.file("asset.jar", changed);
+
+            STUB.requests().clear();
+            downloader.download(STUB.fileUrl("asset.jar"), target);
+            Assertions.assertArrayEquals(changed, Files.readAllBytes(target));
+            Assertions.assertEquals(1, STUB.requests().size());
+        }
+    }
+
+    @Test
+    void singleStream() throws IOException {
+        STUB.ranges(false);
+
+        try (Downloader downloader = new Downloader(4, 16384)) {
+            Path file = downloader.download(new Source(ArchiveType.TAR_GZ, STUB.fileUrl("asset.jar")), directory);
+
+            Assertions.assertEquals(directory.resolve("asset.jar.tar.gz"), file);
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(file));
+            Assertions.assertEquals(1, STUB.requests().size());
+        }
+    }
+
+    @Test
+    void verifiesDigest() throws Exception {
+        String sha256 = ReleaseFixtures.sha256(CONTENT);
+        String sha512 = Checksum.hex(Checksum.newDigest(Checksum.SHA_512).digest(CONTENT));
+        Path target = directory.resolve("asset.jar");
+
+        try (Downloader downloader = new Downloader(3, 7000)) {
+            downloader.download(new ReleaseAsset("asset.jar", STUB.fileUrl("asset.jar"), sha256), directory);
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+
+            try (Downloader many = new Downloader(8, 1000)) {
+                for (int i = 0; i < 5; i++) {
+                    MessageDigest additional = Checksum.newDigest(Checksum.SHA_512);
+                    many.download(STUB.fileUrl("asset.jar"), directory.resolve("many.jar"), Checksum.sha256(sha256), additional);
+                    Assertions.assertEquals(sha512, Checksum.hex(additional.digest()));
+                }
+            }
+
+            Checksum wrong = Checksum.sha256(ReleaseFixtures.sha256(new byte[1]));
+            Assertions.assertThrows(IOException.class, () -> downloader.download(STUB.fileUrl("asset.jar"), directory.resolve("wrong.jar"), wrong));
+            Assertions.assertFalse(Files.exists(directory.resolve("wrong.jar")));
+            Assertions.assertFalse(Files.exists(directory.resolve("wrong.jar.part")));
+            Assertions.assertFalse(Files.exists(directory.resolve("wrong.jar.part.properties")));
+
+            Files.delete(target);
+            try (Downloader single = new Downloader(1, 7000)) {
+                STUB.fail(500, 3, 4);
+                Assertions.assertThrows(IOException.class, () -> single.download(STUB.fileUrl("asset.jar"), target, Checksum.sha512(sha512)));
+            }
+            downloader.download(STUB.fileUrl("asset.jar"), target, Checksum.sha512(sha512));
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+
+            STUB.ranges(false).file("SHA512SUMS", (sha512 + " *asset.jar\n").getBytes(StandardCharsets.UTF_8));
+            Update update = new Update("1.0.0", null, STUB.url(), LocalDate.now(), Arrays.asList(
+                    new ReleaseAsset("asset.jar", STUB.fileUrl("asset.jar")),
+                    new ReleaseAsset("SHA512SUMS", STUB.fileUrl("SHA512SUMS"))), Collections.emptyList());
+            downloader.download(update, update.assets().get().get(0), Files.createDirectories(directory.resolve("stream")));
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(directory.resolve("stream").resolve("asset.jar")));
+        }
+    }
+}
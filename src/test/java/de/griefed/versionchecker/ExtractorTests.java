@@ -0,0 +1,162 @@
+package de.griefed.versionchecker;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ExtractorTests {
+
+    private final ReleaseApiStub STUB;
+    private final Map<String, byte[]> FILES = new LinkedHashMap<>();
+
+    @TempDir
+    Path directory;
+
+    public ExtractorTests() throws IOException {
+        this.STUB = new ReleaseApiStub();
+
+        byte[] large = new byte[100_000];
+        new Random(42).nextBytes(large);
+        FILES.put("Griefed-ServerPackCreator-0c3e8a0/README.md", "# ServerPackCreator".getBytes(StandardCharsets.UTF_8));
+        FILES.put("Griefed-ServerPackCreator-0c3e8a0/gradlew", "#!/bin/sh".getBytes(StandardCharsets.UTF_8));
+        FILES.put("Griefed-ServerPackCreator-0c3e8a0/src/main/resources/large.bin", large);
+        FILES.put("Griefed-ServerPackCreator-0c3e8a0/src/main/resources/empty.txt", new byte[0]);
+    }
+
+    @AfterEach
+    void stop() {
+        STUB.close();
+    }
+
+    @Test
+    void tarGz() throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(archive)) {
+            tar(gzip, FILES);
+        }
+        STUB.file("source.tar.gz", archive.toByteArray());
+
+        try (Extractor extractor = new Extractor(2, 4, 1024)) {
+            extractor.extract(new Source(ArchiveType.TAR_GZ, STUB.fileUrl("source.tar.gz")), directory);
+        }
+        assertExtracted();
+        Assertions.assertTrue(Files.isExecutable(directory.resolve("Griefed-ServerPackCreator-0c3e8a0/gradlew")));
+    }
+
+    @Test
+    void tarBz2() throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (BZip2CompressorOutputStream bzip2 = new BZip2CompressorOutputStream(archive)) {
+            tar(bzip2, FILES);
+        }
+        STUB.file("source.tar.bz2", archive.toByteArray());
+
+        try (Extractor extractor = new Extractor()) {
+            extractor.extract(new Source(ArchiveType.TAR_BZ2, STUB.fileUrl("source.tar.bz2")), directory);
+        }
+        assertExtracted();
+    }
+
+    @Test
+    void zip() throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (Map.Entry<String, byte[]> file : FILES.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue());
+                zip.closeEntry();
+            }
+        }
+        STUB.file("source.zip", archive.toByteArray());
+
+        try (Extractor extractor = new Extractor(4, 2, 1024)) {
+            extractor.extract(new Source(ArchiveType.ZIP, STUB.fileUrl("source.zip")), directory);
+        }
+        assertExtracted();
+    }
+
+    @Test
+    void concurrentExtractions() throws Exception {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            files.put("file" + i + ".bin", FILES.get("Griefed-ServerPackCreator-0c3e8a0/src/main/resources/large.bin"));
+        }
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        tar(archive, files);
+
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        try (Extractor extractor = new Extractor(2, 4, 1024)) {
+            List<Future<Path>> extractions = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                Path target = directory.resolve("concurrent" + i);
+                extractions.add(callers.submit(() -> extractor.extract(new ByteArrayInputStream(archive.toByteArray()), ArchiveType.TAR, target)));
+            }
+            for (Future<Path> extraction : extractions) {
+                Path target = extraction.get(30, TimeUnit.SECONDS);
+                Assertions.assertArrayEquals(files.get("file19.bin"), Files.readAllBytes(target.resolve("file19.bin")));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsEntriesOutsideDirectory() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("../escaped.txt", new byte[1]);
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        tar(archive, files);
+        STUB.file("source.tar", archive.toByteArray());
+
+        try (Extractor extractor = new Extractor()) {
+            Path target = directory.resolve("target");
+            Assertions.assertThrows(IOException.class,
+                    () -> extractor.extract(new Source(ArchiveType.TAR, STUB.fileUrl("source.tar")), target));
+            Assertions.assertFalse(Files.exists(directory.resolve("escaped.txt")));
+        }
+    }
+
+    private void assertExtracted() throws IOException {
+        for (Map.Entry<String, byte[]> file : FILES.entrySet()) {
+            Assertions.assertArrayEquals(file.getValue(), Files.readAllBytes(directory.resolve(file.getKey())));
+        }
+    }
+
+    private static void tar(OutputStream outputStream, Map<String, byte[]> files) throws IOException {
+        TarArchiveOutputStream tar = new TarArchiveOutputStream(outputStream);
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+            entry.setSize(file.getValue().length);
+            entry.setMode(file.getKey().endsWith("gradlew") ? 0100755 : 0100644);
+            tar.putArchiveEntry(entry);
+            tar.write(file.getValue());
+            tar.closeArchiveEntry();
+        }
+        tar.finish();
+    }
+}
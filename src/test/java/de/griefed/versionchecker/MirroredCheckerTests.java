@@ -0,0 +1,68 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class MirroredCheckerTests {
+
+    private final ReleaseApiStub PRIMARY;
+    private final ReleaseApiStub SECONDARY;
+
+    public MirroredCheckerTests() throws IOException {
+        this.PRIMARY = new ReleaseApiStub();
+        this.SECONDARY = new ReleaseApiStub();
+    }
+
+    @AfterEach
+    void stop() {
+        PRIMARY.close();
+        SECONDARY.close();
+    }
+
+    @Test
+    void hedges() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(PRIMARY.url(), "Griefed/ServerPackCreator");
+        GitLabChecker gitLab = new GitLabChecker(SECONDARY.gitLabUrl(63));
+        MirroredChecker mirrored = new MirroredChecker(gitHub, gitLab);
+
+        mirrored.refresh();
+        Assertions.assertSame(gitHub, mirrored.getActiveSource());
+        Assertions.assertTrue(SECONDARY.requests().isEmpty());
+
+        mirrored.setHedgeDelay(Duration.ofMillis(300));
+        PRIMARY.latency(1500);
+        long started = System.nanoTime();
+        mirrored.refresh();
+        Assertions.assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(1200));
+        Assertions.assertSame(gitLab, mirrored.getActiveSource());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), mirrored.allVersions().get(0));
+        Assertions.assertEquals(ReleaseFixtures.tag(29), mirrored.check("1.0.0", false).get().version());
+    }
+
+    @Test
+    void failsOver() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(PRIMARY.url(), "Griefed/ServerPackCreator");
+        GitLabChecker gitLab = new GitLabChecker(SECONDARY.gitLabUrl(63));
+        MirroredChecker mirrored = new MirroredChecker(gitHub, gitLab);
+
+        PRIMARY.fail(503, 3);
+        for (int i = 0; i < 3; i++) {
+            mirrored.refresh();
+            Assertions.assertSame(gitLab, mirrored.getActiveSource());
+        }
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, mirrored.getCircuitBreaker(gitHub).get().state());
+
+        PRIMARY.requests().clear();
+        mirrored.refresh();
+        Assertions.assertTrue(PRIMARY.requests().isEmpty());
+        Assertions.assertEquals(20, mirrored.allVersions().size());
+
+        SECONDARY.fail(503, 1);
+        Assertions.assertThrows(IOException.class, mirrored::refresh);
+    }
+}
@@ -0,0 +1,376 @@
+package de.griefed.versionchecker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+public class OfflineCheckerTests {
+
+    private final ReleaseApiStub STUB;
+
+    public OfflineCheckerTests() throws IOException {
+        this.STUB = new ReleaseApiStub();
+    }
+
+    @AfterEach
+    void stop() {
+        STUB.close();
+    }
+
+    @Test
+    void gitHub() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator").refresh();
+
+        Assertions.assertEquals(ReleaseFixtures.tag(29), gitHub.latestVersion(false));
+        Assertions.assertEquals(ReleaseFixtures.tag(29), gitHub.latestVersion(true));
+        Assertions.assertEquals(ReleaseFixtures.tag(27), gitHub.latestAlpha());
+        Assertions.assertEquals(ReleaseFixtures.tag(28), gitHub.latestBeta());
+        Assertions.assertEquals(30, gitHub.allVersions().size());
+
+        Assertions.assertEquals("No updates available.", gitHub.checkForUpdate(ReleaseFixtures.tag(29), true));
+        Assertions.assertEquals(ReleaseFixtures.tag(29), gitHub.checkForUpdate("1.0.0", false).split(";")[0]);
+
+        Optional<Update> update = gitHub.check("1.0.0", false);
+        Assertions.assertTrue(update.isPresent());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), update.get().version());
+        Assertions.assertEquals(2, update.get().assets().get().size());
+        Assertions.assertEquals("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08", update.get().assets().get().get(0).sha256().get());
+        Assertions.assertFalse(update.get().assets().get().get(1).sha256().isPresent());
+        Assertions.assertNotNull(update.get().sourceZip());
+        Assertions.assertNotNull(update.get().sourceTarGz());
+        Assertions.assertFalse(gitHub.check(ReleaseFixtures.tag(29), false).isPresent());
+    }
+
+    @Test
+    void gitLab() throws IOException {
+        GitLabChecker gitLab = new GitLabChecker(STUB.gitLabUrl(63)).refresh();
+
+        Assertions.assertEquals(ReleaseFixtures.tag(29), gitLab.latestVersion(false));
+        Assertions.assertEquals(ReleaseFixtures.tag(27), gitLab.latestAlpha());
+        Assertions.assertEquals(ReleaseFixtures.tag(28), gitLab.latestBeta());
+
+        Optional<Update> update = gitLab.check("1.0.0-beta.1", false);
+        Assertions.assertTrue(update.isPresent());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), update.get().version());
+        Assertions.assertEquals(4, update.get().sources().size());
+        Assertions.assertTrue(update.get().sourceTarBz2().isPresent());
+        Assertions.assertTrue(update.get().getReleaseAsset("serverpackcreator-" + ReleaseFixtures.tag(29) + ".jar").isPresent());
+    }
+
+    @Test
+    void failures() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator");
+
+        STUB.fail(502, 1);
+        Assertions.assertThrows(IOException.class, gitHub::refresh);
+        Assertions.assertNotNull(gitHub.refresh());
+
+        STUB.rateLimit(60, 0);
+        Assertions.assertThrows(IOException.class, gitHub::refresh);
+    }
+
+    @Test
+    void metrics() throws IOException {
+        AggregatingMetrics metrics = new AggregatingMetrics();
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator");
+        gitHub.setMetrics(metrics);
+
+        gitHub.refresh();
+        gitHub.refresh();
+        gitHub.check("1.0.0", false);
+
+        AggregatingMetrics.Stats stats = metrics.stats(STUB.url().getHost(), "Griefed/ServerPackCreator");
+        Assertions.assertEquals(4, stats.requests());
+        Assertions.assertEquals(2, stats.revalidations());
+        Assertions.assertEquals(1, stats.parses());
+        Assertions.assertEquals(30, stats.releases());
+        Assertions.assertEquals(1, stats.updatesFound());
+        Assertions.assertTrue(stats.bytes() > 0);
+        Assertions.assertEquals(304, stats.lastStatus());
+    }
+
+    @Test
+    void incrementalRefresh() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator").refresh();
+
+        STUB.releases(32);
+        STUB.requests().clear();
+        gitHub.refreshIncrementally();
+
+        Assertions.assertEquals(32, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(31), gitHub.allVersions().get(0));
+        Assertions.assertEquals(ReleaseFixtures.tag(31), gitHub.latestBeta());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), gitHub.latestVersion(false));
+        Assertions.assertEquals("/repos/Griefed/ServerPackCreator/releases?per_page=10", STUB.requests().get(0));
+
+        STUB.requests().clear();
+        gitHub.refreshIncrementally();
+        Assertions.assertEquals(32, gitHub.allVersions().size());
+
+        STUB.releases(62);
+        STUB.requests().clear();
+        GitLabChecker gitLab = new GitLabChecker(STUB.gitLabUrl(63)).refresh();
+        Assertions.assertEquals(20, gitLab.allVersions().size());
+
+        STUB.releases(92);
+        gitLab.refreshIncrementally();
+        Assertions.assertEquals(50, gitLab.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(91), gitLab.allVersions().get(0));
+        Assertions.assertEquals(ReleaseFixtures.tag(42), gitLab.allVersions().get(49));
+        Assertions.assertEquals(5, STUB.requests().size());
+    }
+
+    @Test
+    void incrementalRefreshAfterFailure() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator").refresh();
+
+        STUB.releases(45).fail(500, 1, 1);
+        Assertions.assertThrows(IOException.class, gitHub::refreshIncrementally);
+        gitHub.refreshIncrementally();
+        Assertions.assertEquals(45, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(44), gitHub.allVersions().get(0));
+
+        GitHubChecker feed = new GitHubChecker(STUB.url(), "Griefed/Feed");
+        STUB.releases(30);
+        feed.refresh();
+        STUB.releases(45).fail(500, 1, 2);
+        Assertions.assertThrows(IOException.class, feed::refreshFromFeed);
+        feed.refreshFromFeed();
+        Assertions.assertEquals(45, feed.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(44), feed.allVersions().get(0));
+    }
+
+    @Test
+    void headProbe() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator");
+        Assertions.assertTrue(gitHub.isChanged());
+        gitHub.refresh();
+
+        Assertions.assertFalse(gitHub.isChanged());
+        Assertions.assertFalse(gitHub.isChanged());
+
+        STUB.releases(31);
+        STUB.requests().clear();
+        gitHub.refreshIfChanged();
+        Assertions.assertEquals(ReleaseFixtures.tag(30), gitHub.allVersions().get(0));
+        Assertions.assertEquals("/repos/Griefed/ServerPackCreator/releases?per_page=1", STUB.requests().get(0));
+        Assertions.assertEquals(3, STUB.requests().size());
+
+        STUB.requests().clear();
+        gitHub.refreshIfChanged();
+        Assertions.assertEquals(1, STUB.requests().size());
+
+        STUB.releases(32).fail(500, 1, 1);
+        Assertions.assertThrows(IOException.class, gitHub::refreshIfChanged);
+        Assertions.assertEquals(ReleaseFixtures.tag(30), gitHub.allVersions().get(0));
+        gitHub.refreshIfChanged();
+        Assertions.assertEquals(ReleaseFixtures.tag(31), gitHub.allVersions().get(0));
+
+        GitLabChecker gitLab = new GitLabChecker(STUB.gitLabUrl(63)).refresh();
+        Assertions.assertFalse(gitLab.isChanged());
+        STUB.releases(33);
+        Assertions.assertTrue(gitLab.isChanged());
+    }
+
+    @Test
+    void tagFilter() throws IOException {
+        Assertions.assertEquals("1.2.3", TagFilter.prefix("server-").version("server-1.2.3"));
+        Assertions.assertNull(TagFilter.prefix("server-").version("client-1.2.3"));
+        Assertions.assertEquals("1.2.3", TagFilter.pattern(Pattern.compile("server/v(.+)")).version("server/v1.2.3"));
+
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator");
+        gitHub.setTagFilter(TagFilter.pattern(Pattern.compile("\\d+\\.\\d+\\.\\d+")));
+        gitHub.refresh();
+
+        Assertions.assertEquals(10, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), gitHub.latestVersion(true));
+        Assertions.assertEquals(ReleaseFixtures.tag(29), gitHub.check("1.0.5", true).get().version());
+        Assertions.assertEquals(1, STUB.requests().size());
+
+        STUB.releases(33);
+        gitHub.refreshIncrementally();
+        Assertions.assertEquals(11, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(32), gitHub.latestVersion(false));
+        Assertions.assertFalse(gitHub.isChanged());
+        STUB.releases(34);
+        Assertions.assertTrue(gitHub.isChanged());
+
+        GitLabChecker gitLab = new GitLabChecker(STUB.gitLabUrl(63));
+        gitLab.setTagFilter(TagFilter.pattern(Pattern.compile("(\\d+\\.\\d+\\.\\d+)-beta\\.1")));
+        gitLab.refresh();
+
+        Assertions.assertEquals(6, gitLab.allVersions().size());
+        Assertions.assertEquals("1.1.0", gitLab.allVersions().get(0));
+        Optional<Update> update = gitLab.check("1.0.9", false);
+        Assertions.assertTrue(update.isPresent());
+        Assertions.assertEquals("1.1.0", update.get().version());
+        Assertions.assertNotEquals("No URL found.", gitLab.getDownloadUrl("1.1.0"));
+
+        STUB.releases(30);
+        GitHubChecker refiltered = new GitHubChecker(STUB.url(), "Griefed/Refiltered").refresh();
+        Assertions.assertEquals(30, refiltered.allVersions().size());
+        refiltered.setTagFilter(TagFilter.pattern(Pattern.compile("\\d+\\.\\d+\\.\\d+")));
+        refiltered.refresh();
+        Assertions.assertEquals(10, refiltered.allVersions().size());
+
+        GitLabChecker refilteredGitLab = new GitLabChecker(STUB.gitLabUrl(64)).refresh();
+        refilteredGitLab.setTagFilter(gitLab.getTagFilter().get());
+        refilteredGitLab.refresh();
+        GitLabChecker filteredGitLab = new GitLabChecker(STUB.gitLabUrl(65));
+        filteredGitLab.setTagFilter(gitLab.getTagFilter().get());
+        Assertions.assertEquals(filteredGitLab.refresh().allVersions(), refilteredGitLab.allVersions());
+    }
+
+    @Test
+    void feed() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator").refreshFromFeed();
+
+        Assertions.assertEquals(10, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), gitHub.latestVersion(false));
+        Assertions.assertEquals(ReleaseFixtures.tag(28), gitHub.latestBeta());
+        Assertions.assertEquals("/Griefed/ServerPackCreator/releases.atom", STUB.requests().get(0));
+
+        Optional<Update> update = gitHub.check("1.0.5", false);
+        Assertions.assertTrue(update.isPresent());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), update.get().version());
+        Assertions.assertEquals(2, update.get().sources().size());
+        Assertions.assertEquals(1, STUB.requests().size());
+
+        Assertions.assertEquals(2, update.get().assets().get().size());
+        Assertions.assertEquals("/repos/Griefed/ServerPackCreator/releases/tags/" + ReleaseFixtures.tag(29), STUB.requests().get(1));
+        Assertions.assertEquals(2, gitHub.check("1.0.5", false).get().assets().get().size());
+        Assertions.assertEquals(2, STUB.requests().size());
+
+        STUB.releases(32);
+        gitHub.refreshFromFeed();
+        Assertions.assertEquals(12, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(31), gitHub.allVersions().get(0));
+
+        List<ReleaseDiff> diffs = new CopyOnWriteArrayList<>();
+        gitHub.addListener((checker, diff) -> diffs.add(diff));
+
+        STUB.releases(45);
+        gitHub.refreshFromFeed();
+        Assertions.assertEquals(25, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(44), gitHub.latestVersion(false));
+
+        gitHub.refresh();
+        Assertions.assertFalse(diffs.isEmpty());
+        for (ReleaseDiff diff : diffs) {
+            Assertions.assertTrue(diff.edited().isEmpty());
+        }
+    }
+
+    @Test
+    void listeners() throws IOException {
+        List<ReleaseDiff> diffs = new CopyOnWriteArrayList<>();
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator");
+        gitHub.addListener((checker, diff) -> diffs.add(diff));
+
+        gitHub.refresh();
+        Assertions.assertEquals(1, diffs.size());
+        Assertions.assertEquals(30, diffs.get(0).added().size());
+        Assertions.assertEquals(Optional.of(ReleaseFixtures.tag(29)), diffs.get(0).latest(ReleaseDiff.Channel.RELEASE));
+        Assertions.assertTrue(diffs.get(0).isLatestChanged(ReleaseDiff.Channel.ALPHA));
+
+        gitHub.refresh();
+        gitHub.refreshIncrementally();
+        Assertions.assertEquals(1, diffs.size());
+
+        STUB.releases(31);
+        gitHub.refreshIncrementally();
+        Assertions.assertEquals(2, diffs.size());
+        ReleaseDiff diff = diffs.get(1);
+        Assertions.assertEquals(Collections.singletonList(ReleaseFixtures.tag(30)), diff.added());
+        Assertions.assertTrue(diff.removed().isEmpty());
+        Assertions.assertTrue(diff.isLatestChanged(ReleaseDiff.Channel.ALPHA));
+        Assertions.assertFalse(diff.isLatestChanged(ReleaseDiff.Channel.RELEASE));
+        Assertions.assertFalse(diff.isLatestChanged(ReleaseDiff.Channel.BETA));
+
+        STUB.releases(29);
+        gitHub.refresh();
+        Assertions.assertEquals(3, diffs.size());
+        Assertions.assertEquals(2, diffs.get(2).removed().size());
+        Assertions.assertEquals(Optional.of(ReleaseFixtures.tag(26)), diffs.get(2).latest(ReleaseDiff.Channel.RELEASE));
+    }
+
+    @Test
+    void partialRefresh() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator").refresh();
+        JsonNode snapshot = gitHub.getSnapshot();
+
+        STUB.releases(33).fail(500, 1, 1);
+        FetchResult<VersionChecker> failed = gitHub.refresh(Duration.ofSeconds(10));
+        Assertions.assertEquals(FetchResult.Status.UNAVAILABLE, failed.status());
+        Assertions.assertSame(snapshot, gitHub.getSnapshot());
+        Assertions.assertEquals(30, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), gitHub.latestVersion(true));
+
+        Assertions.assertFalse(gitHub.refresh(Duration.ofSeconds(10)).isStale());
+        Assertions.assertEquals(ReleaseFixtures.tag(32), gitHub.latestVersion(true));
+    }
+
+    @Test
+    void deadlines() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator");
+        Assertions.assertEquals(FetchResult.Status.FRESH, gitHub.refresh(Duration.ofSeconds(10)).status());
+
+        STUB.latency(1000);
+        long started = System.nanoTime();
+        FetchResult<Optional<Update>> timedOut = gitHub.check("1.0.0", false, Duration.ofMillis(200));
+        Assertions.assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(900));
+        Assertions.assertEquals(FetchResult.Status.TIMED_OUT, timedOut.status());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), timedOut.value().get().version());
+
+        GitHubChecker empty = new GitHubChecker(STUB.url(), "Griefed/Other");
+        Assertions.assertThrows(IOException.class, () -> empty.refresh(Duration.ofMillis(200)));
+        for (int i = 0; i < 6; i++) {
+            Assertions.assertEquals(FetchResult.Status.TIMED_OUT, gitHub.refresh(Duration.ZERO).status());
+        }
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, VersionChecker.getCircuitBreaker(STUB.url()).state());
+
+        STUB.latency(0);
+        Assertions.assertFalse(gitHub.refresh(Duration.ofSeconds(10)).isStale());
+
+        STUB.fail(503, 5);
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(FetchResult.Status.UNAVAILABLE, gitHub.refresh(Duration.ofSeconds(10)).status());
+        }
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, VersionChecker.getCircuitBreaker(STUB.url()).state());
+
+        STUB.requests().clear();
+        FetchResult<VersionChecker> unavailable = gitHub.refresh(Duration.ofSeconds(10));
+        Assertions.assertTrue(unavailable.cause().get() instanceof HostUnavailableException);
+        Assertions.assertTrue(STUB.requests().isEmpty());
+        Assertions.assertEquals(30, gitHub.allVersions().size());
+    }
+
+    @Test
+    void abandonedProbe() throws Exception {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator");
+        Assertions.assertEquals(FetchResult.Status.FRESH, gitHub.refresh(Duration.ofSeconds(10)).status());
+
+        VersionChecker.setCircuitBreaker(STUB.url(), new CircuitBreaker(1, Duration.ofMillis(50)));
+        STUB.fail(503, 1);
+        Assertions.assertEquals(FetchResult.Status.UNAVAILABLE, gitHub.refresh(Duration.ofSeconds(10)).status());
+        Thread.sleep(100);
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, VersionChecker.getCircuitBreaker(STUB.url()).state());
+
+        STUB.latency(500);
+        Assertions.assertEquals(FetchResult.Status.TIMED_OUT, gitHub.refresh(Duration.ofMillis(100)).status());
+
+        STUB.latency(0);
+        Assertions.assertEquals(FetchResult.Status.FRESH, gitHub.refresh(Duration.ofSeconds(10)).status());
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, VersionChecker.getCircuitBreaker(STUB.url()).state());
+    }
+}
@@ -0,0 +1,71 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class PollingSchedulerTests {
+
+    private static final Duration MIN = Duration.ofMinutes(1);
+    private static final Duration MAX = Duration.ofDays(1);
+
+    @Test
+    void interval() {
+        Instant newest = Instant.parse("2022-06-01T12:00:00Z");
+
+        Assertions.assertEquals(Duration.ofMinutes(30),
+                PollingScheduler.interval(releases(newest, Duration.ofHours(6)), newest.plus(Duration.ofHours(1)), MIN, MAX));
+
+        Assertions.assertEquals(Duration.ofHours(2),
+                PollingScheduler.interval(releases(newest, Duration.ofHours(6)), newest.plus(Duration.ofDays(1)), MIN, MAX));
+
+        Assertions.assertEquals(MAX,
+                PollingScheduler.interval(releases(newest, Duration.ofDays(365)), newest, MIN, MAX));
+
+        Assertions.assertEquals(MIN,
+                PollingScheduler.interval(releases(newest, Duration.ofMinutes(5)), newest, MIN, MAX));
+
+        Assertions.assertEquals(37, PollingScheduler.interval(Collections.emptyList(), newest, MIN, MAX).toMinutes());
+    }
+
+    @Test
+    void polls() throws IOException, InterruptedException {
+        try (ReleaseApiStub stub = new ReleaseApiStub();
+             PollingScheduler scheduler = new PollingScheduler(Duration.ofMillis(20), Duration.ofMillis(50), 360000)) {
+
+            GitHubChecker gitHub = new GitHubChecker(stub.url(), "Griefed/ServerPackCreator").refresh();
+            GitLabChecker gitLab = new GitLabChecker(stub.gitLabUrl(63)).refresh();
+            scheduler.schedule(gitHub).schedule(gitLab);
+
+            Assertions.assertEquals(Duration.ofMillis(50), scheduler.getInterval(gitHub).get());
+
+            stub.releases(31);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((!gitHub.allVersions().get(0).equals(ReleaseFixtures.tag(30)) ||
+                    !gitLab.allVersions().get(0).equals(ReleaseFixtures.tag(30))) && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            Assertions.assertEquals(ReleaseFixtures.tag(30), gitHub.allVersions().get(0));
+            Assertions.assertEquals(ReleaseFixtures.tag(30), gitLab.allVersions().get(0));
+
+            scheduler.unschedule(gitHub);
+            Assertions.assertFalse(scheduler.getInterval(gitHub).isPresent());
+        }
+    }
+
+    private static List<Instant> releases(Instant newest, Duration gap) {
+        List<Instant> releases = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            releases.add(newest.minus(gap.multipliedBy(i)));
+        }
+        return releases;
+    }
+}
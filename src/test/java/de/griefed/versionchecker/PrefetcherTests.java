@@ -0,0 +1,90 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+public class PrefetcherTests {
+
+    private final ReleaseApiStub STUB;
+    private final byte[] CONTENT = new byte[40_000];
+
+    @TempDir
+    Path directory;
+
+    public PrefetcherTests() throws IOException {
+        this.STUB = new ReleaseApiStub();
+        new Random(42).nextBytes(CONTENT);
+        STUB.file("app-linux.tar.gz", CONTENT).file("app-windows.zip", new byte[10]);
+    }
+
+    @AfterEach
+    void stop() {
+        STUB.close();
+    }
+
+    @Test
+    void stagesSelectedAssets() throws Exception {
+        try (Prefetcher prefetcher = new Prefetcher(directory, Prefetcher.named(Pattern.compile(".*linux.*")), 20_000)) {
+            Update update = update();
+            Assertions.assertFalse(update.getStagedAsset("app-linux.tar.gz").isPresent());
+
+            long started = System.nanoTime();
+            prefetcher.prefetch(update).get(10, TimeUnit.SECONDS);
+            Assertions.assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(900));
+
+            Path staged = update.getStagedAsset("app-linux.tar.gz").get();
+            Assertions.assertEquals(directory.resolve("1.2.3").resolve("app-linux.tar.gz"), staged);
+            Assertions.assertArrayEquals(CONTENT, Files.readAllBytes(staged));
+            Assertions.assertFalse(update.getStagedAsset("app-windows.zip").isPresent());
+            Assertions.assertEquals(1, STUB.requests().size());
+
+            Update again = update();
+            prefetcher.prefetch(again).get(1, TimeUnit.SECONDS);
+            Assertions.assertEquals(staged, again.getStagedAsset("app-linux.tar.gz").get());
+            Assertions.assertEquals(1, STUB.requests().size());
+        }
+    }
+
+    @Test
+    void retriesFailedAssets() throws Exception {
+        STUB.fail(500, 1, 0);
+
+        try (Prefetcher prefetcher = new Prefetcher(directory, asset -> asset.name().endsWith(".zip"), 1_000_000)) {
+            Update update = update();
+            Assertions.assertThrows(ExecutionException.class, () -> prefetcher.prefetch(update).get(10, TimeUnit.SECONDS));
+            Assertions.assertFalse(update.getStagedAsset("app-windows.zip").isPresent());
+
+            prefetcher.prefetch(update).get(10, TimeUnit.SECONDS);
+            Assertions.assertTrue(update.getStagedAsset("app-windows.zip").isPresent());
+        }
+    }
+
+    @Test
+    void cancelsOnClose() throws Exception {
+        Prefetcher prefetcher = new Prefetcher(directory, asset -> true, 20_000);
+        CompletableFuture<Void> prefetched = prefetcher.prefetch(update());
+        prefetcher.close();
+
+        Assertions.assertThrows(ExecutionException.class, () -> prefetched.get(1, TimeUnit.SECONDS));
+    }
+
+    private Update update() {
+        return new Update("1.2.3", null, STUB.url(), LocalDate.now(), Arrays.asList(
+                new ReleaseAsset("app-linux.tar.gz", STUB.fileUrl("app-linux.tar.gz")),
+                new ReleaseAsset("app-windows.zip", STUB.fileUrl("app-windows.zip"))), Collections.emptyList());
+    }
+}
@@ -0,0 +1,399 @@
+package de.griefed.versionchecker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded stand-in for the GitHub and GitLab release APIs, serving {@link ReleaseFixtures} on the loopback interface.
+ * <br>
+ * Routes:<br>
+ * <code>/repos/{owner}/{repo}/releases</code> and <code>/repos/{owner}/{repo}/releases/latest</code>, paginated with
+ * <code>per_page</code>/<code>page</code> and a default page size of 30, like GitHub.<br>
+ * <code>/repos/{owner}/{repo}/releases/tags/{tag}</code>.<br>
+ * <code>/{owner}/{repo}/releases.atom</code>, the Atom feed of the ten newest releases.<br>
+ * <code>/api/v4/projects/{id}/releases</code>, paginated with a default page size of 20, like GitLab.<br>
+ * <code>/downloads/{name}</code>, files added with {@link #file(String, byte[])}, supporting <code>Range</code> and
+ * <code>If-Range</code> requests unless disabled.<br>
+ * Every response carries an <code>ETag</code>, answers matching <code>If-None-Match</code> requests with 304, and reports
+ * GitHub-style rate-limit headers. Latency, failures and the amount of releases can be changed at any time.
+ */
+public class ReleaseApiStub implements AutoCloseable {
+
+    private final HttpServer SERVER;
+    private final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+    private final List<String> REQUESTS = new CopyOnWriteArrayList<>();
+    private final Deque<Integer> FAILURES = new ArrayDeque<>();
+    private final Map<String, String> HEADERS = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, byte[]> FILES = new ConcurrentHashMap<>();
+
+    private volatile int releases = 30;
+    private volatile long latencyMillis = 0;
+    private volatile int rateLimit = 5000;
+    private volatile int rateLimitRemaining = 5000;
+    private volatile boolean ranges = true;
+    private volatile boolean weakETags = false;
+    private int failuresAfter = 0;
+
+    public ReleaseApiStub() throws IOException {
+        this.SERVER = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.SERVER.createContext("/", this::handle);
+        this.SERVER.setExecutor(EXECUTOR);
+        this.SERVER.start();
+    }
+
+    /**
+     * @return Base URL of this stub, ending with a slash. Use it as the GitHub API of a {@link GitHubChecker}.
+     */
+    public URL url() {
+        try {
+            return new URL("http://" + SERVER.getAddress().getHostString() + ":" + SERVER.getAddress().getPort() + "/");
+        } catch (MalformedURLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @param project GitLab project ID.
+     * @return URL of the releases of the given project, for use with a {@link GitLabChecker}.
+     */
+    public URL gitLabUrl(int project) {
+        try {
+            return new URL(url(), "api/v4/projects/" + project + "/releases");
+        } catch (MalformedURLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Set the amount of releases every repository and project has.
+     */
+    public ReleaseApiStub releases(int count) {
+        this.releases = count;
+        return this;
+    }
+
+    /**
+     * Delay every response by the given amount of milliseconds.
+     */
+    public ReleaseApiStub latency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    /**
+     * Answer the next <code>times</code> requests with the given status code instead of the fixtures.
+     */
+    public ReleaseApiStub fail(int status, int times) {
+        synchronized (FAILURES) {
+            for (int i = 0; i < times; i++) {
+                FAILURES.add(status);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Answer <code>times</code> requests with the given status code, once <code>after</code> further requests were
+     * answered normally.
+     */
+    public ReleaseApiStub fail(int status, int times, int after) {
+        synchronized (FAILURES) {
+            this.failuresAfter = after;
+        }
+        return fail(status, times);
+    }
+
+    /**
+     * Serve the given content at <code>/downloads/{name}</code>.
+     */
+    public ReleaseApiStub file(String name, byte[] content) {
+        FILES.put(name, content);
+        return this;
+    }
+
+    /**
+     * @return URL of the file with the given name.
+     */
+    public URL fileUrl(String name) {
+        try {
+            return new URL(url(), "downloads/" + name);
+        } catch (MalformedURLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Whether to answer <code>Range</code> requests for files with partial content.
+     */
+    public ReleaseApiStub ranges(boolean supported) {
+        this.ranges = supported;
+        return this;
+    }
+
+    /**
+     * Whether the <code>ETag</code> of files is weak.
+     */
+    public ReleaseApiStub weakETags(boolean weak) {
+        this.weakETags = weak;
+        return this;
+    }
+
+    /**
+     * Add a header to every response.
+     */
+    public ReleaseApiStub header(String name, String value) {
+        HEADERS.put(name, value);
+        return this;
+    }
+
+    /**
+     * Set the rate-limit of this stub. Once the remaining requests are used up, requests are answered with 403.
+     */
+    public ReleaseApiStub rateLimit(int limit, int remaining) {
+        this.rateLimit = limit;
+        this.rateLimitRemaining = remaining;
+        return this;
+    }
+
+    /**
+     * @return Path and query of every request received so far, in order.
+     */
+    public List<String> requests() {
+        return REQUESTS;
+    }
+
+    @Override
+    public void close() {
+        SERVER.stop(0);
+        EXECUTOR.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String query = exchange.getRequestURI().getRawQuery();
+            String path = exchange.getRequestURI().getPath();
+            REQUESTS.add(query == null ? path : path + "?" + query);
+
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+
+            for (Map.Entry<String, String> header : HEADERS.entrySet()) {
+                exchange.getResponseHeaders().set(header.getKey(), header.getValue());
+            }
+
+            Integer failure = null;
+            synchronized (FAILURES) {
+                if (failuresAfter > 0 && !FAILURES.isEmpty()) {
+                    failuresAfter--;
+                } else {
+                    failure = FAILURES.poll();
+                }
+            }
+            if (failure != null) {
+                send(exchange, failure, "{\"message\":\"Injected failure\"}");
+                return;
+            }
+
+            if (path.startsWith("/downloads/")) {
+                byte[] file = FILES.get(path.substring("/downloads/".length()));
+                if (file == null) {
+                    send(exchange, 404, "{\"message\":\"Not Found\"}");
+                } else {
+                    sendFile(exchange, file);
+                }
+                return;
+            }
+
+            int remaining;
+            synchronized (this) {
+                remaining = rateLimitRemaining > 0 ? --rateLimitRemaining : -1;
+            }
+            exchange.getResponseHeaders().set("X-RateLimit-Limit", String.valueOf(rateLimit));
+            exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(Math.max(remaining, 0)));
+            exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600));
+            if (remaining < 0) {
+                send(exchange, 403, "{\"message\":\"API rate limit exceeded\"}");
+                return;
+            }
+
+            Map<String, String> parameters = parameters(query);
+            int count = releases;
+
+            if (path.matches("/repos/[^/]+/[^/]+/releases/latest")) {
+                if (ReleaseFixtures.latestIndex(count) < 0) {
+                    send(exchange, 404, "{\"message\":\"Not Found\"}");
+                } else {
+                    send(exchange, 200, ReleaseFixtures.gitHubLatest(count));
+                }
+
+            } else if (path.matches("/repos/[^/]+/[^/]+/releases/tags/[^/]+")) {
+                String tag = path.substring(path.lastIndexOf('/') + 1);
+                int index = -1;
+                for (int i = 0; i < count; i++) {
+                    if (ReleaseFixtures.tag(i).equals(tag)) {
+                        index = i;
+                    }
+                }
+                if (index < 0) {
+                    send(exchange, 404, "{\"message\":\"Not Found\"}");
+                } else {
+                    send(exchange, 200, ReleaseFixtures.gitHubRelease(index));
+                }
+
+            } else if (path.matches("/[^/]+/[^/]+/releases\\.atom")) {
+                send(exchange, 200, ReleaseFixtures.gitHubFeed(count), "application/atom+xml; charset=utf-8");
+
+            } else if (path.matches("/repos/[^/]+/[^/]+/releases")) {
+                int perPage = integer(parameters, "per_page", 30);
+                int page = integer(parameters, "page", 1);
+                link(exchange, path, parameters, page, perPage, count);
+                send(exchange, 200, ReleaseFixtures.gitHubReleases(count, (page - 1) * perPage, page * perPage));
+
+            } else if (path.matches("/api/v4/projects/[^/]+/releases")) {
+                int perPage = integer(parameters, "per_page", 20);
+                int page = integer(parameters, "page", 1);
+                link(exchange, path, parameters, page, perPage, count);
+                exchange.getResponseHeaders().set("X-Total", String.valueOf(count));
+                exchange.getResponseHeaders().set("X-Total-Pages", String.valueOf(pages(count, perPage)));
+                send(exchange, 200, ReleaseFixtures.gitLabReleases(count, (page - 1) * perPage, page * perPage));
+
+            } else {
+                send(exchange, 404, "{\"message\":\"Not Found\"}");
+            }
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void link(HttpExchange exchange, String path, Map<String, String> parameters, int page, int perPage, int count) {
+        int last = pages(count, perPage);
+        if (last <= 1) {
+            return;
+        }
+
+        StringBuilder link = new StringBuilder();
+        if (page < last) {
+            link.append('<').append(pageUrl(path, parameters, page + 1)).append(">; rel=\"next\", ");
+        }
+        if (page > 1) {
+            link.append('<').append(pageUrl(path, parameters, page - 1)).append(">; rel=\"prev\", ");
+            link.append('<').append(pageUrl(path, parameters, 1)).append(">; rel=\"first\", ");
+        }
+        link.append('<').append(pageUrl(path, parameters, last)).append(">; rel=\"last\"");
+        exchange.getResponseHeaders().set("Link", link.toString());
+    }
+
+    private String pageUrl(String path, Map<String, String> parameters, int page) {
+        StringBuilder url = new StringBuilder(url().toString()).append(path.substring(1)).append('?');
+        Map<String, String> query = new LinkedHashMap<>(parameters);
+        query.put("page", String.valueOf(page));
+        for (Map.Entry<String, String> parameter : query.entrySet()) {
+            url.append(parameter.getKey()).append('=').append(parameter.getValue()).append('&');
+        }
+        return url.substring(0, url.length() - 1);
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, body, "application/json; charset=utf-8");
+    }
+
+    private void send(HttpExchange exchange, int status, String body, String contentType) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        if (status == 200) {
+            String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private void sendFile(HttpExchange exchange, byte[] file) throws IOException {
+        String etag = (weakETags ? "W/" : "") + "\"" + Integer.toHexString(Arrays.hashCode(file)) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        int start = 0;
+        int end = file.length;
+        int status = 200;
+
+        if (ranges && range != null && range.startsWith("bytes=") && (ifRange == null || ifRange.equals(etag))) {
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            if (bounds[0].isEmpty()) {
+                start = Math.max(0, file.length - Integer.parseInt(bounds[1]));
+            } else {
+                start = Integer.parseInt(bounds[0]);
+                end = bounds.length > 1 ? Math.min(file.length, Integer.parseInt(bounds[1]) + 1) : file.length;
+            }
+            if (start >= file.length) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + file.length);
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + file.length);
+            status = 206;
+        }
+
+        exchange.sendResponseHeaders(status, end - start);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(file, start, end - start);
+        }
+    }
+
+    private static int pages(int count, int perPage) {
+        return Math.max(1, (count + perPage - 1) / perPage);
+    }
+
+    private static int integer(Map<String, String> parameters, String name, int fallback) {
+        String value = parameters.get(name);
+        return value == null ? fallback : Math.max(1, Integer.parseInt(value));
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int separator = parameter.indexOf('=');
+                if (separator > 0) {
+                    parameters.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+                }
+            }
+        }
+        return parameters;
+    }
+}
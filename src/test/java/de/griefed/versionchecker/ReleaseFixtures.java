@@ -0,0 +1,190 @@
+package de.griefed.versionchecker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Generates GitHub and GitLab release-lists of arbitrary size from the release fixtures in <code>fixtures/</code>.<br>
+ * Releases are generated in groups of three per version, <code>x.y.z-alpha.1</code>, <code>x.y.z-beta.1</code> and
+ * <code>x.y.z</code>, and returned newest-first, just like both APIs do.
+ */
+public final class ReleaseFixtures {
+
+    private static final String GITHUB_TEMPLATE = resource("fixtures/github-release.json");
+    private static final String GITLAB_TEMPLATE = resource("fixtures/gitlab-release.json");
+    private static final String FEED_TEMPLATE = resource("fixtures/github-feed-entry.xml");
+    private static final String GITLAB_HOOK_TEMPLATE = resource("fixtures/gitlab-release-hook.json");
+
+    private static final LocalDateTime FIRST_RELEASE = LocalDateTime.of(2015, 1, 1, 12, 0, 0);
+    private static final DateTimeFormatter GITHUB_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    private static final DateTimeFormatter GITLAB_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+
+    private ReleaseFixtures() {
+    }
+
+    /**
+     * @param index Index of the release, <code>0</code> being the oldest one.
+     * @return The tag of the release at the given index.
+     */
+    public static String tag(int index) {
+        int group = index / 3;
+        String version = (group / 100 + 1) + "." + (group / 10 % 10) + "." + (group % 10);
+
+        switch (index % 3) {
+            case 0:
+                return version + "-alpha.1";
+            case 1:
+                return version + "-beta.1";
+            default:
+                return version;
+        }
+    }
+
+    /**
+     * @param count Amount of releases in the repository.
+     * @return Index of the newest regular release, or <code>-1</code> if there is none.
+     */
+    public static int latestIndex(int count) {
+        for (int index = count - 1; index >= 0; index--) {
+            if (index % 3 == 2) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    public static String gitHubRelease(int index) {
+        return fill(GITHUB_TEMPLATE, index, GITHUB_DATE);
+    }
+
+    public static String gitLabRelease(int index) {
+        return fill(GITLAB_TEMPLATE, index, GITLAB_DATE);
+    }
+
+    /**
+     * @param count Amount of releases in the repository.
+     * @return JSON-array of all releases, as returned by <code>/repos/{owner}/{repo}/releases</code>.
+     */
+    public static String gitHubReleases(int count) {
+        return gitHubReleases(count, 0, count);
+    }
+
+    /**
+     * @param count Amount of releases in the repository.
+     * @param from Position in the newest-first list of the first release to include.
+     * @param to Position in the newest-first list after the last release to include.
+     * @return JSON-array of the releases in the given range, as returned for a single page.
+     */
+    public static String gitHubReleases(int count, int from, int to) {
+        StringBuilder json = new StringBuilder("[");
+        for (int position = from; position < Math.min(to, count); position++) {
+            if (position > from) {
+                json.append(',');
+            }
+            json.append(gitHubRelease(count - 1 - position));
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * @param count Amount of releases in the repository.
+     * @return JSON-object of the newest regular release, as returned by <code>/repos/{owner}/{repo}/releases/latest</code>,
+     * or a GitHub-style not-found message if there is no regular release.
+     */
+    public static String gitHubLatest(int count) {
+        int latest = latestIndex(count);
+        return latest < 0 ? "{\"message\":\"Not Found\"}" : gitHubRelease(latest);
+    }
+
+    /**
+     * @param count Amount of releases in the repository.
+     * @return Atom feed of the ten newest releases, as returned by <code>https://github.com/{owner}/{repo}/releases.atom</code>.
+     */
+    public static String gitHubFeed(int count) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:media=\"http://search.yahoo.com/mrss/\" xml:lang=\"en-US\">\n")
+                .append("  <id>tag:github.com,2008:https://github.com/Griefed/ServerPackCreator/releases</id>\n")
+                .append("  <link type=\"text/html\" rel=\"alternate\" href=\"https://github.com/Griefed/ServerPackCreator/releases\"/>\n")
+                .append("  <title>Release notes from ServerPackCreator</title>\n");
+        for (int position = 0; position < Math.min(10, count); position++) {
+            xml.append(fill(FEED_TEMPLATE, count - 1 - position, GITHUB_DATE));
+        }
+        return xml.append("</feed>\n").toString();
+    }
+
+    /**
+     * @param index Index of the release.
+     * @param action Action of the event, for example <code>published</code> or <code>deleted</code>.
+     * @return Payload of a GitHub <code>release</code> webhook for the release at the given index.
+     */
+    public static String gitHubReleaseEvent(int index, String action) {
+        return "{\"action\":\"" + action + "\",\"release\":" + gitHubRelease(index) +
+                ",\"repository\":{\"id\":308473486,\"name\":\"ServerPackCreator\",\"full_name\":\"Griefed/ServerPackCreator\",\"private\":false}" +
+                ",\"sender\":{\"login\":\"Griefed\",\"id\":12345,\"type\":\"User\"}}";
+    }
+
+    /**
+     * @param index Index of the release.
+     * @param action Action of the event, <code>create</code>, <code>update</code> or <code>delete</code>.
+     * @return Payload of a GitLab <code>Release Hook</code> for the release at the given index, in project 63.
+     */
+    public static String gitLabReleaseHook(int index, String action) {
+        return fill(GITLAB_HOOK_TEMPLATE, index, GITLAB_DATE).replace("\"action\": \"create\"", "\"action\": \"" + action + "\"");
+    }
+
+    public static String gitLabReleases(int count) {
+        return gitLabReleases(count, 0, count);
+    }
+
+    public static String gitLabReleases(int count, int from, int to) {
+        StringBuilder json = new StringBuilder("[");
+        for (int position = from; position < Math.min(to, count); position++) {
+            if (position > from) {
+                json.append(',');
+            }
+            json.append(gitLabRelease(count - 1 - position));
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * @return Lower-case, hex-encoded SHA-256 digest of the given bytes.
+     */
+    public static String sha256(byte[] bytes) {
+        return Checksum.hex(Checksum.newDigest(Checksum.SHA_256).digest(bytes));
+    }
+
+    private static String fill(String template, int index, DateTimeFormatter format) {
+        LocalDateTime date = FIRST_RELEASE.plusHours(6L * index);
+        return template
+                .replace("{{tag}}", tag(index))
+                .replace("{{id}}", String.valueOf(60000000 + index))
+                .replace("{{prerelease}}", String.valueOf(index % 3 != 2))
+                .replace("{{date}}", date.format(format))
+                .replace("{{day}}", date.toLocalDate().toString());
+    }
+
+    private static String resource(String name) {
+        try (InputStream inputStream = ReleaseFixtures.class.getClassLoader().getResourceAsStream(name)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Missing fixture " + name);
+            }
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            return new String(content.toByteArray(), StandardCharsets.UTF_8);
+
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
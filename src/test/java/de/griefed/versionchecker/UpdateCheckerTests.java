@@ -3,9 +3,11 @@ package de.griefed.versionchecker;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import java.io.IOException;
 
+@Tag("network")
 @SuppressWarnings("BusyWait")
 public class UpdateCheckerTests {
 
@@ -0,0 +1,140 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class UpdateCodecTests {
+
+    private Update update() throws IOException {
+        List<ReleaseAsset> assets = new ArrayList<>();
+        assets.add(new ReleaseAsset(
+                "serverpackcreator-3.0.0.jar",
+                new URL("https://github.com/Griefed/ServerPackCreator/releases/download/3.0.0/serverpackcreator-3.0.0.jar"),
+                "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08"));
+        assets.add(new ReleaseAsset(
+                "serverpackcreator-3.0.0.exe",
+                new URL("https://github.com/Griefed/ServerPackCreator/releases/download/3.0.0/serverpackcreator-3.0.0.exe")));
+
+        List<Source> sources = new ArrayList<>();
+        sources.add(new Source(ArchiveType.TAR_GZ, new URL("https://api.github.com/repos/Griefed/ServerPackCreator/tarball/3.0.0")));
+        sources.add(new Source(ArchiveType.ZIP, new URL("https://api.github.com/repos/Griefed/ServerPackCreator/zipball/3.0.0")));
+        sources.add(new Source(null, new URL("https://api.github.com/repos/Griefed/ServerPackCreator/zipball/3.0.0")));
+
+        return new Update(
+                "3.0.0",
+                "## Changes\n\n* Gr\u00f6\u00dfere \u00c4nderungen \ud83d\ude80",
+                new URL("https://github.com/Griefed/ServerPackCreator/releases/tag/3.0.0"),
+                LocalDate.of(2022, 3, 14),
+                assets,
+                sources
+        );
+    }
+
+    private void assertSame(Update expected, Update actual) {
+        Assertions.assertEquals(expected.version(), actual.version());
+        Assertions.assertEquals(expected.description(), actual.description());
+        Assertions.assertEquals(expected.url().toString(), actual.url().toString());
+        Assertions.assertEquals(expected.releaseDate(), actual.releaseDate());
+        Assertions.assertEquals(expected.assets().isPresent(), actual.assets().isPresent());
+        if (expected.assets().isPresent()) {
+            Assertions.assertEquals(expected.assets().get().size(), actual.assets().get().size());
+            for (int i = 0; i < expected.assets().get().size(); i++) {
+                Assertions.assertEquals(expected.assets().get().get(i).name(), actual.assets().get().get(i).name());
+                Assertions.assertEquals(expected.assets().get().get(i).url().toString(), actual.assets().get().get(i).url().toString());
+                Assertions.assertEquals(expected.assets().get().get(i).sha256(), actual.assets().get().get(i).sha256());
+            }
+        }
+        Assertions.assertEquals(expected.sources().size(), actual.sources().size());
+        for (int i = 0; i < expected.sources().size(); i++) {
+            Assertions.assertEquals(expected.sources().get(i).type(), actual.sources().get(i).type());
+            Assertions.assertEquals(expected.sources().get(i).url().toString(), actual.sources().get(i).url().toString());
+        }
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        Update update = update();
+
+        byte[] encoded = UpdateCodec.encode(update);
+        Assertions.assertEquals(UpdateCodec.encodedSize(update), encoded.length);
+        assertSame(update, UpdateCodec.decode(ByteBuffer.wrap(encoded)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+        UpdateCodec.encode(update, direct);
+        direct.flip();
+        assertSame(update, UpdateCodec.decode(direct));
+        Assertions.assertEquals(0, direct.remaining());
+
+        Update minimal = new Update("1.0.0", null, update.url(), null, null, Collections.emptyList());
+        Assertions.assertEquals(1, UpdateCodec.encode(minimal)[2]);
+        Assertions.assertEquals(UpdateCodec.FORMAT_VERSION, encoded[2]);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        UpdateCodec.encode(update, stream);
+        UpdateCodec.encode(minimal, stream);
+
+        ByteArrayInputStream input = new ByteArrayInputStream(stream.toByteArray());
+        assertSame(update, UpdateCodec.decode(input));
+        assertSame(minimal, UpdateCodec.decode(input));
+        Assertions.assertEquals(0, input.available());
+
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 10_000) {
+            description.append(update.description().get());
+        }
+        Update large = new Update("3.0.1", description.toString(), update.url(), update.releaseDate(), update.assets().get(), update.sources());
+        ByteArrayOutputStream largeStream = new ByteArrayOutputStream();
+        UpdateCodec.encode(large, largeStream);
+        Assertions.assertArrayEquals(UpdateCodec.encode(large), largeStream.toByteArray());
+    }
+
+    @Test
+    void fieldAccess() throws IOException {
+        Update update = update();
+        ByteBuffer encoded = ByteBuffer.wrap(UpdateCodec.encode(update));
+
+        Assertions.assertEquals("3.0.0", UpdateCodec.version(encoded));
+        Assertions.assertEquals(update.releaseDate(), UpdateCodec.releaseDate(encoded).get());
+        Assertions.assertEquals(update.url().toString(), UpdateCodec.link(encoded).toString());
+        Assertions.assertEquals(
+                update.description().get(),
+                StandardCharsets.UTF_8.decode(UpdateCodec.descriptionBytes(encoded).get()).toString());
+        Assertions.assertEquals(0, encoded.position());
+    }
+
+    @Test
+    void rejectsForeignData() {
+        Assertions.assertThrows(IOException.class, () -> UpdateCodec.decode(ByteBuffer.wrap("{\"tag_name\":1}".getBytes(StandardCharsets.UTF_8))));
+
+        byte[] truncated = new byte[12];
+        Assertions.assertThrows(IOException.class, () -> {
+            byte[] encoded = UpdateCodec.encode(update());
+            System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+            UpdateCodec.decode(ByteBuffer.wrap(truncated));
+        });
+
+        byte[] negative = {'V', 'C', 1, 0, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        Assertions.assertThrows(IOException.class, () -> UpdateCodec.version(ByteBuffer.wrap(negative)));
+        Assertions.assertThrows(IOException.class, () -> UpdateCodec.decode(ByteBuffer.wrap(negative)));
+        Assertions.assertThrows(IOException.class, () -> UpdateCodec.decode(new ByteArrayInputStream(negative)));
+
+        byte[] huge = {'V', 'C', 1, 0, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        Assertions.assertThrows(IOException.class, () -> UpdateCodec.version(ByteBuffer.wrap(huge)));
+        Assertions.assertThrows(IOException.class, () -> UpdateCodec.decode(new ByteArrayInputStream(huge)));
+
+        byte[] description = {'V', 'C', 1, 1, 0, 0, 0, 0, 1, '1', 100, 'a'};
+        Assertions.assertThrows(IOException.class, () -> UpdateCodec.descriptionBytes(ByteBuffer.wrap(description)));
+        Assertions.assertThrows(IOException.class, () -> UpdateCodec.link(ByteBuffer.wrap(description)));
+        Assertions.assertThrows(IOException.class, () -> UpdateCodec.version(ByteBuffer.wrap(description, 0, 9)));
+    }
+}
@@ -0,0 +1,148 @@
+package de.griefed.versionchecker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class VersionCheckerRegistryTests {
+
+    private final ReleaseApiStub STUB;
+    private final long SNAPSHOT_SIZE;
+
+    @TempDir
+    Path directory;
+
+    public VersionCheckerRegistryTests() throws IOException {
+        this.STUB = new ReleaseApiStub();
+        this.SNAPSHOT_SIZE = VersionCheckerRegistry.estimateSize(new GitHubChecker(STUB.url(), "Griefed/Size").refresh().getSnapshot());
+    }
+
+    @AfterEach
+    void stop() {
+        STUB.close();
+    }
+
+    @Test
+    void evicts() throws IOException {
+        VersionCheckerRegistry registry = new VersionCheckerRegistry(SNAPSHOT_SIZE * 3 / 2);
+
+        GitHubChecker first = (GitHubChecker) registry.get("first", checker("Griefed/First"));
+        Assertions.assertSame(first, registry.get("first", checker("Griefed/Other")));
+        first.refresh();
+        Assertions.assertEquals(SNAPSHOT_SIZE, registry.size());
+
+        GitHubChecker second = (GitHubChecker) registry.get("second", checker("Griefed/Second")).refresh();
+        Assertions.assertEquals(SNAPSHOT_SIZE, registry.size());
+        Assertions.assertNull(first.allVersions());
+        Assertions.assertEquals(30, second.allVersions().size());
+
+        first.refresh();
+        Assertions.assertEquals(30, first.allVersions().size());
+        Assertions.assertNull(second.allVersions());
+
+        registry.remove("first");
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertEquals(1, registry.count());
+
+        STUB.requests().clear();
+        Assertions.assertSame(second, registry.get("second", checker("Griefed/Second")));
+        Assertions.assertEquals(30, second.allVersions().size());
+        Assertions.assertEquals(SNAPSHOT_SIZE, registry.size());
+        Assertions.assertFalse(STUB.requests().isEmpty());
+
+        STUB.requests().clear();
+        registry.get("second", checker("Griefed/Second"));
+        Assertions.assertTrue(STUB.requests().isEmpty());
+    }
+
+    @Test
+    void reportsChangesAfterEviction() throws IOException {
+        VersionCheckerRegistry registry = new VersionCheckerRegistry(SNAPSHOT_SIZE * 3 / 2);
+        List<ReleaseDiff> diffs = new ArrayList<>();
+
+        GitHubChecker first = (GitHubChecker) registry.get("first", checker("Griefed/First"));
+        first.addListener((checker, diff) -> diffs.add(diff));
+        first.refresh();
+        Assertions.assertEquals(30, diffs.get(0).added().size());
+
+        registry.get("second", checker("Griefed/Second")).refresh();
+        Assertions.assertNull(first.allVersions());
+        registry.get("first", checker("Griefed/First"));
+        Assertions.assertEquals(30, first.allVersions().size());
+        Assertions.assertEquals(1, diffs.size());
+
+        registry.get("second", checker("Griefed/Second")).refresh();
+        Assertions.assertNull(first.allVersions());
+        STUB.releases(31);
+        registry.get("first", checker("Griefed/First"));
+        Assertions.assertEquals(2, diffs.size());
+        Assertions.assertEquals(Collections.singletonList(ReleaseFixtures.tag(30)), diffs.get(1).added());
+        Assertions.assertTrue(diffs.get(1).edited().isEmpty());
+    }
+
+    @Test
+    void spills() throws IOException {
+        VersionCheckerRegistry registry = new VersionCheckerRegistry(SNAPSHOT_SIZE * 3 / 2, directory);
+
+        GitHubChecker first = (GitHubChecker) registry.get("first", checker("Griefed/First")).refresh();
+        registry.get("second", checker("Griefed/Second")).refresh();
+        Assertions.assertNull(first.allVersions());
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(1, files.count());
+        }
+
+        STUB.requests().clear();
+        Assertions.assertSame(first, registry.get("first", checker("Griefed/First")));
+        Assertions.assertEquals(30, first.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(29), first.latestVersion(false));
+        Optional<Update> update = first.check("1.0.0", false);
+        Assertions.assertTrue(update.isPresent());
+        Assertions.assertEquals(body(ReleaseFixtures.tag(29)), update.get().description().get());
+        Assertions.assertTrue(STUB.requests().isEmpty());
+        Assertions.assertEquals(SNAPSHOT_SIZE, registry.size());
+    }
+
+    @Test
+    void deflatesDescriptions() throws IOException {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator").refresh();
+        JsonNode release = gitHub.getSnapshot().get(0);
+
+        Assertions.assertFalse(release.has("body"));
+        Assertions.assertTrue(release.get("body_deflated").isBinary());
+        Assertions.assertTrue(SNAPSHOT_SIZE < VersionCheckerRegistry.estimateSize(new ObjectMapper().readTree(ReleaseFixtures.gitHubReleases(30))));
+        Assertions.assertEquals(body(ReleaseFixtures.tag(29)), gitHub.check("1.0.0", false).get().description().get());
+    }
+
+    private String body(String tag) throws IOException {
+        for (JsonNode release : new ObjectMapper().readTree(ReleaseFixtures.gitHubReleases(30))) {
+            if (release.get("tag_name").asText().equals(tag)) {
+                return release.get("body").asText();
+            }
+        }
+        throw new IllegalArgumentException(tag);
+    }
+
+    private Function<String, VersionChecker> checker(String repository) {
+        return key -> {
+            try {
+                return new GitHubChecker(STUB.url(), repository);
+            } catch (MalformedURLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package de.griefed.versionchecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Optional;
+
+public class WebhookReceiverTests {
+
+    private final ReleaseApiStub STUB;
+    private final WebhookReceiver RECEIVER;
+
+    public WebhookReceiverTests() throws IOException {
+        this.STUB = new ReleaseApiStub();
+        this.RECEIVER = new WebhookReceiver(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), "/hooks");
+    }
+
+    @AfterEach
+    void stop() {
+        RECEIVER.close();
+        STUB.close();
+    }
+
+    @Test
+    void gitHub() throws Exception {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator").refresh();
+        RECEIVER.register(gitHub, "secret").start();
+        STUB.requests().clear();
+
+        String published = ReleaseFixtures.gitHubReleaseEvent(30, "published");
+        Assertions.assertEquals(401, post("X-GitHub-Event", "release", published, "X-Hub-Signature-256", "sha256=" + hmac("wrong", published)));
+        Assertions.assertEquals(30, gitHub.allVersions().size());
+
+        String unknown = published.replace("Griefed/ServerPackCreator", "Griefed/Unknown");
+        Assertions.assertEquals(401, post("X-GitHub-Event", "release", unknown, "X-Hub-Signature-256", "sha256=" + hmac("wrong", unknown)));
+        Assertions.assertEquals(404, post("X-GitHub-Event", "release", unknown, "X-Hub-Signature-256", "sha256=" + hmac("secret", unknown)));
+
+        Assertions.assertEquals(200, post("X-GitHub-Event", "release", published, "X-Hub-Signature-256", "sha256=" + hmac("secret", published)));
+        Assertions.assertEquals(31, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(30), gitHub.allVersions().get(0));
+
+        Optional<Update> update = gitHub.check(ReleaseFixtures.tag(29), true);
+        Assertions.assertTrue(update.isPresent());
+        Assertions.assertEquals(ReleaseFixtures.tag(30), update.get().version());
+
+        String deleted = ReleaseFixtures.gitHubReleaseEvent(30, "deleted");
+        Assertions.assertEquals(200, post("X-GitHub-Event", "release", deleted, "X-Hub-Signature-256", "sha256=" + hmac("secret", deleted)));
+        Assertions.assertEquals(30, gitHub.allVersions().size());
+        Assertions.assertFalse(gitHub.check(ReleaseFixtures.tag(29), true).isPresent());
+
+        Assertions.assertEquals(202, post("X-GitHub-Event", "push", "{}", "X-Hub-Signature-256", "sha256=" + hmac("secret", "{}")));
+        Assertions.assertTrue(STUB.requests().isEmpty());
+    }
+
+    @Test
+    void duringRefresh() throws Exception {
+        GitHubChecker gitHub = new GitHubChecker(STUB.url(), "Griefed/ServerPackCreator").refresh();
+        RECEIVER.register(gitHub, "secret").start();
+        STUB.latency(500);
+
+        Thread refresh = new Thread(() -> {
+            try {
+                gitHub.refreshIncrementally();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        refresh.start();
+        Thread.sleep(100);
+
+        String published = ReleaseFixtures.gitHubReleaseEvent(30, "published");
+        Assertions.assertEquals(200, post("X-GitHub-Event", "release", published, "X-Hub-Signature-256", "sha256=" + hmac("secret", published)));
+        refresh.join();
+
+        Assertions.assertEquals(31, gitHub.allVersions().size());
+        Assertions.assertEquals(ReleaseFixtures.tag(30), gitHub.allVersions().get(0));
+    }
+
+    @Test
+    void gitLab() throws Exception {
+        GitLabChecker gitLab = new GitLabChecker(STUB.gitLabUrl(63)).refresh();
+        RECEIVER.register(gitLab, "token").start();
+
+        String created = ReleaseFixtures.gitLabReleaseHook(30, "create");
+        Assertions.assertEquals(401, post("X-Gitlab-Event", "Release Hook", created, "X-Gitlab-Token", "wrong"));
+        Assertions.assertEquals(200, post("X-Gitlab-Event", "Release Hook", created, "X-Gitlab-Token", "token"));
+        Assertions.assertEquals(21, gitLab.allVersions().size());
+
+        Optional<Update> update = gitLab.check(ReleaseFixtures.tag(29), true);
+        Assertions.assertTrue(update.isPresent());
+        Assertions.assertEquals(ReleaseFixtures.tag(30), update.get().version());
+        Assertions.assertEquals(1, update.get().assets().get().size());
+
+        String removed = ReleaseFixtures.gitLabReleaseHook(30, "delete");
+        Assertions.assertEquals(200, post("X-Gitlab-Event", "Release Hook", removed, "X-Gitlab-Token", "token"));
+        Assertions.assertEquals(20, gitLab.allVersions().size());
+
+        Assertions.assertEquals(404, post("X-Gitlab-Event", "Release Hook", created.replace("\"id\": 63", "\"id\": 64")
+                .replace("Griefed/ServerPackCreator\"", "Griefed/Other\""), "X-Gitlab-Token", "token"));
+    }
+
+    private int post(String eventHeader, String event, String payload, String authHeader, String auth) throws IOException {
+        URL url = new URL("http://" + RECEIVER.address().getHostString() + ":" + RECEIVER.address().getPort() + "/hooks");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty(eventHeader, event);
+        connection.setRequestProperty(authHeader, auth);
+        try (OutputStream outputStream = connection.getOutputStream()) {
+            outputStream.write(payload.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        connection.disconnect();
+        return status;
+    }
+
+    private static String hmac(String secret, String payload) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return Checksum.hex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+}